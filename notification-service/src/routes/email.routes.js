@@ -22,14 +22,32 @@ const router = express.Router();
  * @route POST /send-invoice
  * @param {Object} req.body.customer - Información del cliente
  * @param {Array} req.body.products - Lista de productos
- * @param {string} req.body.pdfBase64 - PDF en base64
+ * @param {string} [req.body.pdfBase64] - PDF en base64 (modo inline)
+ * @param {string} [req.body.pdfUrl] - URL firmada para descargar el PDF (modo claim-check)
+ * @param {string} [req.headers['x-request-timeout-ms']] - Presupuesto restante del orquestador en ms
+ * @param {string} [req.headers['x-trace-id']] - ID de la traza de la venta (se registra en los logs)
+ * 
+ * La respuesta incluye Server-Timing con el tiempo hasta aceptar la petición,
+ * que el orquestador agrega a la línea de tiempo de la venta.
  * @returns {Object} Respuesta con HTTP 202 Accepted
  */
 router.post('/send-invoice', (req, res) => {
+    const started = process.hrtime.bigint();
     try {
-        console.log('📥 Recibida petición de envío de email');
+        const traceId = req.get('X-Trace-Id');
+        console.log(`📥 Recibida petición de envío de email (traza: ${traceId || '-'})`);
 
-        const { customer, products, pdfBase64 } = req.body;
+        // Deadline propagado por el orquestador: si ya se agotó, no se acepta el envío
+        const timeoutHeader = req.get('X-Request-Timeout-Ms');
+        if (timeoutHeader !== undefined && Number(timeoutHeader) <= 0) {
+            console.log('⌛ Petición rechazada: deadline agotado');
+            return res.status(504).json({
+                error: 'Deadline agotado',
+                message: 'El tiempo límite de la petición se agotó antes de aceptarla'
+            });
+        }
+
+        const { customer, products, pdfBase64, pdfUrl } = req.body;
 
         // Validar datos requeridos
         if (!customer || !products) {
@@ -64,6 +82,14 @@ router.post('/send-invoice', (req, res) => {
             });
         }
 
+        // Validar la referencia claim-check si viene en lugar del base64
+        if (pdfUrl && !/^https?:\/\//.test(pdfUrl)) {
+            return res.status(400).json({
+                error: 'pdfUrl inválida',
+                message: 'La referencia del PDF debe ser una URL http(s)'
+            });
+        }
+
         console.log(`   Cliente: ${customer.name}`);
         console.log(`   Email: ${customer.email}`);
         console.log(`   Productos: ${products.length}`);
@@ -72,13 +98,20 @@ router.post('/send-invoice', (req, res) => {
         processEmailInBackground({
             customer,
             products,
-            pdfBase64
+            pdfBase64,
+            pdfUrl,
+            traceId
         });
 
         // Responder inmediatamente con HTTP 202 Accepted
         // El cliente no espera a que el email se envíe
         console.log('✅ Petición aceptada, procesando en background');
         
+        const acceptMs = Number(process.hrtime.bigint() - started) / 1e6;
+        res.set('Server-Timing', `accept;dur=${acceptMs.toFixed(1)}`);
+        if (traceId) {
+            res.set('X-Trace-Id', traceId);
+        }
         res.status(202).json({
             message: 'Email aceptado para envío',
             status: 'processing',
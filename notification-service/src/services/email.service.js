@@ -105,26 +105,32 @@ function generateEmailHTML(customer, products) {
  * 
  * @param {Object} customer - Información del cliente
  * @param {Array} products - Lista de productos
- * @param {string} pdfBase64 - PDF en formato base64
+ * @param {string} [pdfBase64] - PDF en formato base64 (modo inline)
+ * @param {string} [pdfUrl] - URL firmada del PDF en el orquestador (modo claim-check)
  * @returns {Promise<Object>} Resultado del envío
  */
-async function sendInvoiceEmail(customer, products, pdfBase64) {
+async function sendInvoiceEmail(customer, products, pdfBase64, pdfUrl) {
     try {
         console.log(`📧 Preparando email para: ${customer.email}`);
 
-        // Convertir base64 a buffer
-        const pdfBuffer = Buffer.from(pdfBase64, 'base64');
-
         // Generar HTML del email
         const htmlContent = generateEmailHTML(customer, products);
 
         // Configurar el email
-        // Validar si se recibió adjunto pdfBase64, sino no adjuntar
+        // PATRON: Claim-Check. Con pdfUrl, Nodemailer descarga el PDF como stream
+        // al construir el mensaje, sin pasar por base64 ni por el body JSON.
+        // Si no hay referencia se usa pdfBase64; sin ninguno no se adjunta.
         const attachments = [];
-        if (pdfBase64) {
+        if (pdfUrl) {
+            attachments.push({
+                filename: 'factura.pdf',
+                path: pdfUrl,
+                contentType: 'application/pdf'
+            });
+        } else if (pdfBase64) {
             attachments.push({
                 filename: 'factura.pdf',
-                content: pdfBuffer,
+                content: Buffer.from(pdfBase64, 'base64'),
                 contentType: 'application/pdf'
             });
         }
@@ -169,18 +175,23 @@ async function sendInvoiceEmail(customer, products, pdfBase64) {
  * Esta función se ejecuta sin bloquear el hilo principal.
  * 
  * @param {Object} data - Datos completos para el email
+ * @param {string} [data.traceId] - ID de la traza de la venta (para los logs)
  */
 function processEmailInBackground(data) {
     // Ejecutar de forma asíncrona sin esperar resultado
     setImmediate(async () => {
+        const started = process.hrtime.bigint();
         try {
             await sendInvoiceEmail(
                 data.customer,
                 data.products,
-                data.pdfBase64
+                data.pdfBase64,
+                data.pdfUrl
             );
+            const elapsedMs = Number(process.hrtime.bigint() - started) / 1e6;
+            console.log(`⏱️ Envío en background terminado en ${elapsedMs.toFixed(1)} ms (traza: ${data.traceId || '-'})`);
         } catch (error) {
-            console.error('❌ Error en procesamiento background:', error.message);
+            console.error(`❌ Error en procesamiento background (traza: ${data.traceId || '-'}):`, error.message);
         }
     });
 }
@@ -0,0 +1,118 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmark del compromiso CPU vs bytes de la compresión gzip entre servicios.
+ *
+ * Genera payloads JSON con la misma forma que SaleRequest (cliente + N productos)
+ * y mide, por nivel gzip, el tamaño comprimido y el tiempo de compresión y
+ * descompresión. Con esos datos calcula el ancho de banda por debajo del cual
+ * comprimir reduce la latencia total del enlace.
+ *
+ * Ejecución (sin dependencias, Java 21):
+ *   java benchmarks/CompressionBenchmark.java
+ *   java benchmarks/CompressionBenchmark.java 10 100 1000 10000
+ */
+public class CompressionBenchmark {
+
+    private static final int[] LEVELS = {1, 6, 9};
+    private static final int WARMUP_ROUNDS = 200;
+    private static final long MIN_MEASURE_NANOS = 300_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        int[] itemCounts = args.length > 0
+            ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1, 10, 100, 1_000, 10_000};
+
+        System.out.printf("%-8s %-6s %12s %12s %7s %12s %12s %16s%n",
+            "items", "nivel", "bytes", "gzip", "ratio", "comp µs", "decomp µs", "break-even Mbps");
+
+        for (int items : itemCounts) {
+            byte[] payload = saleJson(items);
+            for (int level : LEVELS) {
+                byte[] compressed = gzip(payload, level);
+                double compressMicros = measure(() -> gzip(payload, level));
+                double decompressMicros = measure(() -> gunzip(compressed));
+
+                // Comprimir conviene si el tiempo ahorrado en la red supera el de CPU:
+                // bytesAhorrados * 8 / ancho < tiempoCPU  =>  ancho < bytesAhorrados * 8 / tiempoCPU
+                long savedBytes = payload.length - compressed.length;
+                double cpuMicros = compressMicros + decompressMicros;
+                double breakEvenMbps = savedBytes > 0 ? savedBytes * 8 / cpuMicros : 0;
+
+                System.out.printf("%-8d %-6d %12d %12d %6.1fx %12.1f %12.1f %16.0f%n",
+                    items, level, payload.length, compressed.length,
+                    (double) payload.length / compressed.length,
+                    compressMicros, decompressMicros, breakEvenMbps);
+            }
+        }
+
+        System.out.println();
+        System.out.println("break-even Mbps: por debajo de ese ancho de banda, comprimir reduce la latencia del enlace.");
+        System.out.println("Ajustar services.compression.level y services.compression.min-request-bytes según estos resultados.");
+    }
+
+    private static byte[] saleJson(int items) {
+        StringBuilder json = new StringBuilder(128 + items * 96);
+        json.append("{\"customer\":{\"name\":\"Juan Pérez\",\"identification\":\"1234567890\",")
+            .append("\"email\":\"juan.perez@example.com\"},\"products\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            long price = 1_000 + (i * 7_919L) % 500_000;
+            int quantity = 1 + i % 12;
+            json.append("{\"name\":\"Producto ").append(i).append(" referencia SKU-").append(100_000 + i)
+                .append("\",\"price\":").append(price / 100).append('.').append(String.format("%02d", price % 100))
+                .append(",\"quantity\":").append(quantity)
+                .append(",\"total\":").append(price * quantity / 100).append('.')
+                .append(String.format("%02d", price * quantity % 100))
+                .append('}');
+        }
+        json.append("]}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(512, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data), 8192)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static double measure(IoTask task) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        long iterations = 0;
+        long elapsed;
+        do {
+            task.run();
+            iterations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MIN_MEASURE_NANOS);
+        return elapsed / 1_000.0 / iterations;
+    }
+
+    @FunctionalInterface
+    private interface IoTask {
+        Object run() throws IOException;
+    }
+}
@@ -0,0 +1,100 @@
+#!/usr/bin/env bash
+# ========================================
+# Benchmark de arranque del orquestador
+# ========================================
+# Mide, para cada modo de ejecución disponible:
+#   - ready_ms:  tiempo desde el lanzamiento hasta que /health responde 200
+#   - first_ms:  latencia de la primera petición autenticada (GET /api/sales/1)
+#
+# Modos:
+#   jar  -> target/orchestrator-service-*.jar           (mvn package)
+#   aot  -> target/fast-startup/*-app.jar con AOT        (mvn -Pfast-startup package)
+#   cds  -> igual que aot + -XX:SharedArchiveFile=app.jsa
+#
+# Uso:
+#   ./benchmarks/startup-benchmark.sh [ejecuciones] [modos...]
+#   ./benchmarks/startup-benchmark.sh 5 jar cds
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+ROOT_DIR="$(pwd)"
+
+RUNS="${1:-5}"
+shift || true
+MODES=("${@:-jar aot cds}")
+MODES=(${MODES[*]})
+
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+PORT="${BENCH_PORT:-18080}"
+API_KEY="${ORCHESTRATOR_API_KEY:-default-orchestrator-key}"
+WORK_DIR="$(mktemp -d)"
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+FAT_JAR="$(ls "$ROOT_DIR"/target/orchestrator-service-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+FAST_DIR="$ROOT_DIR/target/fast-startup"
+APP_JAR="$(ls "$FAST_DIR"/*-app.jar 2>/dev/null | head -n 1 || true)"
+
+now_ms() {
+    date +%s%3N
+}
+
+command_for() {
+    local common=(-Dserver.port="$PORT" -Dspring.datasource.url="jdbc:sqlite:$WORK_DIR/bench.db"
+                  -Dapi.key.orchestrator="$API_KEY")
+    case "$1" in
+        jar) [[ -n "$FAT_JAR" ]] && echo "$JAVA ${common[*]} -jar $FAT_JAR" ;;
+        # El archivo CDS se entrenó con el jar relativo a target/fast-startup:
+        # estos modos se ejecutan desde ese directorio para que el classpath coincida
+        aot) [[ -n "$APP_JAR" ]] && echo "$JAVA ${common[*]} -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar $(basename "$APP_JAR")" ;;
+        cds) [[ -n "$APP_JAR" && -f "$FAST_DIR/app.jsa" ]] && \
+             echo "$JAVA -XX:SharedArchiveFile=app.jsa -Xshare:auto ${common[*]} -Dspring.aot.enabled=true -Dspring.profiles.active=prod -jar $(basename "$APP_JAR")" ;;
+    esac
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+printf "%-5s %5s %10s %10s %10s %10s\n" "modo" "runs" "ready_min" "ready_med" "ready_max" "first_med"
+
+for mode in "${MODES[@]}"; do
+    cmd="$(command_for "$mode" || true)"
+    if [[ -z "$cmd" ]]; then
+        echo "$mode: artefactos no encontrados, se omite" >&2
+        continue
+    fi
+
+    ready_times=()
+    first_times=()
+    for ((i = 1; i <= RUNS; i++)); do
+        rm -f "$WORK_DIR/bench.db"
+        start=$(now_ms)
+        run_dir="$WORK_DIR"
+        [[ "$mode" != "jar" ]] && run_dir="$FAST_DIR"
+        (cd "$run_dir" && exec $cmd > "$WORK_DIR/$mode-$i.log" 2>&1) &
+        pid=$!
+
+        until curl -sf -o /dev/null "http://localhost:$PORT/health"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$mode: el proceso terminó antes de estar listo, ver $WORK_DIR/$mode-$i.log" >&2
+                cat "$WORK_DIR/$mode-$i.log" >&2
+                exit 1
+            fi
+            sleep 0.05
+        done
+        ready_times+=($(( $(now_ms) - start )))
+
+        first=$(curl -s -o /dev/null -w '%{time_total}' -H "X-API-Key: $API_KEY" \
+            "http://localhost:$PORT/api/sales/1")
+        first_times+=($(awk -v t="$first" 'BEGIN { printf "%d", t * 1000 }'))
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+
+    printf "%-5s %5d %10d %10d %10d %10d\n" "$mode" "$RUNS" \
+        "$(printf '%s\n' "${ready_times[@]}" | sort -n | head -n 1)" \
+        "$(printf '%s\n' "${ready_times[@]}" | median)" \
+        "$(printf '%s\n' "${ready_times[@]}" | sort -n | tail -n 1)" \
+        "$(printf '%s\n' "${first_times[@]}" | median)"
+done
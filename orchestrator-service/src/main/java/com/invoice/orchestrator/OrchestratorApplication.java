@@ -1,8 +1,11 @@
 package com.invoice.orchestrator;
 
+import com.invoice.orchestrator.config.DeadlineAwareRequestFactory;
+import com.invoice.orchestrator.config.HttpCompressionInterceptor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -13,6 +16,7 @@ import org.springframework.web.client.RestTemplate;
  * @version 1.0.0
  */
 @SpringBootApplication(scanBasePackages = "com.invoice.orchestrator")
+@EnableScheduling
 public class OrchestratorApplication {
 
     /**
@@ -34,12 +38,19 @@ public class OrchestratorApplication {
      * PATRON COMENTADO: También se podría configurar un Retry Pattern para
      * reintentar llamadas fallidas automáticamente.
      * 
+     * El interceptor de compresión negocia gzip con los servicios de PDF y email.
+     * La fábrica de conexiones aplica timeouts acotados por el deadline de la petición.
+     * 
+     * @param compressionInterceptor Interceptor de compresión de peticiones/respuestas
+     * @param requestFactory Fábrica de conexiones con timeouts según el deadline
      * @return Instancia de RestTemplate configurada
      */
     @Bean
-    public RestTemplate restTemplate() {
-        // PATRON: Aquí se configurarían timeouts para evitar bloqueos indefinidos
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpCompressionInterceptor compressionInterceptor,
+                                     DeadlineAwareRequestFactory requestFactory) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(compressionInterceptor);
+        return restTemplate;
     }
     
     // CORS configuration moved to CorsConfig.java
@@ -0,0 +1,100 @@
+package com.invoice.orchestrator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración de los clientes de la API (api.clients.&lt;nombre&gt;.*).
+ * 
+ * Cada cliente tiene su propia API Key y un peso para el reparto justo de la
+ * generación de PDF: con pesos 8 y 1, un cliente interactivo obtiene 8 turnos
+ * por cada turno de un cliente de carga masiva cuando ambos tienen cola.
+ * 
+ * Ejemplo:
+ *   api.clients.checkout.key=...
+ *   api.clients.checkout.weight=8
+ *   api.clients.backoffice.key=...
+ *   api.clients.backoffice.weight=1
+ *   api.clients.backoffice.rate-per-second=5
+ *   api.clients.backoffice.burst=20
+ *   api.clients.admin.key=...
+ *   api.clients.admin.admin=true
+ */
+@Component
+@ConfigurationProperties(prefix = "api")
+public class ApiClientProperties {
+
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    public Map<String, Client> getClients() {
+        return clients;
+    }
+
+    public void setClients(Map<String, Client> clients) {
+        this.clients = clients;
+    }
+
+    /**
+     * Configuración de un cliente. Un cliente sin key no puede autenticarse,
+     * pero su peso aplica a trabajos internos que usen su nombre.
+     */
+    public static class Client {
+
+        private String key;
+        private int weight = 1;
+        private double ratePerSecond;
+        private int burst = 1;
+        private boolean admin;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Peticiones por segundo permitidas (0 = sin límite).
+         */
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        /**
+         * Peticiones admitidas de golpe por encima de la tasa.
+         */
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+
+        /**
+         * Acceso a los endpoints de operación (/api/admin/**).
+         */
+        public boolean isAdmin() {
+            return admin;
+        }
+
+        public void setAdmin(boolean admin) {
+            this.admin = admin;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.invoice.orchestrator.config;
+
+import com.invoice.orchestrator.exception.DeadlineExceededException;
+import com.invoice.orchestrator.service.Deadline;
+import com.invoice.orchestrator.service.SaleTrace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * Fábrica de conexiones HTTP que acota los timeouts al deadline de la petición.
+ *
+ * Sin deadline en el hilo se usan los timeouts por defecto
+ * (services.http.connect-timeout-ms y services.http.read-timeout-ms).
+ * Con deadline, cada timeout es el menor entre el por defecto y el tiempo
+ * restante, y el tiempo restante se reenvía en el header {@link Deadline#HEADER}.
+ * Si el deadline ya pasó, la llamada no se realiza.
+ *
+ * El read timeout de HttpURLConnection aplica a cada lectura, no a la respuesta
+ * completa; el deadline se vuelve a verificar entre etapas.
+ *
+ * Si hay una {@link SaleTrace} activa, su ID se reenvía en {@link SaleTrace#HEADER}.
+ */
+@Component
+public class DeadlineAwareRequestFactory extends SimpleClientHttpRequestFactory {
+
+    private final int defaultConnectTimeoutMs;
+    private final int defaultReadTimeoutMs;
+
+    public DeadlineAwareRequestFactory(
+            @Value("${services.http.connect-timeout-ms:2000}") int connectTimeoutMs,
+            @Value("${services.http.read-timeout-ms:30000}") int readTimeoutMs) {
+        this.defaultConnectTimeoutMs = connectTimeoutMs;
+        this.defaultReadTimeoutMs = readTimeoutMs;
+        setConnectTimeout(connectTimeoutMs);
+        setReadTimeout(readTimeoutMs);
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+
+        SaleTrace trace = SaleTrace.current();
+        if (trace != null) {
+            connection.setRequestProperty(SaleTrace.HEADER, trace.getTraceId());
+        }
+
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return;
+        }
+        long remainingMs = deadline.remainingMillis();
+        if (remainingMs <= 0) {
+            throw new DeadlineExceededException(connection.getURL().getPath());
+        }
+        connection.setConnectTimeout((int) Math.min(defaultConnectTimeoutMs, remainingMs));
+        connection.setReadTimeout((int) Math.min(defaultReadTimeoutMs, remainingMs));
+        connection.setRequestProperty(Deadline.HEADER, Long.toString(remainingMs));
+    }
+}
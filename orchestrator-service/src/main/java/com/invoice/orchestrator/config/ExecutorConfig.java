@@ -0,0 +1,69 @@
+package com.invoice.orchestrator.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pools de hilos para el trabajo en segundo plano del orquestador.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Pool acotado para el envío de emails tras facturar.
+     * Si la cola se llena, la venta queda en INVOICED y la retoma el barrido de recuperación.
+     * 
+     * @return Executor de envío de emails
+     */
+    @Bean(name = "emailExecutor")
+    public ThreadPoolTaskExecutor emailExecutor(
+            @Value("${services.email.dispatch-threads:2}") int threads,
+            @Value("${services.email.dispatch-queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("email-dispatch-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Pool de entrega del feed SSE de ventas. Publicar un evento solo agenda
+     * tareas aquí; un suscriptor lento ocupa un hilo de este pool, nunca el
+     * hilo que guarda la venta.
+     * 
+     * @return Executor de entrega de eventos SSE
+     */
+    @Bean(name = "sseExecutor")
+    public ThreadPoolTaskExecutor sseExecutor(
+            @Value("${sales.stream.delivery-threads:4}") int threads,
+            @Value("${sales.stream.delivery-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sse-delivery-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+
+    /**
+     * Hilo coordinador de los trabajos de regeneración masiva de PDFs.
+     * Un solo trabajo corre a la vez; sus PDFs se generan en un pool propio
+     * con el paralelismo del trabajo.
+     * 
+     * @return Executor de trabajos de regeneración
+     */
+    @Bean(name = "regenerationExecutor")
+    public ThreadPoolTaskExecutor regenerationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("pdf-regeneration-job-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        return executor;
+    }
+}
@@ -0,0 +1,179 @@
+package com.invoice.orchestrator.config;
+
+import com.invoice.orchestrator.monitoring.HttpPayloadEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Interceptor de RestTemplate que negocia compresión con los otros microservicios.
+ *
+ * - Peticiones: comprime el body con gzip cuando el enlace lo tiene habilitado
+ *   y el body supera el umbral configurado (los payloads pequeños no se comprimen).
+ * - Respuestas: anuncia Accept-Encoding: gzip y descomprime de forma transparente.
+ *
+ * La compresión se elige por enlace (services.pdf.compression y
+ * services.email.compression) para poder decidir según el benchmark de
+ * benchmarks/CompressionBenchmark.java.
+ *
+ * Cada intercambio emite un evento JFR {@link HttpPayloadEvent} con los tamaños
+ * del body antes y después de comprimir.
+ */
+@Component
+public class HttpCompressionInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String GZIP = "gzip";
+
+    @Value("${services.pdf.url}")
+    private String pdfServiceUrl;
+
+    @Value("${services.email.url}")
+    private String emailServiceUrl;
+
+    @Value("${services.pdf.compression:gzip}")
+    private String pdfCompression;
+
+    @Value("${services.email.compression:gzip}")
+    private String emailCompression;
+
+    @Value("${services.compression.min-request-bytes:2048}")
+    private int minRequestBytes;
+
+    @Value("${services.compression.level:1}")
+    private int compressionLevel;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        HttpPayloadEvent event = new HttpPayloadEvent();
+        event.begin();
+        event.requestBytes = body.length;
+        event.sentBytes = body.length;
+        try {
+            ClientHttpResponse response = exchange(request, body, execution, event);
+            event.status = response.getStatusCode().value();
+            return response;
+        } finally {
+            if (event.shouldCommit()) {
+                event.path = request.getURI().getPath();
+                event.commit();
+            }
+        }
+    }
+
+    private ClientHttpResponse exchange(HttpRequest request, byte[] body, ClientHttpRequestExecution execution,
+                                        HttpPayloadEvent event) throws IOException {
+        if (!GZIP.equalsIgnoreCase(compressionFor(request.getURI().toString()))) {
+            return execution.execute(request, body);
+        }
+
+        HttpHeaders headers = request.getHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+
+        byte[] payload = body;
+        if (body.length >= minRequestBytes && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            payload = gzip(body);
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.setContentLength(payload.length);
+            event.sentBytes = payload.length;
+        }
+
+        ClientHttpResponse response = execution.execute(request, payload);
+        HttpHeaders responseHeaders = response.getHeaders();
+        boolean gzipped = GZIP.equalsIgnoreCase(responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING));
+        return gzipped && responseHeaders.getContentLength() != 0
+            ? new GzipClientHttpResponse(response)
+            : response;
+    }
+
+    /**
+     * @return true si un body de esa longitud hacia esa URL se envía comprimido con gzip
+     */
+    boolean shouldCompress(String url, long contentLength) {
+        return GZIP.equalsIgnoreCase(compressionFor(url)) && contentLength >= minRequestBytes;
+    }
+
+    int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    private String compressionFor(String url) {
+        if (url.startsWith(pdfServiceUrl)) {
+            return pdfCompression;
+        }
+        if (url.startsWith(emailServiceUrl)) {
+            return emailCompression;
+        }
+        return "none";
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(512, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        }) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Respuesta que descomprime el body gzip al leerlo.
+     * Oculta Content-Encoding y Content-Length, que ya no aplican al body descomprimido.
+     */
+    private static final class GzipClientHttpResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        private GzipClientHttpResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            HttpHeaders copy = new HttpHeaders();
+            copy.putAll(delegate.getHeaders());
+            copy.remove(HttpHeaders.CONTENT_ENCODING);
+            copy.remove(HttpHeaders.CONTENT_LENGTH);
+            this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(delegate.getBody(), 8192);
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
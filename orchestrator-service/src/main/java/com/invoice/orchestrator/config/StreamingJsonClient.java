@@ -0,0 +1,141 @@
+package com.invoice.orchestrator.config;
+
+import com.invoice.orchestrator.monitoring.HttpPayloadEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * POST de bodies JSON grandes escritos en streaming hacia los otros microservicios.
+ *
+ * RestTemplate arma el body completo en un byte[] antes de pasar por los
+ * interceptores; aquí el body se escribe directo a la conexión (longitud fija,
+ * o chunked si se comprime), así que la memoria no crece con el tamaño de la venta.
+ *
+ * Usa la misma {@link DeadlineAwareRequestFactory} (timeouts acotados por el
+ * deadline y header de presupuesto) y la misma política de compresión por enlace
+ * que {@link HttpCompressionInterceptor}, y emite el mismo evento JFR
+ * {@link HttpPayloadEvent}. Las respuestas no se negocian comprimidas.
+ */
+@Component
+public class StreamingJsonClient {
+
+    private static final String GZIP = "gzip";
+
+    private final DeadlineAwareRequestFactory requestFactory;
+    private final HttpCompressionInterceptor compression;
+
+    public StreamingJsonClient(DeadlineAwareRequestFactory requestFactory,
+                               HttpCompressionInterceptor compression) {
+        this.requestFactory = requestFactory;
+        this.compression = compression;
+    }
+
+    /**
+     * @param url URL destino
+     * @param headers Headers de la petición (Content-Type, API Key)
+     * @param body Escritor del body
+     * @param contentLength Longitud del body sin comprimir
+     * @return Respuesta con el body completo
+     * @throws HttpClientErrorException Si el servicio responde 4xx
+     * @throws HttpServerErrorException Si el servicio responde 5xx
+     * @throws ResourceAccessException Si falla la conexión
+     */
+    public ResponseEntity<byte[]> post(String url, HttpHeaders headers,
+                                       StreamingHttpOutputMessage.Body body, long contentLength) {
+        HttpPayloadEvent event = new HttpPayloadEvent();
+        event.begin();
+        event.requestBytes = contentLength;
+        try {
+            ClientHttpRequest request = requestFactory.createRequest(URI.create(url), HttpMethod.POST);
+            request.getHeaders().putAll(headers);
+            StreamingHttpOutputMessage streaming = (StreamingHttpOutputMessage) request;
+
+            if (compression.shouldCompress(url, contentLength)) {
+                // Longitud comprimida desconocida de antemano: se envía chunked
+                request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                streaming.setBody(out -> {
+                    CountingOutputStream counting = new CountingOutputStream(out);
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(counting, 8192) {
+                        {
+                            def.setLevel(compression.getCompressionLevel());
+                        }
+                    }) {
+                        body.writeTo(gzip);
+                    }
+                    event.sentBytes = counting.count;
+                });
+            } else {
+                request.getHeaders().setContentLength(contentLength);
+                streaming.setBody(body);
+                event.sentBytes = contentLength;
+            }
+
+            try (ClientHttpResponse response = request.execute()) {
+                HttpStatusCode status = response.getStatusCode();
+                event.status = status.value();
+                byte[] responseBody = StreamUtils.copyToByteArray(response.getBody());
+                if (status.is4xxClientError()) {
+                    throw HttpClientErrorException.create(status, response.getStatusText(),
+                        response.getHeaders(), responseBody, null);
+                }
+                if (status.is5xxServerError()) {
+                    throw HttpServerErrorException.create(status, response.getStatusText(),
+                        response.getHeaders(), responseBody, null);
+                }
+                return new ResponseEntity<>(responseBody, response.getHeaders(), status);
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("Error de E/S en POST " + url + ": " + e.getMessage(), e);
+        } finally {
+            if (event.shouldCommit()) {
+                event.path = URI.create(url).getPath();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Cuenta los bytes escritos y no cierra la conexión subyacente
+     * (la cierra la petición al terminar de escribir).
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.Components;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,8 +15,12 @@ import org.springframework.context.annotation.Configuration;
  * 
  * Swagger UI estará disponible en: http://localhost:8080/swagger-ui.html
  * OpenAPI JSON en: http://localhost:8080/v3/api-docs
+ * 
+ * Con springdoc.api-docs.enabled=false (perfil prod) no se registra, para no
+ * cargar la documentación en el arranque de producción.
  */
 @Configuration
+@ConditionalOnProperty(name = "springdoc.api-docs.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfig {
 
     /**
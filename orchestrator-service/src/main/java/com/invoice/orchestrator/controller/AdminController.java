@@ -0,0 +1,121 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.security.ApiClientRegistry;
+import com.invoice.orchestrator.security.ApiKeyFilter;
+import com.invoice.orchestrator.service.DeadlineMetrics;
+import com.invoice.orchestrator.service.PdfGenerationScheduler;
+import com.invoice.orchestrator.service.ReadinessService;
+import com.invoice.orchestrator.service.SaleEventBus;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controlador de administración y métricas operativas del orquestador.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Tag(name = "Admin", description = "Endpoints de administración y métricas")
+public class AdminController {
+
+    private final PdfGenerationScheduler pdfScheduler;
+    private final ApiClientRegistry clientRegistry;
+    private final ApiKeyFilter apiKeyFilter;
+    private final DeadlineMetrics deadlineMetrics;
+    private final SaleEventBus eventBus;
+    private final ReadinessService readinessService;
+
+    public AdminController(PdfGenerationScheduler pdfScheduler,
+                           ApiClientRegistry clientRegistry,
+                           ApiKeyFilter apiKeyFilter,
+                           DeadlineMetrics deadlineMetrics,
+                           SaleEventBus eventBus,
+                           ReadinessService readinessService) {
+        this.pdfScheduler = pdfScheduler;
+        this.clientRegistry = clientRegistry;
+        this.apiKeyFilter = apiKeyFilter;
+        this.deadlineMetrics = deadlineMetrics;
+        this.eventBus = eventBus;
+        this.readinessService = readinessService;
+    }
+
+    /**
+     * Readiness con el detalle que /health/ready no expone.
+     * 
+     * @return Igual que /health/ready más el error de cada dependencia y los umbrales
+     */
+    @GetMapping("/readiness")
+    @Operation(
+        summary = "Detalle de readiness",
+        description = "Estado de dependencias con el mensaje de error y umbrales de carga configurados"
+    )
+    public ResponseEntity<Map<String, Object>> readinessDetails() {
+        return ResponseEntity.ok(readinessService.evaluate(true));
+    }
+
+    /**
+     * Métricas de la cola justa de generación de PDF.
+     * 
+     * @return Llamadas en curso y, por cliente, profundidad de cola y tiempos de espera
+     */
+    @GetMapping("/pdf-queue")
+    @Operation(
+        summary = "Métricas de la cola de PDF",
+        description = "Profundidad de cola y tiempos de espera por cliente en la generación de PDF"
+    )
+    public ResponseEntity<Map<String, Object>> pdfQueueMetrics() {
+        return ResponseEntity.ok(pdfScheduler.snapshot());
+    }
+
+    /**
+     * Límite de tasa y contadores por API Key.
+     * 
+     * @return Peticiones admitidas y limitadas por cliente, y rechazos de autenticación
+     */
+    @GetMapping("/clients")
+    @Operation(
+        summary = "Métricas por API Key",
+        description = "Límite de tasa, tokens disponibles y peticiones admitidas/limitadas por cliente"
+    )
+    public ResponseEntity<Map<String, Object>> clientMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("clients", clientRegistry.snapshot());
+        metrics.put("missingKey", apiKeyFilter.getMissingKeyCount());
+        metrics.put("invalidKey", apiKeyFilter.getInvalidKeyCount());
+        metrics.put("adminRequired", apiKeyFilter.getAdminRequiredCount());
+        return ResponseEntity.ok(metrics);
+    }
+
+    /**
+     * Trabajo abandonado por deadline agotado.
+     * 
+     * @return Cantidad de peticiones abandonadas por etapa
+     */
+    @GetMapping("/deadlines")
+    @Operation(
+        summary = "Trabajo abandonado por deadline",
+        description = "Etapas no iniciadas o cortadas porque el presupuesto de tiempo de la petición se agotó"
+    )
+    public ResponseEntity<Map<String, Long>> deadlineMetrics() {
+        return ResponseEntity.ok(deadlineMetrics.snapshot());
+    }
+
+    /**
+     * Estado del feed SSE de ventas.
+     * 
+     * @return Suscriptores, eventos publicados, resyncs y suscriptores descartados
+     */
+    @GetMapping("/sale-stream")
+    @Operation(
+        summary = "Métricas del feed de ventas",
+        description = "Suscriptores conectados, eventos publicados y suscriptores lentos resincronizados o descartados"
+    )
+    public ResponseEntity<Map<String, Object>> saleStreamMetrics() {
+        return ResponseEntity.ok(eventBus.snapshot());
+    }
+}
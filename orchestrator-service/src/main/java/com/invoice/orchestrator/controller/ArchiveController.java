@@ -0,0 +1,48 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.service.SaleArchivalService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+/**
+ * Estado y ejecución manual del archivado de ventas antiguas.
+ */
+@RestController
+@RequestMapping("/api/admin/archive")
+@Tag(name = "Admin", description = "Endpoints de administración y métricas")
+public class ArchiveController {
+
+    private final SaleArchivalService archivalService;
+
+    public ArchiveController(SaleArchivalService archivalService) {
+        this.archivalService = archivalService;
+    }
+
+    /**
+     * @return Configuración, última corrida, segmentos, ventas y tasa de compresión
+     */
+    @GetMapping
+    @Operation(summary = "Estado del archivo de ventas", description = "Segmentos, bloques, ventas archivadas, tamaño y última corrida")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(archivalService.status());
+    }
+
+    /**
+     * Archiva ahora las ventas archivables, sin esperar al próximo ciclo.
+     *
+     * @return Estado tras la corrida, o 500 si falló
+     */
+    @PostMapping("/run")
+    @Operation(summary = "Ejecutar archivado", description = "Mueve al archivo las ventas antiguas con la saga terminada")
+    public ResponseEntity<Map<String, Object>> run() {
+        try {
+            return ResponseEntity.ok(archivalService.runOnce());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
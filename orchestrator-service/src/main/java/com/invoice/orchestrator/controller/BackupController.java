@@ -0,0 +1,76 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.service.DatabaseBackupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Backups en línea, verificación y restauración de la base de ventas.
+ */
+@RestController
+@RequestMapping("/api/admin/backups")
+@Tag(name = "Admin", description = "Endpoints de administración y métricas")
+public class BackupController {
+
+    private final DatabaseBackupService backupService;
+
+    public BackupController(DatabaseBackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    /**
+     * @return Backups disponibles, último backup y métricas de escritores durante el backup
+     */
+    @GetMapping
+    @Operation(summary = "Estado de los backups", description = "Backups disponibles, duración y pasos del último, y guardados afectados")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(backupService.status());
+    }
+
+    /**
+     * @return Resultado del backup, o 409 si ya hay uno en curso
+     */
+    @PostMapping
+    @Operation(summary = "Tomar backup", description = "Backup en línea por pasos, verificado y comprimido")
+    public ResponseEntity<Map<String, Object>> backup() {
+        return execute(backupService::backup);
+    }
+
+    /**
+     * @param name Nombre del backup
+     * @return Resultado de la verificación, 404 si no existe
+     */
+    @PostMapping("/{name}/verify")
+    @Operation(summary = "Verificar backup", description = "Descomprime el backup y ejecuta integrity_check")
+    public ResponseEntity<Map<String, Object>> verify(@PathVariable String name) {
+        return execute(() -> backupService.verifyBackup(name));
+    }
+
+    /**
+     * @param name Nombre del backup
+     * @return Resultado de la restauración, 404 si no existe, 409 si no se puede restaurar
+     */
+    @PostMapping("/{name}/restore")
+    @Operation(summary = "Restaurar backup", description = "Verifica el backup y lo copia sobre la base en uso")
+    public ResponseEntity<Map<String, Object>> restore(@PathVariable String name) {
+        return execute(() -> backupService.restore(name));
+    }
+
+    private static ResponseEntity<Map<String, Object>> execute(Supplier<Map<String, Object>> action) {
+        try {
+            return ResponseEntity.ok(action.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+}
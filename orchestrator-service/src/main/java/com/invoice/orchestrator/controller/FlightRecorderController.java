@@ -0,0 +1,66 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.monitoring.FlightRecorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+/**
+ * Control de la grabación continua de JDK Flight Recorder.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr")
+@Tag(name = "Admin", description = "Endpoints de administración y métricas")
+public class FlightRecorderController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    public FlightRecorderController(FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    /**
+     * @return Estado de la grabación continua
+     */
+    @GetMapping
+    @Operation(summary = "Estado de la grabación JFR", description = "Si está activa, límites, tamaño en buffer y último dump")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    /**
+     * @return Estado tras iniciar la grabación
+     */
+    @PostMapping("/start")
+    @Operation(summary = "Iniciar grabación JFR", description = "Inicia la grabación continua acotada por antigüedad y tamaño")
+    public ResponseEntity<Map<String, Object>> start() {
+        return ResponseEntity.ok(flightRecorderService.start());
+    }
+
+    /**
+     * @return Estado tras detener la grabación
+     */
+    @PostMapping("/stop")
+    @Operation(summary = "Detener grabación JFR", description = "Detiene la grabación y descarta su buffer")
+    public ResponseEntity<Map<String, Object>> stop() {
+        return ResponseEntity.ok(flightRecorderService.stop());
+    }
+
+    /**
+     * Vuelca el buffer actual a un archivo .jfr sin detener la grabación.
+     *
+     * @return Ruta del dump, o 409 si no hay grabación en curso
+     */
+    @PostMapping("/dump")
+    @Operation(summary = "Volcar grabación JFR", description = "Escribe el buffer actual a un archivo .jfr en jfr.dump-dir")
+    public ResponseEntity<Map<String, Object>> dump() {
+        try {
+            return ResponseEntity.ok(flightRecorderService.dump());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.invoice.orchestrator.controller;
 
+import com.invoice.orchestrator.service.ReadinessService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,6 +23,12 @@ import java.util.Map;
 @Tag(name = "Health", description = "Health check endpoints")
 public class HealthController {
 
+    private final ReadinessService readinessService;
+
+    public HealthController(ReadinessService readinessService) {
+        this.readinessService = readinessService;
+    }
+
     /**
      * Endpoint de health check.
      * Retorna el estado del servicio.
@@ -40,4 +48,27 @@ public class HealthController {
         
         return ResponseEntity.ok(health);
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint de readiness para el balanceador de carga.
+     * A diferencia de /health (liveness), indica si la réplica debe recibir tráfico:
+     * considera el estado cacheado de las dependencias y la carga actual.
+     * Es público, así que solo expone códigos de motivo; el detalle de los
+     * errores está en /api/admin/readiness.
+     * 
+     * @return 200 si está lista, 503 si no (con los códigos de motivo)
+     */
+    @GetMapping("/health/ready")
+    @Operation(
+        summary = "Readiness check",
+        description = "Indica si la réplica puede recibir tráfico según sus dependencias y su carga"
+    )
+    public ResponseEntity<Map<String, Object>> readinessCheck() {
+        Map<String, Object> readiness = readinessService.evaluate(false);
+        readiness.put("service", "orchestrator-service");
+        readiness.put("timestamp", LocalDateTime.now());
+        
+        boolean ready = Boolean.TRUE.equals(readiness.get("ready"));
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(readiness);
+    }
+}
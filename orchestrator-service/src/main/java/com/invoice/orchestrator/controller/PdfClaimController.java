@@ -0,0 +1,72 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.service.PdfClaimCheckStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import java.io.IOException;
+
+/**
+ * Controlador interno para la descarga de PDFs por referencia (Claim-Check).
+ *
+ * El servicio de email recibe solo una referencia firmada y descarga aquí el
+ * binario. La autenticación la da la propia firma de la referencia, por lo que
+ * esta ruta no requiere X-API-Key.
+ */
+@RestController
+@Tag(name = "Internal", description = "Endpoints para comunicación entre microservicios")
+public class PdfClaimController {
+
+    public static final String CLAIM_PATH = "/internal/pdf-claims/";
+
+    private final PdfClaimCheckStore claimCheckStore;
+
+    public PdfClaimController(PdfClaimCheckStore claimCheckStore) {
+        this.claimCheckStore = claimCheckStore;
+    }
+
+    /**
+     * Descarga el PDF asociado a una referencia firmada.
+     * Los bytes se escriben directamente en la respuesta, sin base64 ni copias intermedias.
+     *
+     * La descarga es de un solo uso: si el PDF se escribió completo se libera del
+     * almacén. Si la escritura falla, queda disponible hasta que expire.
+     *
+     * @param reference Referencia firmada generada por el orquestador
+     * @param response Respuesta HTTP (PDF binario, o 404 si la referencia es inválida o expiró)
+     * @throws IOException Si falla la escritura de la respuesta
+     */
+    @GetMapping(value = CLAIM_PATH + "{reference}", produces = MediaType.APPLICATION_PDF_VALUE)
+    @Operation(
+        summary = "Descargar PDF por referencia",
+        description = "Retorna el PDF asociado a una referencia claim-check firmada y vigente"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "PDF encontrado",
+        content = @Content(mediaType = "application/pdf")
+    )
+    @ApiResponse(responseCode = "404", description = "Referencia inválida o expirada")
+    public void downloadPdf(@PathVariable String reference, HttpServletResponse response) throws IOException {
+        byte[] pdfBytes = claimCheckStore.resolve(reference);
+        if (pdfBytes == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setContentLength(pdfBytes.length);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.getOutputStream().write(pdfBytes);
+        response.flushBuffer();
+
+        claimCheckStore.release(reference);
+    }
+}
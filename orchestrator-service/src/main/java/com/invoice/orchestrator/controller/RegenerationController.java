@@ -0,0 +1,112 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.service.PdfRegenerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.Map;
+
+/**
+ * Administración de trabajos de regeneración masiva de PDFs.
+ */
+@RestController
+@RequestMapping("/api/admin/regeneration")
+@Tag(name = "Admin", description = "Endpoints de administración y métricas")
+public class RegenerationController {
+
+    private final PdfRegenerationService regenerationService;
+
+    public RegenerationController(PdfRegenerationService regenerationService) {
+        this.regenerationService = regenerationService;
+    }
+
+    /**
+     * Inicia la regeneración de los PDFs de las ventas facturadas en un rango de IDs.
+     * 
+     * @param fromId Primer ID (inclusive, por defecto 1)
+     * @param toId Último ID (inclusive, por defecto el mayor ID actual)
+     * @param batchSize Ventas por lote y por checkpoint
+     * @param parallelism PDFs generados en paralelo
+     * @return 202 con el trabajo creado, o 409 si ya hay uno en ejecución
+     */
+    @PostMapping
+    @Operation(
+        summary = "Iniciar regeneración de PDFs",
+        description = "Regenera los PDFs de ventas existentes por rango de IDs, con checkpoint por lote"
+    )
+    public ResponseEntity<Map<String, Object>> start(@RequestParam(required = false) Long fromId,
+                                                     @RequestParam(required = false) Long toId,
+                                                     @RequestParam(defaultValue = "200") int batchSize,
+                                                     @RequestParam(defaultValue = "2") int parallelism) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(regenerationService.start(fromId, toId, batchSize, parallelism));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progreso del último trabajo de regeneración.
+     * 
+     * @return Progreso y throughput, o 404 si no hubo trabajos
+     */
+    @GetMapping
+    @Operation(summary = "Último trabajo de regeneración", description = "Progreso, throughput y ETA del último trabajo")
+    public ResponseEntity<Map<String, Object>> latest() {
+        Map<String, Object> job = regenerationService.latest();
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Progreso de un trabajo de regeneración.
+     * 
+     * @param id ID del trabajo
+     * @return Progreso y throughput, o 404 si no existe
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Estado de un trabajo de regeneración", description = "Progreso, throughput y ETA del trabajo")
+    public ResponseEntity<Map<String, Object>> status(@PathVariable Long id) {
+        Map<String, Object> job = regenerationService.status(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Reintenta solo las ventas con error de un trabajo terminado (hasta los
+     * primeros IDs guardados) en un trabajo nuevo.
+     * 
+     * @param id ID del trabajo con errores
+     * @return 202 con el trabajo creado, 404 si no existe, 400 si no tiene ventas
+     *         con error guardadas, o 409 si ya hay un trabajo en ejecución
+     */
+    @PostMapping("/{id}/retry-failed")
+    @Operation(summary = "Reintentar ventas con error", description = "Regenera solo los PDFs que fallaron en un trabajo")
+    public ResponseEntity<Map<String, Object>> retryFailed(@PathVariable Long id) {
+        try {
+            Map<String, Object> job = regenerationService.retryFailed(id);
+            return job != null ? ResponseEntity.status(HttpStatus.ACCEPTED).body(job) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Cancela un trabajo en ejecución; el lote en curso termina y queda su checkpoint.
+     * 
+     * @param id ID del trabajo
+     * @return 202 si se solicitó la cancelación, 409 si el trabajo no está en ejecución
+     */
+    @PostMapping("/{id}/cancel")
+    @Operation(summary = "Cancelar regeneración", description = "Detiene el trabajo al terminar el lote en curso")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable Long id) {
+        if (!regenerationService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "El trabajo " + id + " no está en ejecución"));
+        }
+        return ResponseEntity.accepted().body(regenerationService.status(id));
+    }
+}
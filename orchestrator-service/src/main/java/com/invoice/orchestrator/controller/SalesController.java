@@ -1,6 +1,18 @@
 package com.invoice.orchestrator.controller;
 
+import com.invoice.orchestrator.exception.InvalidSaleException;
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.SaleVersion;
 import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.security.ApiClient;
+import com.invoice.orchestrator.security.ApiKeyFilter;
+import com.invoice.orchestrator.service.Deadline;
+import com.invoice.orchestrator.service.SaleEventBus;
+import com.invoice.orchestrator.service.SaleSearchService;
+import com.invoice.orchestrator.service.SaleSpool;
+import com.invoice.orchestrator.service.SaleStreamParser;
+import com.invoice.orchestrator.service.SaleTimelineStore;
+import com.invoice.orchestrator.service.SaleTrace;
 import com.invoice.orchestrator.service.SalesService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,13 +20,20 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.invoice.orchestrator.model.entity.Sale;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,10 +46,28 @@ import java.util.Map;
 public class SalesController {
 
     private final SalesService salesService;
+    private final SaleEventBus eventBus;
+    private final SaleStreamParser saleStreamParser;
+    private final SaleSearchService saleSearchService;
+    private final SaleTimelineStore timelineStore;
     private final ObjectMapper objectMapper;
 
-    public SalesController(SalesService salesService) {
+    @Value("${sales.deadline.default-ms:15000}")
+    private long defaultDeadlineMs;
+
+    @Value("${sales.deadline.max-ms:60000}")
+    private long maxDeadlineMs;
+
+    @Value("${sales.cache.immutable-max-age-seconds:86400}")
+    private long immutableMaxAgeSeconds;
+
+    public SalesController(SalesService salesService, SaleEventBus eventBus, SaleStreamParser saleStreamParser,
+                           SaleSearchService saleSearchService, SaleTimelineStore timelineStore) {
         this.salesService = salesService;
+        this.eventBus = eventBus;
+        this.saleStreamParser = saleStreamParser;
+        this.saleSearchService = saleSearchService;
+        this.timelineStore = timelineStore;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -44,7 +81,18 @@ public class SalesController {
      * 4. Envía email (asíncrono)
      * 5. Retorna el PDF generado
      * 
+     * El header X-Request-Timeout-Ms fija el presupuesto de tiempo de la petición
+     * (por defecto sales.deadline.default-ms, como máximo sales.deadline.max-ms).
+     * Si vence, el trabajo pendiente se abandona y se responde 504; un valor
+     * de 0 o negativo se rechaza con 400.
+     * 
+     * El header X-Trace-Id (opcional) se reutiliza como ID de la traza de la venta;
+     * se reenvía a los servicios de PDF y email y se devuelve en la respuesta.
+     * 
      * @param saleRequest Datos de la venta (validados)
+     * @param client Cliente autenticado por {@link ApiKeyFilter}
+     * @param timeoutMs Presupuesto de tiempo en milisegundos (opcional)
+     * @param traceId ID de traza del sistema que origina la venta (opcional)
      * @return ResponseEntity con el PDF como bytes
      */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, 
@@ -60,29 +108,199 @@ public class SalesController {
     )
     @ApiResponse(responseCode = "400", description = "Datos inválidos")
     @ApiResponse(responseCode = "500", description = "Error interno del servidor")
-    public ResponseEntity<byte[]> createSale(@Valid @RequestBody SaleRequest saleRequest) {
+    @ApiResponse(responseCode = "504", description = "Tiempo límite de la petición agotado")
+    public ResponseEntity<byte[]> createSale(@Valid @RequestBody SaleRequest saleRequest,
+                                             @RequestAttribute(ApiKeyFilter.CLIENT_ATTRIBUTE) ApiClient client,
+                                             @RequestHeader(value = Deadline.HEADER, required = false) Long timeoutMs,
+                                             @RequestHeader(value = SaleTrace.HEADER, required = false) String traceId) {
+        Deadline deadline = deadlineFor(timeoutMs);
         
         System.out.println("📥 Recibida petición de venta para: " + 
-                          saleRequest.getCustomer().getEmail());
+                          saleRequest.getCustomer().getEmail() + " (cliente: " + client.getName() + ")");
         
         // Procesar la venta (orquestación)
-        byte[] pdfBytes = salesService.processSale(saleRequest);
+        SaleTrace trace = SaleTrace.start(traceId);
+        byte[] pdfBytes = salesService.processSale(saleRequest, client.getName(), deadline, trace);
         
+        return pdfResponse(pdfBytes, trace);
+    }
+
+    /**
+     * Crea una venta leyendo el body en streaming, para ventas con miles de productos.
+     * 
+     * Mismo contrato, validaciones y respuesta que POST /api/sales, pero el body no
+     * se enlaza a un SaleRequest: cada producto se valida y totaliza al leerlo y se
+     * escribe a un spool en disco, y ese JSON se reutiliza para guardar la venta y
+     * para los bodies hacia los servicios de PDF y email. El límite de productos
+     * lo fija sales.ingest.max-line-items.
+     * 
+     * @param body Body JSON de la petición
+     * @param client Cliente autenticado por {@link ApiKeyFilter}
+     * @param timeoutMs Presupuesto de tiempo en milisegundos (opcional)
+     * @param traceId ID de traza del sistema que origina la venta (opcional)
+     * @return ResponseEntity con el PDF como bytes
+     */
+    @PostMapping(value = "/ingest",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_PDF_VALUE)
+    @Operation(
+        summary = "Crear venta grande (streaming)",
+        description = "Igual que POST /api/sales, pero lee y valida los productos en streaming con memoria acotada"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "PDF generado exitosamente",
+        content = @Content(mediaType = "application/pdf")
+    )
+    @ApiResponse(responseCode = "400", description = "Datos inválidos")
+    @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    @ApiResponse(responseCode = "504", description = "Tiempo límite de la petición agotado")
+    public ResponseEntity<byte[]> ingestSale(InputStream body,
+                                             @RequestAttribute(ApiKeyFilter.CLIENT_ATTRIBUTE) ApiClient client,
+                                             @RequestHeader(value = Deadline.HEADER, required = false) Long timeoutMs,
+                                             @RequestHeader(value = SaleTrace.HEADER, required = false) String traceId) {
+        Deadline deadline = deadlineFor(timeoutMs);
+        SaleTrace trace = SaleTrace.start(traceId);
+        try (SaleSpool spool = saleStreamParser.parse(body)) {
+            System.out.println("📥 Recibida venta en streaming para: " + spool.getCustomer().getEmail()
+                + " (" + spool.getLineItems() + " productos, cliente: " + client.getName() + ")");
+            
+            byte[] pdfBytes = salesService.processSale(spool, client.getName(), deadline, trace);
+            return pdfResponse(pdfBytes, trace);
+        }
+    }
+
+    /**
+     * Un presupuesto de 0 o negativo vencería antes de empezar y dejaría la venta
+     * cancelada sin haber intentado nada: se rechaza como error del cliente.
+     */
+    private Deadline deadlineFor(Long timeoutMs) {
+        if (timeoutMs != null && timeoutMs <= 0) {
+            throw new InvalidSaleException(Map.of(Deadline.HEADER, "Debe ser mayor a 0"));
+        }
+        long budgetMs = timeoutMs != null ? Math.min(timeoutMs, maxDeadlineMs) : defaultDeadlineMs;
+        return Deadline.afterMillis(budgetMs);
+    }
+
+    private ResponseEntity<byte[]> pdfResponse(byte[] pdfBytes, SaleTrace trace) {
         // Configurar headers de respuesta
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"factura.pdf\"");
         headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
         headers.setContentLength(pdfBytes.length);
+        headers.set(SaleTrace.HEADER, trace.getTraceId());
         
         return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
     }
 
+    /**
+     * Feed de eventos de ventas (Server-Sent Events) para dashboards en vivo.
+     * 
+     * Eventos: sale-created, sale-status y resync (el cliente se atrasó más que
+     * el buffer y debe recargar el estado). Al reconectar, el header Last-Event-ID
+     * continúa desde el evento siguiente al último recibido; un id de un arranque
+     * anterior del servicio recibe resync.
+     * 
+     * Con el máximo de suscriptores alcanzado se responde 503 con Retry-After y
+     * sin body: el cliente pidió text/event-stream y no aceptaría un error JSON.
+     * 
+     * @param lastEventId Último evento recibido (opcional)
+     * @return Emitter SSE, o 503 si no se aceptan más suscriptores
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Feed de eventos de ventas",
+        description = "Server-Sent Events con ventas creadas y cambios de estado, con reanudación por Last-Event-ID"
+    )
+    @ApiResponse(responseCode = "503", description = "Máximo de suscriptores alcanzado")
+    public ResponseEntity<SseEmitter> streamSales(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        try {
+            return ResponseEntity.ok(eventBus.subscribe(lastEventId));
+        } catch (ServiceOverloadedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+        }
+    }
+
+    /**
+     * Búsqueda de ventas por nombre o identificación del cliente, email o nombre
+     * de producto. Cada palabra se busca como prefijo; incluye ventas archivadas.
+     * 
+     * @param q Texto a buscar
+     * @param page Página (desde 0)
+     * @param size Resultados por página
+     * @return Resultados ordenados por relevancia, o 400 si la consulta no es válida
+     */
+    @GetMapping("/search")
+    @Operation(
+        summary = "Buscar ventas",
+        description = "Búsqueda de texto completo por cliente, email o producto, con prefijos, ranking y paginación"
+    )
+    public ResponseEntity<Map<String, Object>> searchSales(@RequestParam String q,
+                                                           @RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(saleSearchService.search(q, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Ventas más lentas de punta a punta (incluido el envío de email) entre
+     * las trazas en memoria.
+     * 
+     * @param limit Cantidad de ventas
+     * @param minutes Ventana hacia atrás en minutos
+     * @return Líneas de tiempo de mayor a menor duración
+     */
+    @GetMapping("/slowest")
+    @Operation(
+        summary = "Ventas más lentas",
+        description = "Líneas de tiempo de las ventas más lentas de la ventana, con el tramo de cada etapa y servicio"
+    )
+    public ResponseEntity<List<Map<String, Object>>> slowestSales(@RequestParam(defaultValue = "10") int limit,
+                                                                  @RequestParam(defaultValue = "60") long minutes) {
+        return ResponseEntity.ok(timelineStore.slowest(limit, Duration.ofMinutes(minutes)));
+    }
+
+    /**
+     * Línea de tiempo de una venta: guardado, espera y generación del PDF,
+     * facturación, espera y envío del email, más los tiempos que informan
+     * los servicios de PDF y email en su header Server-Timing.
+     * 
+     * @param id ID de la venta
+     * @return Línea de tiempo, o 404 si la venta no tiene traza en memoria
+     */
+    @GetMapping("/{id}/timeline")
+    @Operation(
+        summary = "Línea de tiempo de una venta",
+        description = "Tramos de cada etapa de la venta entre servicios (solo ventas recientes, en memoria)"
+    )
+    @ApiResponse(responseCode = "404", description = "La venta no tiene traza en memoria")
+    public ResponseEntity<Map<String, Object>> getSaleTimeline(@PathVariable Long id) {
+        Map<String, Object> timeline = timelineStore.timeline(id);
+        if (timeline == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(timeline);
+    }
+
     /**
      * Endpoint para consultar una venta por su ID.
      * 
+     * Responde con ETag y Last-Modified derivados del estado y updated_at de la
+     * venta. Con If-None-Match / If-Modified-Since vigentes se responde 304 a
+     * partir de una consulta de proyección, sin cargar ni serializar la venta.
+     * Las ventas que ya no cambian (saga terminada o archivadas) se marcan
+     * como inmutables en Cache-Control; el resto debe revalidarse. Las
+     * archivadas se revalidan solo por ETag: el 304 no descomprime su bloque.
+     * 
      * @param id ID de la venta a consultar
-     * @return ResponseEntity con los datos de la venta
+     * @param request Petición (headers condicionales)
+     * @return ResponseEntity con los datos de la venta, o 304 si el cliente ya la tiene
      */
     @GetMapping("/{id}")
     @Operation(
@@ -94,13 +312,44 @@ public class SalesController {
         description = "Venta encontrada",
         content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
     )
+    @ApiResponse(responseCode = "304", description = "La venta no cambió desde la versión del cliente")
     @ApiResponse(responseCode = "404", description = "Venta no encontrada")
-    public ResponseEntity<Sale> getSaleById(@PathVariable Long id) {
+    public ResponseEntity<Sale> getSaleById(@PathVariable Long id, WebRequest request) {
+        SaleVersion version = salesService.findSaleVersion(id).orElse(null);
+        if (version == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            // checkNotModified ya agregó ETag y Last-Modified a la respuesta 304
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(cacheControlFor(version))
+                .build();
+        }
+
+        Sale sale;
         try {
-            Sale sale = salesService.findSaleById(id);
-            return ResponseEntity.ok(sale);
+            sale = salesService.findSaleById(id);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
+        // Los headers se calculan de la venta leída por si cambió tras la consulta de versión
+        SaleVersion loaded = version.isArchived()
+            ? version
+            : new SaleVersion(sale.getId(), sale.getStatus(), sale.getUpdatedAt());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(loaded.getETag())
+            .cacheControl(cacheControlFor(loaded));
+        if (loaded.getLastModifiedMillis() >= 0) {
+            response.lastModified(loaded.getLastModifiedMillis());
+        }
+        return response.body(sale);
+    }
+
+    private CacheControl cacheControlFor(SaleVersion version) {
+        // private: las respuestas dependen de la API Key y no deben quedar en caches compartidas
+        if (version.isImmutable()) {
+            return CacheControl.maxAge(Duration.ofSeconds(immutableMaxAgeSeconds)).cachePrivate().immutable();
+        }
+        return CacheControl.noCache().cachePrivate();
     }
 }
\ No newline at end of file
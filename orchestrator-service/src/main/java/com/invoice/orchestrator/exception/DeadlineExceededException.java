@@ -0,0 +1,19 @@
+package com.invoice.orchestrator.exception;
+
+/**
+ * Excepción para peticiones cuyo presupuesto de tiempo (deadline) se agotó
+ * antes de completar una etapa. Se responde con HTTP 504.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage) {
+        super("Tiempo límite de la petición agotado antes de la etapa: " + stage);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
@@ -1,8 +1,10 @@
 package com.invoice.orchestrator.exception;
 
 import com.invoice.orchestrator.model.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -42,6 +44,85 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Maneja errores de validación de la ingesta en streaming.
+     *
+     * @param ex Excepción con los campos inválidos
+     * @return ResponseEntity con el mismo formato que los errores de @Valid
+     */
+    @ExceptionHandler(InvalidSaleException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidSale(InvalidSaleException ex) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", ex.getMessage());
+        response.put("details", ex.getDetails());
+
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja bodies que no se pueden leer (JSON mal formado o montos con
+     * más de 2 decimales, que no se pueden representar sin pérdida).
+     * 
+     * @param ex Excepción de lectura del body
+     * @return ResponseEntity con mensaje de error
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleNotReadable(HttpMessageNotReadableException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "Body inválido: " + ex.getMostSpecificCause().getMessage(),
+            HttpStatus.BAD_REQUEST.value()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja montos que desbordan el rango representable (ej. precio * cantidad).
+     * Otras ArithmeticException (ej. división por cero) son errores del servidor.
+     * 
+     * @param ex Excepción de monto inválido
+     * @return ResponseEntity con mensaje de error
+     */
+    @ExceptionHandler(InvalidAmountException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidAmount(InvalidAmountException ex) {
+        ErrorResponse error = new ErrorResponse(
+            "Monto fuera de rango: " + ex.getMessage(),
+            HttpStatus.BAD_REQUEST.value()
+        );
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maneja rechazos por sobrecarga (colas llenas o espera agotada).
+     * 
+     * @param ex Excepción de sobrecarga
+     * @return ResponseEntity 503 con header Retry-After
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleServiceOverloaded(ServiceOverloadedException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(error);
+    }
+
+    /**
+     * Maneja peticiones que agotaron su tiempo límite (X-Request-Timeout-Ms).
+     * 
+     * @param ex Excepción de deadline agotado
+     * @return ResponseEntity 504
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<ErrorResponse> handleDeadlineExceeded(DeadlineExceededException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.getMessage(),
+            HttpStatus.GATEWAY_TIMEOUT.value()
+        );
+        return new ResponseEntity<>(error, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     /**
      * Maneja excepciones de tiempo de ejecución generales.
      * 
@@ -0,0 +1,18 @@
+package com.invoice.orchestrator.exception;
+
+/**
+ * Excepción para montos que no se pueden representar en punto fijo: desbordan
+ * un long (ej. precio * cantidad) o tienen más de 2 decimales significativos.
+ * Se responde con HTTP 400.
+ *
+ * Extiende {@link ArithmeticException} para conservar el contrato de
+ * {@link com.invoice.orchestrator.model.Money}, pero solo esta excepción se
+ * traduce a error del cliente: cualquier otra ArithmeticException es un error
+ * del servidor.
+ */
+public class InvalidAmountException extends ArithmeticException {
+
+    public InvalidAmountException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.invoice.orchestrator.exception;
+
+import java.util.Map;
+
+/**
+ * Excepción para ventas que no pasan la validación fuera del binding de Spring
+ * (ingesta en streaming, headers de la petición). Se responde con HTTP 400 y el mismo formato que los
+ * errores de @Valid: campo -> mensaje.
+ */
+public class InvalidSaleException extends RuntimeException {
+
+    private final Map<String, String> details;
+
+    public InvalidSaleException(Map<String, String> details) {
+        super("Errores de validación");
+        this.details = details;
+    }
+
+    public Map<String, String> getDetails() {
+        return details;
+    }
+}
@@ -0,0 +1,19 @@
+package com.invoice.orchestrator.exception;
+
+/**
+ * Excepción para peticiones rechazadas por sobrecarga (colas llenas o
+ * tiempo de espera agotado). Se responde con HTTP 503 y Retry-After.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,220 @@
+package com.invoice.orchestrator.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.invoice.orchestrator.exception.InvalidAmountException;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Representación de montos en punto fijo como {@code long} de unidades menores
+ * (centavos, escala 2).
+ *
+ * Los cálculos (totales por línea y suma de la venta) operan sobre primitivos
+ * sin crear objetos y detectan desbordamiento con {@link InvalidAmountException}.
+ * La conversión a/desde decimal solo ocurre en los bordes:
+ * - JSON: {@link Serializer} y {@link Deserializer} (ej. 50000.00 <-> 5000000)
+ * - Base de datos: columnas INTEGER con el valor en unidades menores
+ *
+ * Las conversiones son exactas: un monto con más de 2 decimales significativos
+ * se rechaza en lugar de redondearse.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+    private static final long FACTOR = 100L;
+
+    private Money() {}
+
+    /**
+     * Calcula el total de una línea (precio unitario * cantidad).
+     *
+     * @param unitPriceMinor Precio unitario en unidades menores
+     * @param quantity Cantidad
+     * @return Total de la línea en unidades menores
+     * @throws InvalidAmountException Si el resultado desborda un long
+     */
+    public static long lineTotal(long unitPriceMinor, int quantity) {
+        try {
+            return Math.multiplyExact(unitPriceMinor, (long) quantity);
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("El total de la línea desborda el rango permitido");
+        }
+    }
+
+    /**
+     * Suma dos montos.
+     *
+     * @throws InvalidAmountException Si el resultado desborda un long
+     */
+    public static long add(long amountMinor, long otherMinor) {
+        try {
+            return Math.addExact(amountMinor, otherMinor);
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("El total de la venta desborda el rango permitido");
+        }
+    }
+
+    /**
+     * Convierte un decimal a unidades menores sin pérdida.
+     *
+     * @throws InvalidAmountException Si tiene más de 2 decimales significativos o desborda
+     */
+    public static long fromBigDecimal(BigDecimal amount) {
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("Monto fuera de rango o con más de " + SCALE + " decimales: " + amount);
+        }
+    }
+
+    /**
+     * Convierte unidades menores a decimal con escala 2.
+     */
+    public static BigDecimal toBigDecimal(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, SCALE);
+    }
+
+    /**
+     * Interpreta un monto decimal en texto (ej. "50000", "50000.5", "-3.25")
+     * directamente a unidades menores, sin pasar por BigDecimal.
+     *
+     * @param text Texto del monto
+     * @return Monto en unidades menores
+     * @throws NumberFormatException Si el texto no es un decimal simple
+     * @throws InvalidAmountException Si tiene más de 2 decimales significativos o desborda
+     */
+    public static long parse(CharSequence text) {
+        try {
+            return parseMinor(text);
+        } catch (InvalidAmountException e) {
+            throw e;
+        } catch (ArithmeticException e) {
+            throw new InvalidAmountException("Monto fuera de rango: " + text);
+        }
+    }
+
+    private static long parseMinor(CharSequence text) {
+        int length = text.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            index++;
+        }
+        if (index == length) {
+            throw new NumberFormatException("Monto vacío");
+        }
+
+        // Se acumula en negativo para cubrir Long.MIN_VALUE sin desbordar
+        long units = 0;
+        boolean digits = false;
+        while (index < length && text.charAt(index) != '.') {
+            units = Math.subtractExact(Math.multiplyExact(units, 10L), digit(text, index));
+            digits = true;
+            index++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (index < length) {
+            index++; // punto decimal
+            while (index < length) {
+                int digit = digit(text, index);
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + digit;
+                } else if (digit != 0) {
+                    throw new InvalidAmountException("El monto tiene más de " + SCALE + " decimales: " + text);
+                }
+                fractionDigits++;
+                digits = true;
+                index++;
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Monto inválido: " + text);
+        }
+        for (int i = fractionDigits; i < SCALE; i++) {
+            fraction *= 10;
+        }
+
+        long minor = Math.subtractExact(Math.multiplyExact(units, FACTOR), fraction);
+        return negative ? minor : Math.negateExact(minor);
+    }
+
+    /**
+     * Escribe el monto con 2 decimales (ej. 5000000 -> "50000.00").
+     */
+    public static String format(long amountMinor) {
+        StringBuilder out = new StringBuilder(24);
+        long units = amountMinor / FACTOR;
+        long cents = Math.abs(amountMinor % FACTOR);
+        if (amountMinor < 0 && units == 0) {
+            out.append('-');
+        }
+        out.append(units).append('.');
+        if (cents < 10) {
+            out.append('0');
+        }
+        return out.append(cents).toString();
+    }
+
+    private static int digit(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Monto inválido: " + text);
+        }
+        return c - '0';
+    }
+
+    /**
+     * Serializa un long de unidades menores como número decimal JSON.
+     */
+    public static final class Serializer extends StdSerializer<Long> {
+
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(format(value));
+        }
+    }
+
+    /**
+     * Deserializa un número (o texto) decimal JSON a long de unidades menores.
+     * Rechaza montos con más de 2 decimales significativos.
+     */
+    public static final class Deserializer extends StdDeserializer<Long> {
+
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT
+                    && token != JsonToken.VALUE_STRING) {
+                return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+            }
+            try {
+                String text = p.getText().trim();
+                // Notación exponencial (ej. 1e3): se delega en BigDecimal
+                if (text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                    return fromBigDecimal(new BigDecimal(text));
+                }
+                return parse(text);
+            } catch (NumberFormatException | InvalidAmountException e) {
+                return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(),
+                    "monto inválido o con más de %d decimales", SCALE);
+            }
+        }
+    }
+}
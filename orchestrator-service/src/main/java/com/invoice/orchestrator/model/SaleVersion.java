@@ -0,0 +1,90 @@
+package com.invoice.orchestrator.model;
+
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Versión de una venta para las peticiones condicionales: lo mínimo para
+ * calcular ETag, Last-Modified y Cache-Control sin cargar ni serializar la
+ * venta completa (ni su JSON de productos).
+ *
+ * Toda modificación de una venta renueva su updated_at, así que el par
+ * (estado, updated_at) identifica el contenido exacto de la respuesta. Una
+ * venta archivada ya no cambia: su ETag sale solo del ID, sin leer el archivo.
+ */
+public final class SaleVersion {
+
+    private final Long id;
+    private final SaleStatus status;
+    private final LocalDateTime updatedAt;
+    private final boolean archived;
+
+    public SaleVersion(Long id, SaleStatus status, LocalDateTime updatedAt, boolean archived) {
+        this.id = id;
+        this.status = status;
+        this.updatedAt = updatedAt;
+        this.archived = archived;
+    }
+
+    /**
+     * Constructor usado por la proyección JPQL (ventas de la base de datos).
+     */
+    public SaleVersion(Long id, SaleStatus status, LocalDateTime updatedAt) {
+        this(id, status, updatedAt, false);
+    }
+
+    /**
+     * Versión de una venta archivada, conocida sin descomprimir su bloque.
+     */
+    public static SaleVersion archived(Long id) {
+        return new SaleVersion(id, null, null, true);
+    }
+
+    /**
+     * @return ETag fuerte (entre comillas)
+     */
+    public String getETag() {
+        if (archived) {
+            return "\"" + id + "-archived\"";
+        }
+        return "\"" + id + "-" + status.name() + "-" + getLastModifiedMillis() + "\"";
+    }
+
+    /**
+     * @return updated_at en milisegundos epoch (zona horaria del servidor, como se guarda),
+     *         o -1 si no se conoce (versión archivada sin leer la venta)
+     */
+    public long getLastModifiedMillis() {
+        if (updatedAt == null) {
+            return -1;
+        }
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Una venta no cambia más si está archivada o su saga terminó
+     * (EMAIL_SENT o CANCELLED: la recuperación no las toca).
+     *
+     * @return true si la respuesta puede cachearse como inmutable
+     */
+    public boolean isImmutable() {
+        return archived || status == SaleStatus.EMAIL_SENT || status == SaleStatus.CANCELLED;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public SaleStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public boolean isArchived() {
+        return archived;
+    }
+}
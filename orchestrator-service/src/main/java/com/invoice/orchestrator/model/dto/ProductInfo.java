@@ -1,13 +1,19 @@
 package com.invoice.orchestrator.model.dto;
 
-import jakarta.validation.constraints.DecimalMin;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.invoice.orchestrator.model.Money;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
 
 /**
  * DTO que representa la información de un producto.
+ * 
+ * Los montos se manejan en unidades menores (centavos) como long; en JSON
+ * se exponen como decimales (ej. "price": 50000.00). El total de la línea
+ * lo recalcula el servidor (price * quantity), el valor enviado por el
+ * cliente se ignora.
  */
 public class ProductInfo {
 
@@ -15,20 +21,22 @@ public class ProductInfo {
     private String name;
 
     @NotNull(message = "El precio es obligatorio")
-    @DecimalMin(value = "0.01", message = "El precio debe ser mayor a 0")
-    private BigDecimal price;
+    @Min(value = 1, message = "El precio debe ser mayor a 0")
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private Long price;
 
     @NotNull(message = "La cantidad es obligatoria")
     @Min(value = 1, message = "La cantidad debe ser al menos 1")
     private Integer quantity;
 
-    @NotNull(message = "El total es obligatorio")
-    @DecimalMin(value = "0.01", message = "El total debe ser mayor a 0")
-    private BigDecimal total;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long total;
 
     public ProductInfo() {}
 
-    public ProductInfo(String name, BigDecimal price, Integer quantity, BigDecimal total) {
+    public ProductInfo(String name, long price, Integer quantity, long total) {
         this.name = name;
         this.price = price;
         this.quantity = quantity;
@@ -43,11 +51,14 @@ public class ProductInfo {
         this.name = name;
     }
 
-    public BigDecimal getPrice() {
+    /**
+     * @return Precio unitario en unidades menores (centavos)
+     */
+    public Long getPrice() {
         return price;
     }
 
-    public void setPrice(BigDecimal price) {
+    public void setPrice(Long price) {
         this.price = price;
     }
 
@@ -59,11 +70,14 @@ public class ProductInfo {
         this.quantity = quantity;
     }
 
-    public BigDecimal getTotal() {
+    /**
+     * @return Total de la línea en unidades menores (centavos)
+     */
+    public long getTotal() {
         return total;
     }
 
-    public void setTotal(BigDecimal total) {
+    public void setTotal(long total) {
         this.total = total;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package com.invoice.orchestrator.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.invoice.orchestrator.model.Money;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import java.time.LocalDateTime;
+
+/**
+ * Evento del feed de ventas (GET /api/sales/stream).
+ * 
+ * - sale-created: venta guardada (status PENDING, con total)
+ * - sale-status: cambio de estado de la saga (con el estado anterior)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SaleEvent {
+
+    public static final String SALE_CREATED = "sale-created";
+    public static final String SALE_STATUS = "sale-status";
+
+    private final long id;
+    private final String type;
+    private final Long saleId;
+    private final SaleStatus status;
+    private final SaleStatus previousStatus;
+    @JsonSerialize(using = Money.Serializer.class)
+    private final Long totalAmount;
+    private final LocalDateTime timestamp;
+
+    public SaleEvent(long id, String type, Long saleId, SaleStatus status,
+                     SaleStatus previousStatus, Long totalAmount) {
+        this.id = id;
+        this.type = type;
+        this.saleId = saleId;
+        this.status = status;
+        this.previousStatus = previousStatus;
+        this.totalAmount = totalAmount;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    /** Número de secuencia del evento (usado como id SSE y Last-Event-ID). */
+    public long getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getSaleId() {
+        return saleId;
+    }
+
+    public SaleStatus getStatus() {
+        return status;
+    }
+
+    public SaleStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,232 @@
+package com.invoice.orchestrator.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trabajo de regeneración masiva de PDFs sobre un rango de IDs de ventas.
+ * 
+ * lastCompletedId es el checkpoint: todas las ventas con ID menor o igual ya
+ * fueron procesadas. Se actualiza al terminar cada lote, de modo que tras un
+ * reinicio el trabajo continúa desde el siguiente lote.
+ * 
+ * Las ventas con error no frenan el checkpoint: sus IDs se guardan (hasta
+ * {@value #MAX_FAILED_IDS}) para reintentarlas con un trabajo aparte
+ * (retryOfJobId) que recorre solo esos IDs.
+ */
+@Entity
+@Table(name = "regeneration_jobs")
+public class RegenerationJob {
+
+    /** Máximo de IDs con error guardados por trabajo. */
+    public static final int MAX_FAILED_IDS = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private RegenerationJobStatus status;
+
+    // Rango de IDs: (fromId - 1, toId]
+    @Column(name = "from_id", nullable = false)
+    private long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    @Column(name = "last_completed_id", nullable = false)
+    private long lastCompletedId;
+
+    @Column(name = "batch_size", nullable = false)
+    private int batchSize;
+
+    @Column(name = "parallelism", nullable = false)
+    private int parallelism;
+
+    // Ventas del rango a regenerar (estimado al iniciar)
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    // IDs de las ventas con error, en orden y separados por coma (a lo sumo MAX_FAILED_IDS)
+    @Column(name = "failed_ids", columnDefinition = "TEXT")
+    private String failedIds;
+
+    // Trabajo cuyas ventas con error reintenta este (null = recorre el rango completo)
+    @Column(name = "retry_of_job_id")
+    private Long retryOfJobId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public RegenerationJob() {
+    }
+
+    /**
+     * @param fromId Primer ID del rango (inclusive)
+     * @param toId Último ID del rango (inclusive)
+     * @param batchSize Ventas por lote (y por checkpoint)
+     * @param parallelism PDFs generados en paralelo
+     * @param total Ventas a regenerar en el rango
+     */
+    public RegenerationJob(long fromId, long toId, int batchSize, int parallelism, long total) {
+        this.status = RegenerationJobStatus.RUNNING;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.lastCompletedId = fromId - 1;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.total = total;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public RegenerationJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RegenerationJobStatus status) {
+        this.status = status;
+    }
+
+    public long getFromId() {
+        return fromId;
+    }
+
+    public long getToId() {
+        return toId;
+    }
+
+    public long getLastCompletedId() {
+        return lastCompletedId;
+    }
+
+    public void setLastCompletedId(long lastCompletedId) {
+        this.lastCompletedId = lastCompletedId;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError != null && lastError.length() > 500 ? lastError.substring(0, 500) : lastError;
+    }
+
+    /**
+     * @return IDs de las ventas con error guardados, en orden
+     */
+    public List<Long> getFailedIds() {
+        if (failedIds == null || failedIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : failedIds.split(",")) {
+            ids.add(Long.parseLong(id));
+        }
+        return ids;
+    }
+
+    /**
+     * Agrega IDs con error mientras no se supere MAX_FAILED_IDS; el resto solo
+     * cuenta en failed.
+     */
+    public void addFailedIds(List<Long> ids) {
+        List<Long> current = getFailedIds();
+        int room = MAX_FAILED_IDS - current.size();
+        if (ids.isEmpty() || room <= 0) {
+            return;
+        }
+        StringBuilder joined = new StringBuilder(failedIds != null ? failedIds : "");
+        for (Long id : ids.subList(0, Math.min(room, ids.size()))) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(id);
+        }
+        failedIds = joined.toString();
+    }
+
+    public Long getRetryOfJobId() {
+        return retryOfJobId;
+    }
+
+    public void setRetryOfJobId(Long retryOfJobId) {
+        this.retryOfJobId = retryOfJobId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,19 @@
+package com.invoice.orchestrator.model.entity;
+
+/**
+ * Estados de un trabajo de regeneración masiva de PDFs.
+ * 
+ * RUNNING -> COMPLETED
+ * RUNNING -> CANCELLED (cancelado desde el endpoint de administración)
+ * RUNNING -> FAILED (error no recuperable, ej. base de datos inaccesible)
+ */
+public enum RegenerationJobStatus {
+    /** En ejecución; se reanuda desde el checkpoint tras un reinicio. */
+    RUNNING,
+    /** Todas las ventas del rango fueron procesadas. */
+    COMPLETED,
+    /** Detenido a pedido; no se reanuda. */
+    CANCELLED,
+    /** Detenido por un error no recuperable. */
+    FAILED
+}
@@ -1,7 +1,8 @@
 package com.invoice.orchestrator.model.entity;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.invoice.orchestrator.model.Money;
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -26,8 +27,10 @@ public class Sale {
     @Column(name = "customer_email", nullable = false)
     private String customerEmail;
 
-    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalAmount;
+    // Monto total en unidades menores (centavos); en JSON se expone como decimal
+    @Column(name = "total_amount_minor", nullable = false)
+    @JsonSerialize(using = Money.Serializer.class)
+    private long totalAmount;
 
     @Column(name = "products", nullable = false, columnDefinition = "TEXT")
     private String products; // JSON serializado de los productos
@@ -35,11 +38,25 @@ public class Sale {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Estado de la saga de procesamiento (ver SaleStatus)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private SaleStatus status;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Intentos del barrido de recuperación sobre esta venta
+    @Column(name = "recovery_attempts", nullable = false)
+    private int recoveryAttempts;
+
     /**
      * Constructor vacío requerido por JPA.
      */
     public Sale() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+        this.status = SaleStatus.PENDING;
     }
 
     /**
@@ -48,17 +65,19 @@ public class Sale {
      * @param customerName Nombre del cliente
      * @param customerId Identificación del cliente
      * @param customerEmail Email del cliente
-     * @param totalAmount Monto total de la venta
+     * @param totalAmount Monto total de la venta en unidades menores (centavos)
      * @param products JSON con los productos
      */
     public Sale(String customerName, String customerId, String customerEmail, 
-                BigDecimal totalAmount, String products) {
+                long totalAmount, String products) {
         this.customerName = customerName;
         this.customerId = customerId;
         this.customerEmail = customerEmail;
         this.totalAmount = totalAmount;
         this.products = products;
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+        this.status = SaleStatus.PENDING;
     }
 
     // Getters y Setters
@@ -94,11 +113,11 @@ public class Sale {
         this.customerEmail = customerEmail;
     }
 
-    public BigDecimal getTotalAmount() {
+    public long getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(long totalAmount) {
         this.totalAmount = totalAmount;
     }
 
@@ -117,4 +136,28 @@ public class Sale {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
-}
\ No newline at end of file
+
+    public SaleStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(SaleStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public int getRecoveryAttempts() {
+        return recoveryAttempts;
+    }
+
+    public void setRecoveryAttempts(int recoveryAttempts) {
+        this.recoveryAttempts = recoveryAttempts;
+    }
+}
@@ -0,0 +1,21 @@
+package com.invoice.orchestrator.model.entity;
+
+/**
+ * Estados de una venta en la saga de procesamiento.
+ * 
+ * PENDING -> INVOICED -> EMAIL_SENT
+ *                     -> EMAIL_FAILED (se reintenta desde el barrido de recuperación)
+ * PENDING -> CANCELLED (compensación: falló la generación del PDF)
+ */
+public enum SaleStatus {
+    /** Venta persistida, PDF aún no generado. */
+    PENDING,
+    /** PDF generado; email pendiente o en cola. */
+    INVOICED,
+    /** Email aceptado por el servicio de notificaciones. */
+    EMAIL_SENT,
+    /** El envío del email falló; la venta sigue siendo válida. */
+    EMAIL_FAILED,
+    /** Venta compensada: no se pudo completar la facturación. */
+    CANCELLED
+}
@@ -0,0 +1,33 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de la llamada HTTP al servicio de email.
+ */
+@Name("com.invoice.orchestrator.EmailCall")
+@Label("Email Service Call")
+@Category({"Invoice", "Orchestrator", "HTTP"})
+@Description("Llamada al servicio de envío de email")
+@StackTrace(false)
+public class EmailCallEvent extends jdk.jfr.Event {
+
+    @Label("Sale Id")
+    public long saleId;
+
+    @Label("PDF Size")
+    @DataAmount
+    public long pdfBytes;
+
+    @Label("Claim-Check")
+    @Description("true si el PDF viajó como referencia, false si fue inline en base64")
+    public boolean claimCheck;
+
+    @Label("Outcome")
+    public String outcome;
+}
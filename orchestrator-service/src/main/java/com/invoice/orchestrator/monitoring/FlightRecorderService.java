@@ -0,0 +1,167 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Grabación continua de JDK Flight Recorder acotada por antigüedad y tamaño.
+ *
+ * Usa la configuración "default" del JDK (pensada para producción, con un
+ * overhead de alrededor del 1%) más los eventos propios del orquestador, así que
+ * puede quedar encendida de forma permanente. Los datos viven en un buffer
+ * circular en disco: solo se escriben a un archivo al pedir un dump, por ejemplo
+ * justo después de un pico de latencia.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final String RECORDING_NAME = "invoice-orchestrator-continuous";
+    private static final DateTimeFormatter DUMP_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${jfr.continuous.enabled:true}")
+    private boolean enabledOnStartup;
+
+    @Value("${jfr.settings:default}")
+    private String settings;
+
+    @Value("${jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${jfr.max-size-mb:100}")
+    private long maxSizeMb;
+
+    @Value("${jfr.dump-dir:./data/jfr}")
+    private String dumpDir;
+
+    private Recording recording;
+    private Path lastDump;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (enabledOnStartup) {
+            try {
+                start();
+            } catch (RuntimeException e) {
+                // Sin JFR el servicio funciona igual; solo se pierde la observabilidad
+                System.err.println("⚠️ No se pudo iniciar la grabación JFR: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Inicia la grabación continua (no hace nada si ya está en curso).
+     *
+     * @return Estado de la grabación
+     */
+    public synchronized Map<String, Object> start() {
+        if (isRunning()) {
+            return status();
+        }
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration(settings));
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            newRecording.setMaxSize(maxSizeMb * 1024 * 1024);
+            // Los eventos propios no están en la configuración del JDK: se habilitan sin umbral
+            newRecording.enable(SaleProcessingEvent.class);
+            newRecording.enable(SaleSaveEvent.class);
+            newRecording.enable(PdfCallEvent.class);
+            newRecording.enable(EmailCallEvent.class);
+            newRecording.enable(HttpPayloadEvent.class);
+            newRecording.start();
+            recording = newRecording;
+            System.out.println("🎥 Grabación JFR continua iniciada (máx " + maxAgeMinutes + " min / " + maxSizeMb + " MB)");
+            return status();
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Configuración JFR '" + settings + "' no disponible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Detiene la grabación y descarta su buffer.
+     *
+     * @return Estado de la grabación
+     */
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            System.out.println("⏹️ Grabación JFR detenida");
+        }
+        return status();
+    }
+
+    /**
+     * Escribe el contenido actual del buffer a un archivo .jfr sin detener la grabación.
+     *
+     * @return Estado con la ruta y el tamaño del dump
+     * @throws IllegalStateException Si no hay grabación en curso
+     */
+    public synchronized Map<String, Object> dump() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No hay una grabación JFR en curso");
+        }
+        try {
+            Path dir = Paths.get(dumpDir);
+            Files.createDirectories(dir);
+            Path target = dir.resolve("orchestrator-" + LocalDateTime.now().format(DUMP_NAME) + ".jfr");
+            recording.dump(target);
+            lastDump = target.toAbsolutePath();
+            System.out.println("💾 Dump JFR escrito en " + lastDump);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al escribir el dump JFR: " + e.getMessage(), e);
+        }
+        Map<String, Object> status = status();
+        status.put("dumpSizeBytes", lastDump.toFile().length());
+        return status;
+    }
+
+    /**
+     * @return Estado de la grabación, límites y último dump
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        status.put("settings", settings);
+        status.put("maxAgeMinutes", maxAgeMinutes);
+        status.put("maxSizeMb", maxSizeMb);
+        if (recording != null) {
+            Instant startTime = recording.getStartTime();
+            status.put("state", recording.getState().name());
+            status.put("startedAt", startTime != null ? startTime.toString() : null);
+            status.put("bufferedBytes", recording.getSize());
+        }
+        status.put("lastDump", lastDump != null ? lastDump.toString() : null);
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR con los tamaños de cada intercambio HTTP saliente hacia los
+ * servicios de PDF y email (antes y después de la compresión). Ocurre dentro
+ * de PdfCall/EmailCall en el mismo hilo.
+ */
+@Name("com.invoice.orchestrator.HttpPayload")
+@Label("HTTP Payload")
+@Category({"Invoice", "Orchestrator", "HTTP"})
+@Description("Tamaños del body de una llamada saliente")
+@StackTrace(false)
+public class HttpPayloadEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Request Body")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Request Body On Wire")
+    @DataAmount
+    public long sentBytes;
+
+    @Label("HTTP Status")
+    public int status;
+}
@@ -0,0 +1,32 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de la llamada HTTP al servicio de PDF (sin la espera en la cola justa).
+ */
+@Name("com.invoice.orchestrator.PdfCall")
+@Label("PDF Service Call")
+@Category({"Invoice", "Orchestrator", "HTTP"})
+@Description("Llamada síncrona al servicio de generación de PDF")
+@StackTrace(false)
+public class PdfCallEvent extends jdk.jfr.Event {
+
+    @Label("Sale Id")
+    public long saleId;
+
+    @Label("Line Items")
+    public int lineItems;
+
+    @Label("PDF Size")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
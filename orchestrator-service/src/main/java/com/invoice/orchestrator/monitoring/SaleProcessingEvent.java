@@ -0,0 +1,39 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR que cubre el procesamiento completo de una venta (POST /api/sales),
+ * desde el cálculo de totales hasta encolar el email.
+ */
+@Name("com.invoice.orchestrator.SaleProcessing")
+@Label("Sale Processing")
+@Category({"Invoice", "Orchestrator"})
+@Description("Procesamiento completo de una venta")
+@StackTrace(false)
+public class SaleProcessingEvent extends jdk.jfr.Event {
+
+    @Label("Sale Id")
+    public long saleId;
+
+    @Label("API Client")
+    public String client;
+
+    @Label("Line Items")
+    public int lineItems;
+
+    @Label("Total Amount (minor units)")
+    public long totalAmountMinor;
+
+    @Label("PDF Size")
+    @DataAmount
+    public long pdfBytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,29 @@
+package com.invoice.orchestrator.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR del INSERT de la venta en SQLite (incluye la serialización de productos).
+ */
+@Name("com.invoice.orchestrator.SaleSave")
+@Label("Sale Save")
+@Category({"Invoice", "Orchestrator", "Database"})
+@Description("Persistencia de una venta en SQLite")
+@StackTrace(false)
+public class SaleSaveEvent extends jdk.jfr.Event {
+
+    @Label("Sale Id")
+    public long saleId;
+
+    @Label("Products JSON Size")
+    @DataAmount
+    public long productsBytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,25 @@
+package com.invoice.orchestrator.repository;
+
+import com.invoice.orchestrator.model.entity.RegenerationJob;
+import com.invoice.orchestrator.model.entity.RegenerationJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de trabajos de regeneración masiva de PDFs.
+ */
+@Repository
+public interface RegenerationJobRepository extends JpaRepository<RegenerationJob, Long> {
+
+    /**
+     * Trabajos en un estado dado (ej. RUNNING para reanudar tras un reinicio).
+     */
+    List<RegenerationJob> findByStatusOrderByIdAsc(RegenerationJobStatus status);
+
+    /**
+     * Último trabajo creado.
+     */
+    Optional<RegenerationJob> findTopByOrderByIdDesc();
+}
@@ -1,8 +1,19 @@
 package com.invoice.orchestrator.repository;
 
+import com.invoice.orchestrator.model.SaleVersion;
 import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Sale.
@@ -18,7 +29,83 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     // - findById(Long id): Busca por ID
     // - findAll(): Obtiene todas las ventas
     // - delete(Sale sale): Elimina una venta
-    
-    // Aquí se podrían agregar queries personalizadas si fueran necesarias
-    // Ejemplo: List<Sale> findByCustomerEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Cambia el estado de una venta solo si está en el estado esperado.
+     * Cada transición es una transacción corta e independiente (etapa de la saga).
+     * 
+     * @return 1 si se aplicó la transición, 0 si la venta ya no estaba en {@code from}
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Sale s SET s.status = :to, s.updatedAt = :now WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") SaleStatus from,
+                   @Param("to") SaleStatus to,
+                   @Param("now") LocalDateTime now);
+
+    /**
+     * Reclama una venta para el barrido de recuperación: incrementa sus intentos
+     * y renueva updated_at, siempre que siga en el estado y con el updated_at leídos.
+     * 
+     * @return 1 si se reclamó, 0 si otro proceso la modificó entretanto
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Sale s SET s.recoveryAttempts = s.recoveryAttempts + 1, s.updatedAt = :now "
+         + "WHERE s.id = :id AND s.status = :status AND s.updatedAt = :seenUpdatedAt")
+    int claimForRecovery(@Param("id") Long id,
+                         @Param("status") SaleStatus status,
+                         @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Ventas en alguno de los estados dados, sin cambios desde {@code before}
+     * y con menos de {@code maxAttempts} intentos de recuperación.
+     */
+    List<Sale> findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(
+            Collection<SaleStatus> statuses, LocalDateTime before, int maxAttempts);
+
+    /**
+     * Lote de ventas por rango de IDs (paginación por keyset): las ventas con
+     * ID en (afterId, toId] y en los estados dados, ordenadas por ID.
+     * A diferencia de OFFSET, el costo de cada lote no crece con el avance.
+     */
+    List<Sale> findByIdGreaterThanAndIdLessThanEqualAndStatusInOrderByIdAsc(
+            Long afterId, Long toId, Collection<SaleStatus> statuses, Pageable page);
+
+    /**
+     * Cantidad de ventas en el rango (afterId, toId] y en los estados dados.
+     */
+    long countByIdGreaterThanAndIdLessThanEqualAndStatusIn(Long afterId, Long toId,
+                                                           Collection<SaleStatus> statuses);
+
+    /**
+     * Estado y fecha de modificación de una venta, sin cargar la entidad
+     * (en particular, sin leer el JSON de productos).
+     */
+    @Query("SELECT new com.invoice.orchestrator.model.SaleVersion(s.id, s.status, s.updatedAt) FROM Sale s WHERE s.id = :id")
+    Optional<SaleVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Mayor ID de venta, o null si la tabla está vacía.
+     */
+    @Query("SELECT MAX(s.id) FROM Sale s")
+    Long findMaxId();
+
+    /**
+     * Lote de ventas con ID en (afterId, beforeId), ordenadas por ID.
+     * Lo usa el archivado para recorrer la tabla en orden de antigüedad.
+     */
+    List<Sale> findByIdGreaterThanAndIdLessThanOrderByIdAsc(Long afterId, Long beforeId, Pageable page);
+
+    /**
+     * Borra las ventas con ID en (afterId, toId].
+     * 
+     * @return Cantidad de ventas borradas
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Sale s WHERE s.id > :afterId AND s.id <= :toId")
+    int deleteByIdRange(@Param("afterId") Long afterId, @Param("toId") Long toId);
+}
@@ -0,0 +1,113 @@
+package com.invoice.orchestrator.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cliente de la API identificado por su API Key.
+ *
+ * Lleva su propio límite de tasa (opcional) y contadores de peticiones
+ * admitidas y limitadas, que se actualizan sin contención con LongAdder.
+ * Solo los clientes admin pueden usar /api/admin/**.
+ */
+public class ApiClient {
+
+    private final String name;
+    private final String key;
+    private final int weight;
+    private final double ratePerSecond;
+    private final int burst;
+    private final boolean admin;
+    private final TokenBucket rateLimiter;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    public ApiClient(String name, String key, int weight) {
+        this(name, key, weight, 0, 0);
+    }
+
+    /**
+     * @param ratePerSecond Peticiones por segundo permitidas (0 = sin límite)
+     * @param burst Peticiones admitidas de golpe por encima de la tasa
+     */
+    public ApiClient(String name, String key, int weight, double ratePerSecond, int burst) {
+        this(name, key, weight, ratePerSecond, burst, false);
+    }
+
+    /**
+     * @param admin Si el cliente puede usar los endpoints de operación (/api/admin/**)
+     */
+    public ApiClient(String name, String key, int weight, double ratePerSecond, int burst, boolean admin) {
+        this.name = name;
+        this.key = key;
+        this.weight = weight;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.admin = admin;
+        this.rateLimiter = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, this.burst) : null;
+    }
+
+    /**
+     * Consume un token del límite de tasa del cliente y actualiza los contadores.
+     *
+     * @param nowNanos Instante actual (System.nanoTime())
+     * @return 0 si la petición se admite; si no, nanos hasta el próximo token
+     */
+    public long tryAcquire(long nowNanos) {
+        long waitNanos = rateLimiter != null ? rateLimiter.tryAcquire(nowNanos) : 0;
+        if (waitNanos == 0) {
+            accepted.increment();
+        } else {
+            rateLimited.increment();
+        }
+        return waitNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * @return Configuración y contadores del cliente (sin la API Key)
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("weight", weight);
+        map.put("admin", admin);
+        map.put("ratePerSecond", ratePerSecond > 0 ? ratePerSecond : "unlimited");
+        map.put("burst", rateLimiter != null ? burst : null);
+        map.put("availableTokens", rateLimiter != null ? rateLimiter.available(System.nanoTime()) : null);
+        map.put("accepted", accepted.sum());
+        map.put("rateLimited", rateLimited.sum());
+        return map;
+    }
+}
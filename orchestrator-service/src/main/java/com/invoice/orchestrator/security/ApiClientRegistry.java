@@ -0,0 +1,91 @@
+package com.invoice.orchestrator.security;
+
+import com.invoice.orchestrator.config.ApiClientProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de clientes de la API construido a partir de api.clients.*.
+ * 
+ * La API Key histórica (api.key.orchestrator) se registra como el cliente
+ * "default" para mantener compatibilidad; su peso se puede fijar con
+ * api.clients.default.weight.
+ * 
+ * Las keys se resuelven con {@link ApiKeyIndex} (digest SHA-256 y comparación
+ * en tiempo constante). Cada cliente puede tener un límite de tasa propio con
+ * api.clients.&lt;nombre&gt;.rate-per-second y api.clients.&lt;nombre&gt;.burst.
+ * Solo los clientes con api.clients.&lt;nombre&gt;.admin=true acceden a /api/admin/**;
+ * el cliente "default" no lo es salvo que se configure.
+ */
+@Component
+public class ApiClientRegistry {
+
+    public static final String DEFAULT_CLIENT = "default";
+
+    private final Map<String, ApiClient> clientsByName;
+    private final ApiKeyIndex keyIndex;
+
+    public ApiClientRegistry(ApiClientProperties properties,
+                             @Value("${api.key.orchestrator}") String legacyApiKey) {
+        Map<String, ApiClient> byName = new LinkedHashMap<>();
+
+        properties.getClients().forEach((name, config) -> {
+            String key = config.getKey();
+            if (DEFAULT_CLIENT.equals(name) && (key == null || key.isBlank())) {
+                key = legacyApiKey;
+            }
+            byName.put(name, new ApiClient(name, key, Math.max(1, config.getWeight()),
+                config.getRatePerSecond(), config.getBurst(), config.isAdmin()));
+        });
+        if (!byName.containsKey(DEFAULT_CLIENT)) {
+            byName.put(DEFAULT_CLIENT, new ApiClient(DEFAULT_CLIENT, legacyApiKey, 1));
+        }
+
+        List<ApiClient> keyedClients = new ArrayList<>();
+        for (ApiClient client : byName.values()) {
+            if (client.getKey() != null && !client.getKey().isBlank()) {
+                keyedClients.add(client);
+            }
+        }
+
+        this.clientsByName = Collections.unmodifiableMap(byName);
+        this.keyIndex = new ApiKeyIndex(keyedClients);
+    }
+
+    /**
+     * Busca el cliente dueño de una API Key.
+     * 
+     * @param apiKey API Key recibida en el header X-API-Key
+     * @return Cliente, o null si la key no es válida
+     */
+    public ApiClient findByKey(String apiKey) {
+        return keyIndex.find(apiKey);
+    }
+
+    /**
+     * Peso del cliente para el reparto de PDF (1 si no está configurado).
+     */
+    public int weightOf(String clientName) {
+        ApiClient client = clientsByName.get(clientName);
+        return client != null ? client.getWeight() : 1;
+    }
+
+    public Collection<ApiClient> getClients() {
+        return clientsByName.values();
+    }
+
+    /**
+     * @return Límite de tasa y contadores de cada cliente
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> clients = new LinkedHashMap<>();
+        clientsByName.forEach((name, client) -> clients.put(name, client.toMap()));
+        return clients;
+    }
+}
@@ -1,12 +1,15 @@
 package com.invoice.orchestrator.security;
 
+import com.invoice.orchestrator.controller.PdfClaimController;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Filtro de seguridad que valida el API Key en las peticiones entrantes.
@@ -14,6 +17,14 @@ import java.io.IOException;
  * Este filtro intercepta todas las peticiones y verifica que incluyan
  * un API Key válido en el header X-API-Key.
  * 
+ * Cada API Key identifica a un cliente de {@link ApiClientRegistry}; el cliente
+ * autenticado queda disponible en el atributo de request {@link #CLIENT_ATTRIBUTE}.
+ * Si el cliente supera su límite de tasa se responde 429 con Retry-After.
+ * Las rutas {@link #ADMIN_PATH} solo admiten clientes admin; los demás reciben 403.
+ * 
+ * El filtro corre en cada petición, así que evita crear objetos: la key se
+ * resuelve con buffers por hilo y los bodies de error son bytes constantes.
+ * 
  * PATRON COMENTADO: En un sistema real, aquí se implementaría OAuth2/JWT
  * para autenticación más robusta. El API Key es solo para demostración.
  */
@@ -21,16 +32,37 @@ import java.io.IOException;
 @Order(1)
 public class ApiKeyFilter implements Filter {
 
-    @Value("${api.key.orchestrator}")
-    private String validApiKey;
+    public static final String CLIENT_ATTRIBUTE = "apiClient";
+    public static final String ADMIN_PATH = "/api/admin";
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private static final byte[] MISSING_KEY_BODY = json(
+        "{\"error\": \"API Key requerido\", \"message\": \"Debe incluir el header X-API-Key\"}");
+    private static final byte[] INVALID_KEY_BODY = json(
+        "{\"error\": \"API Key inválido\", \"message\": \"El API Key proporcionado no es válido\"}");
+    private static final byte[] ADMIN_REQUIRED_BODY = json(
+        "{\"error\": \"Acceso denegado\", \"message\": \"El API Key no tiene acceso a los endpoints de administración\"}");
+    private static final byte[] RATE_LIMITED_BODY = json(
+        "{\"error\": \"Demasiadas peticiones\", \"message\": \"Se superó el límite de peticiones del API Key\"}");
+
+    private final ApiClientRegistry clientRegistry;
+    private final LongAdder missingKey = new LongAdder();
+    private final LongAdder invalidKey = new LongAdder();
+    private final LongAdder adminRequired = new LongAdder();
+
+    public ApiKeyFilter(ApiClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
 
     /**
      * Valida el API Key en cada petición.
      * 
      * Excepciones (no requieren API Key):
-     * - /health (health check público)
+     * - /health y /health/ready (liveness y readiness públicos)
      * - /swagger-ui/** (documentación)
      * - /v3/api-docs/** (OpenAPI spec)
+     * - /internal/pdf-claims/** (autenticado por la firma de la referencia)
      * 
      * @param request Petición HTTP
      * @param response Respuesta HTTP
@@ -45,7 +77,10 @@ public class ApiKeyFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         
-        String path = httpRequest.getRequestURI();
+        // Ruta decodificada y normalizada, sin parámetros ";...": la misma con la
+        // que se resuelve el controller (getRequestURI llega tal cual la envía el cliente)
+        String path = httpRequest.getServletPath()
+            + (httpRequest.getPathInfo() != null ? httpRequest.getPathInfo() : "");
         String method = httpRequest.getMethod();
         
         // Permitir peticiones OPTIONS para CORS
@@ -56,9 +91,11 @@ public class ApiKeyFilter implements Filter {
         
         // Rutas públicas que no requieren API Key
         if (path.equals("/health") || 
+            path.equals("/health/ready") || 
             path.startsWith("/swagger-ui") || 
             path.startsWith("/v3/api-docs") ||
             path.startsWith("/swagger-resources") ||
+            path.startsWith(PdfClaimController.CLAIM_PATH) ||
             path.equals("/favicon.ico")) {
             chain.doFilter(request, response);
             return;
@@ -68,27 +105,76 @@ public class ApiKeyFilter implements Filter {
         String apiKey = httpRequest.getHeader("X-API-Key");
         
         if (apiKey == null || apiKey.isEmpty()) {
-            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            httpResponse.setContentType("application/json");
-            httpResponse.getWriter().write(
-                "{\"error\": \"API Key requerido\", \"message\": \"Debe incluir el header X-API-Key\"}"
-            );
+            missingKey.increment();
+            reject(httpResponse, HttpServletResponse.SC_UNAUTHORIZED, MISSING_KEY_BODY);
+            return;
+        }
+        
+        ApiClient client = clientRegistry.findByKey(apiKey);
+        if (client == null) {
+            invalidKey.increment();
+            reject(httpResponse, HttpServletResponse.SC_FORBIDDEN, INVALID_KEY_BODY);
+            return;
+        }
+        
+        // Backups, restauración, archivo, JFR y regeneración: solo clientes admin
+        if (!client.isAdmin() && isAdminPath(path)) {
+            adminRequired.increment();
+            reject(httpResponse, HttpServletResponse.SC_FORBIDDEN, ADMIN_REQUIRED_BODY);
             return;
         }
         
-        if (!apiKey.equals(validApiKey)) {
-            httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
-            httpResponse.setContentType("application/json");
-            httpResponse.getWriter().write(
-                "{\"error\": \"API Key inválido\", \"message\": \"El API Key proporcionado no es válido\"}"
-            );
+        // Límite de tasa por cliente (token bucket sin locks)
+        long waitNanos = client.tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            httpResponse.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            reject(httpResponse, SC_TOO_MANY_REQUESTS, RATE_LIMITED_BODY);
             return;
         }
         
-        // API Key válido, continuar con la petición
+        // API Key válido, continuar con la petición identificando al cliente
+        httpRequest.setAttribute(CLIENT_ATTRIBUTE, client);
         chain.doFilter(request, response);
     }
 
+    /**
+     * @return Peticiones rechazadas por falta de API Key
+     */
+    public long getMissingKeyCount() {
+        return missingKey.sum();
+    }
+
+    /**
+     * @return Peticiones rechazadas por API Key inválido
+     */
+    public long getInvalidKeyCount() {
+        return invalidKey.sum();
+    }
+
+    /**
+     * @return Peticiones a /api/admin/** rechazadas por venir de un cliente no admin
+     */
+    public long getAdminRequiredCount() {
+        return adminRequired.sum();
+    }
+
+    private static boolean isAdminPath(String path) {
+        return path.startsWith(ADMIN_PATH)
+            && (path.length() == ADMIN_PATH.length() || path.charAt(ADMIN_PATH.length()) == '/');
+    }
+
+    private static void reject(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] json(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         // Inicialización del filtro (si fuera necesaria)
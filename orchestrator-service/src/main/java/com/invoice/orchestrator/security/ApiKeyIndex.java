@@ -0,0 +1,127 @@
+package com.invoice.orchestrator.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+
+/**
+ * Índice inmutable de API Keys precalculado al arrancar.
+ *
+ * Cada key se guarda como su digest SHA-256 en una tabla de direccionamiento
+ * abierto indexada por los primeros 8 bytes del digest. La búsqueda:
+ * - hashea la key recibida con un MessageDigest y buffers por hilo (sin crear objetos
+ *   para keys ASCII),
+ * - sondea la tabla por huella y confirma con {@link MessageDigest#isEqual},
+ *   que compara en tiempo constante.
+ *
+ * Como se comparan digests y no las keys, el tiempo de la búsqueda no revela
+ * cuántos caracteres de una key candidata coinciden con una key válida.
+ */
+final class ApiKeyIndex {
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final int MAX_INLINE_KEY_LENGTH = 256;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final long[] fingerprints;
+    private final byte[][] digests;
+    private final ApiClient[] clients;
+    private final int mask;
+
+    ApiKeyIndex(Collection<ApiClient> keyedClients) {
+        int capacity = Integer.highestOneBit(Math.max(4, keyedClients.size() * 4) - 1) << 1;
+        this.fingerprints = new long[capacity];
+        this.digests = new byte[capacity][];
+        this.clients = new ApiClient[capacity];
+        this.mask = capacity - 1;
+
+        for (ApiClient client : keyedClients) {
+            byte[] digest = newDigest().digest(client.getKey().getBytes(StandardCharsets.UTF_8));
+            long fingerprint = fingerprint(digest);
+            int slot = (int) fingerprint & mask;
+            while (clients[slot] != null) {
+                if (MessageDigest.isEqual(digests[slot], digest)) {
+                    throw new IllegalStateException("API Key duplicada para los clientes "
+                        + clients[slot].getName() + " y " + client.getName());
+                }
+                slot = (slot + 1) & mask;
+            }
+            fingerprints[slot] = fingerprint;
+            digests[slot] = digest;
+            clients[slot] = client;
+        }
+    }
+
+    /**
+     * @param apiKey API Key recibida
+     * @return Cliente dueño de la key, o null si no es válida
+     */
+    ApiClient find(String apiKey) {
+        Scratch scratch = SCRATCH.get();
+        byte[] digest = scratch.digest(apiKey);
+        long fingerprint = fingerprint(digest);
+
+        int slot = (int) fingerprint & mask;
+        while (clients[slot] != null) {
+            if (fingerprints[slot] == fingerprint && MessageDigest.isEqual(digests[slot], digest)) {
+                return clients[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static long fingerprint(byte[] digest) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (digest[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Buffers reutilizables por hilo para hashear la key sin crear objetos.
+     */
+    private static final class Scratch {
+
+        private final MessageDigest digest = newDigest();
+        private final byte[] keyBytes = new byte[MAX_INLINE_KEY_LENGTH];
+        private final byte[] result = new byte[DIGEST_LENGTH];
+
+        private byte[] digest(String apiKey) {
+            int length = apiKey.length();
+            boolean ascii = length <= MAX_INLINE_KEY_LENGTH;
+            for (int i = 0; ascii && i < length; i++) {
+                char c = apiKey.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                } else {
+                    keyBytes[i] = (byte) c;
+                }
+            }
+            if (ascii) {
+                digest.update(keyBytes, 0, length);
+            } else {
+                // Keys largas o no ASCII: ruta lenta con la codificación completa
+                digest.update(apiKey.getBytes(StandardCharsets.UTF_8));
+            }
+            try {
+                digest.digest(result, 0, DIGEST_LENGTH);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.invoice.orchestrator.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin locks implementado como GCRA (Generic Cell Rate Algorithm).
+ *
+ * Todo el estado es un único long (el "tiempo teórico de llegada" en nanos),
+ * actualizado con compare-and-set: admitir una petición no bloquea ni crea objetos.
+ * Equivale a un bucket de {@code burst} tokens que se rellena a
+ * {@code ratePerSecond} tokens por segundo.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param ratePerSecond Tokens por segundo (mayor a 0)
+     * @param burst Tamaño del bucket (peticiones admitidas de golpe, mínimo 1)
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond debe ser mayor a 0");
+        }
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / ratePerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @param nowNanos Instante actual (System.nanoTime())
+     * @return 0 si se admitió; si no, nanos a esperar hasta que haya un token
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long waitNanos = newTat - burstToleranceNanos - nowNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return Tokens disponibles ahora mismo (aproximado)
+     */
+    public long available(long nowNanos) {
+        long backlog = Math.max(0, theoreticalArrival.get() - nowNanos);
+        return (burstToleranceNanos - backlog) / emissionIntervalNanos;
+    }
+}
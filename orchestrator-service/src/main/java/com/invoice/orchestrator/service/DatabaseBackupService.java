@@ -0,0 +1,548 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.core.DB;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Backups en línea de la base de ventas con el API de backup incremental de SQLite.
+ *
+ * - La copia se hace en pasos de backup.pages-per-step páginas desde una conexión
+ *   propia. Cada paso toma el lock de lectura solo mientras copia sus páginas y
+ *   entre pasos hay una pausa. Si otra conexión escribe durante la copia, SQLite
+ *   la reinicia para que el backup sea consistente (se cuenta en "restarts").
+ * - Con escrituras continuas la copia se reiniciaría sin fin: tras
+ *   backup.max-restarts reinicios la conexión del backup abre una transacción
+ *   de lectura y termina sin pausas sobre esa instantánea
+ *   ("finishedUnderReadLock"). Esto requiere la base en modo WAL (la URL del
+ *   datasource lo activa): ahí un lector no bloquea a los escritores, que siguen
+ *   guardando ventas en el WAL; el checkpoint no avanza más allá de la
+ *   instantánea hasta que termina la copia, así que el WAL crece mientras tanto.
+ * - En modo rollback journal (otra URL sin journal_mode=WAL) una transacción de
+ *   lectura bloquearía cada guardado, que fallaría con SQLITE_BUSY pasado el
+ *   busy timeout del driver (3 s). Ahí no se toma: la copia sigue reiniciándose
+ *   mientras haya escrituras y se avisa en el log ("journalMode" en el resultado).
+ * - La copia se verifica (PRAGMA integrity_check) antes de comprimirla con gzip
+ *   a {@code sales-<fecha>.db.gz} en backup.dir; se conservan los últimos
+ *   backup.retention-count.
+ * - La restauración descomprime, verifica y copia el backup sobre la base en uso
+ *   en un solo paso (las escrituras esperan mientras tanto) y después pone al
+ *   día el índice de búsqueda.
+ *
+ * Métricas de cada corrida (en el resultado del último backup): duración, pasos,
+ * el paso más largo (cota del bloqueo a escritores si la base no está en WAL) y los guardados de ventas
+ * ocurridos durante ese backup con su duración.
+ */
+@Service
+public class DatabaseBackupService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final Pattern BACKUP_NAME = Pattern.compile("sales-\\d{8}-\\d{6}\\.db\\.gz");
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final SaleRepository saleRepository;
+    private final SaleArchive saleArchive;
+    private final SaleSearchService saleSearchService;
+    private final Path backupDir;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${backup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${backup.pages-per-step:256}")
+    private int pagesPerStep;
+
+    @Value("${backup.step-pause-ms:10}")
+    private long stepPauseMs;
+
+    @Value("${backup.retention-count:7}")
+    private int retentionCount;
+
+    // Reintentos del API de backup cuando la base está ocupada (SQLITE_BUSY)
+    @Value("${backup.busy-retry-ms:100}")
+    private int busyRetryMs;
+
+    @Value("${backup.busy-max-retries:50}")
+    private int busyMaxRetries;
+
+    // Reinicios de la copia tolerados antes de terminarla bajo una transacción de lectura
+    @Value("${backup.max-restarts:3}")
+    private int maxRestarts;
+
+    // Backup o restauración en curso (son excluyentes)
+    private volatile boolean running;
+    private volatile Map<String, Object> lastBackup;
+    private volatile Map<String, Object> lastRestore;
+
+    // Guardados de ventas del backup en curso; null si no hay backup (una restauración no cuenta)
+    private volatile WriterStats currentWriters;
+
+    public DatabaseBackupService(SaleRepository saleRepository,
+                                 SaleArchive saleArchive,
+                                 SaleSearchService saleSearchService,
+                                 @Value("${backup.dir:./data/backups}") String backupDir) {
+        this.saleRepository = saleRepository;
+        this.saleArchive = saleArchive;
+        this.saleSearchService = saleSearchService;
+        this.backupDir = Paths.get(backupDir);
+    }
+
+    @Scheduled(fixedDelayString = "${backup.interval-ms:86400000}",
+               initialDelayString = "${backup.interval-ms:86400000}")
+    public void scheduledBackup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            backup();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error en el backup de la base de datos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Toma un backup en línea, lo verifica, lo comprime y aplica la retención.
+     *
+     * @return Resultado del backup
+     * @throws IllegalStateException Si ya hay un backup o restauración en curso
+     */
+    public Map<String, Object> backup() {
+        synchronized (this) {
+            if (running) {
+                throw new IllegalStateException("Ya hay un backup o restauración en curso");
+            }
+            running = true;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        Path copy = null;
+        try {
+            Files.createDirectories(backupDir);
+            String name = "sales-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".db.gz";
+            result.put("name", name);
+            result.put("startedAt", LocalDateTime.now());
+            copy = Files.createTempFile(backupDir, "backup-", ".db");
+
+            WriterStats writers = new WriterStats();
+            currentWriters = writers;
+            try (Connection connection = DriverManager.getConnection(datasourceUrl)) {
+                String journalMode = journalMode(connection);
+                result.put("journalMode", journalMode);
+                DB db = connection.unwrap(SQLiteConnection.class).getDatabase();
+                StepObserver observer = new StepObserver(db, stepPauseMs, maxRestarts, "wal".equals(journalMode));
+                try {
+                    int rc = db.backup("main", copy.toString(), observer, busyRetryMs, busyMaxRetries, pagesPerStep);
+                    if (rc != 0 && rc != 101) {
+                        throw new SQLException("El backup de SQLite terminó con código " + rc);
+                    }
+                } finally {
+                    currentWriters = null;
+                    observer.releaseReadLock();
+                }
+                result.putAll(observer.toMap());
+                result.put("writersDuringBackup", writers.toMap());
+                if (observer.readLocked) {
+                    System.out.println("⚠️ Backup: " + observer.restarts
+                        + " reinicios por escrituras concurrentes, se terminó bajo una transacción de lectura");
+                } else if (observer.restarts > maxRestarts) {
+                    System.out.println("⚠️ Backup: " + observer.restarts + " reinicios por escrituras concurrentes; "
+                        + "la base está en modo " + journalMode + " y sin WAL no se toma la transacción de lectura");
+                }
+            }
+
+            Map<String, Object> check = verify(copy);
+            result.put("verified", check);
+
+            Path target = backupDir.resolve(name);
+            compress(copy, target);
+            result.put("databaseBytes", Files.size(copy));
+            result.put("compressedBytes", Files.size(target));
+            result.put("deletedByRetention", applyRetention());
+            result.put("durationMillis", (System.nanoTime() - start) / 1_000_000);
+            result.put("error", null);
+            System.out.println("💾 Backup " + name + " en " + result.get("durationMillis") + " ms ("
+                + result.get("steps") + " pasos, paso más largo " + result.get("maxStepMillis") + " ms)");
+            return result;
+        } catch (IOException | SQLException e) {
+            result.put("durationMillis", (System.nanoTime() - start) / 1_000_000);
+            result.put("error", e.getMessage());
+            throw new RuntimeException("Error al tomar el backup: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(copy);
+            lastBackup = result;
+            running = false;
+        }
+    }
+
+    /**
+     * Descomprime un backup en un archivo temporal y verifica su integridad.
+     *
+     * @param name Nombre del backup
+     * @return Resultado de la verificación (ventas e integridad)
+     * @throws IllegalArgumentException Si el backup no existe
+     */
+    public Map<String, Object> verifyBackup(String name) {
+        Path source = resolveBackup(name);
+        Path copy = null;
+        try {
+            copy = decompressToTemp(source);
+            Map<String, Object> check = verify(copy);
+            check.put("name", name);
+            return check;
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException("Error al verificar el backup " + name + ": " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(copy);
+        }
+    }
+
+    /**
+     * Restaura un backup sobre la base en uso, después de verificarlo.
+     *
+     * Se rechaza si el backup es anterior a ventas ya archivadas: la base
+     * restaurada volvería a asignar IDs que ya están en el archivo.
+     *
+     * @param name Nombre del backup
+     * @return Resultado de la restauración
+     * @throws IllegalArgumentException Si el backup no existe
+     * @throws IllegalStateException Si hay otro backup en curso o el backup es incompatible con el archivo
+     */
+    public Map<String, Object> restore(String name) {
+        Path source = resolveBackup(name);
+        synchronized (this) {
+            if (running) {
+                throw new IllegalStateException("Ya hay un backup o restauración en curso");
+            }
+            running = true;
+        }
+        Path copy = null;
+        long start = System.nanoTime();
+        try {
+            copy = decompressToTemp(source);
+            Map<String, Object> check = verify(copy);
+            long maxId = ((Number) check.get("maxSaleId")).longValue();
+            long archivedMax = saleArchive.getMaxArchivedId();
+            if (archivedMax > 0 && maxId <= archivedMax) {
+                throw new IllegalStateException("El backup " + name + " es anterior a las ventas archivadas (hasta el ID "
+                    + archivedMax + "); restaurarlo reutilizaría IDs del archivo");
+            }
+
+            try (Connection connection = DriverManager.getConnection(datasourceUrl)) {
+                DB db = connection.unwrap(SQLiteConnection.class).getDatabase();
+                // Un solo paso: la base nunca queda a medio restaurar
+                int rc = db.restore("main", copy.toString(), null, busyRetryMs, busyMaxRetries, -1);
+                if (rc != 0 && rc != 101) {
+                    throw new SQLException("La restauración de SQLite terminó con código " + rc);
+                }
+            }
+            // El índice de búsqueda restaurado es el del backup: se descartan las
+            // entradas sin venta y se recrean los triggers si el backup no los tenía
+            saleSearchService.initializeIndex();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("restoredAt", LocalDateTime.now());
+            result.put("durationMillis", (System.nanoTime() - start) / 1_000_000);
+            result.put("verified", check);
+            result.put("salesInDatabase", saleRepository.count());
+            lastRestore = result;
+            System.out.println("♻️ Base de datos restaurada desde " + name);
+            return result;
+        } catch (IOException | SQLException e) {
+            throw new RuntimeException("Error al restaurar el backup " + name + ": " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(copy);
+            running = false;
+        }
+    }
+
+    /**
+     * Registra la duración de un guardado de venta; solo cuenta si hay un
+     * backup en curso (para ver cuánto afecta el backup a los escritores).
+     *
+     * @param nanos Duración del guardado
+     */
+    public void recordWrite(long nanos) {
+        WriterStats writers = currentWriters;
+        if (writers != null) {
+            writers.record(nanos);
+        }
+    }
+
+    /**
+     * @return Configuración, backups disponibles y resultados del último backup y la última restauración
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("directory", backupDir.toAbsolutePath().toString());
+        map.put("running", running);
+        map.put("pagesPerStep", pagesPerStep);
+        map.put("stepPauseMs", stepPauseMs);
+        map.put("maxRestarts", maxRestarts);
+        map.put("retentionCount", retentionCount);
+        map.put("lastBackup", lastBackup);
+        map.put("lastRestore", lastRestore);
+        List<Map<String, Object>> backups = new ArrayList<>();
+        for (Path backup : listBackups()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", backup.getFileName().toString());
+            try {
+                entry.put("bytes", Files.size(backup));
+            } catch (IOException e) {
+                entry.put("bytes", null);
+            }
+            backups.add(entry);
+        }
+        map.put("backups", backups);
+        return map;
+    }
+
+    private static String journalMode(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA journal_mode")) {
+            return rs.next() ? rs.getString(1).toLowerCase() : "desconocido";
+        }
+    }
+
+    private Map<String, Object> verify(Path database) throws SQLException {
+        Map<String, Object> check = new LinkedHashMap<>();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("PRAGMA integrity_check")) {
+                String integrity = rs.next() ? rs.getString(1) : "sin resultado";
+                if (!"ok".equals(integrity)) {
+                    throw new SQLException("integrity_check: " + integrity);
+                }
+                check.put("integrity", integrity);
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*), COALESCE(MAX(id), 0) FROM sales")) {
+                rs.next();
+                check.put("sales", rs.getLong(1));
+                check.put("maxSaleId", rs.getLong(2));
+            }
+        }
+        return check;
+    }
+
+    private void compress(Path source, Path target) throws IOException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), GZIP_BUFFER_BYTES) {
+                 {
+                     def.setLevel(Deflater.BEST_SPEED);
+                 }
+             }) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+        // Solo aparecen backups completos con el nombre final
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path decompressToTemp(Path source) throws IOException {
+        Path copy = Files.createTempFile(backupDir, "restore-", ".db");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(source), GZIP_BUFFER_BYTES);
+             OutputStream out = Files.newOutputStream(copy)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            deleteQuietly(copy);
+            throw e;
+        }
+        return copy;
+    }
+
+    private int applyRetention() {
+        List<Path> backups = listBackups();
+        int deleted = 0;
+        for (int i = 0; i < backups.size() - Math.max(1, retentionCount); i++) {
+            deleteQuietly(backups.get(i));
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * @return Backups en orden cronológico (el nombre lleva la fecha)
+     */
+    private List<Path> listBackups() {
+        if (!Files.isDirectory(backupDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(backupDir)) {
+            return files
+                .filter(path -> BACKUP_NAME.matcher(path.getFileName().toString()).matches())
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al listar los backups", e);
+        }
+    }
+
+    private Path resolveBackup(String name) {
+        if (name == null || !BACKUP_NAME.matcher(name).matches() || !Files.isRegularFile(backupDir.resolve(name))) {
+            throw new IllegalArgumentException("Backup no encontrado: " + name);
+        }
+        return backupDir.resolve(name);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudo borrar " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guardados de ventas ocurridos durante un backup.
+     */
+    private static final class WriterStats {
+
+        private long writes;
+        private long totalNanos;
+        private long maxNanos;
+
+        private synchronized void record(long nanos) {
+            writes++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        private synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("writes", writes);
+            map.put("avgWriteMillis", writes > 0 ? Math.round(totalNanos / (double) writes / 10_000) / 100.0 : null);
+            map.put("maxWriteMillis", maxNanos / 1_000_000.0);
+            return map;
+        }
+    }
+
+    /**
+     * Recibe el progreso del API de backup después de cada paso: mide cuánto
+     * duró el paso (tiempo con la base bloqueada para escritores) y hace la
+     * pausa antes del siguiente.
+     *
+     * El API no se puede cancelar desde el observador, así que al superar
+     * maxRestarts se abre una transacción de lectura en la conexión de origen:
+     * los pasos siguientes leen esa instantánea y la copia ya no se reinicia.
+     * Solo en modo WAL; en rollback journal bloquearía a los escritores.
+     */
+    private static final class StepObserver implements DB.ProgressObserver {
+
+        private final DB db;
+        private final long pauseMs;
+        private final int maxRestarts;
+        private final boolean wal;
+        private long lastStepEnd = System.nanoTime();
+        private long steps;
+        private long restarts;
+        private long maxStepNanos;
+        private long totalStepNanos;
+        private int previousRemaining = Integer.MAX_VALUE;
+        private int pageCount;
+        private boolean inTransaction;
+        private boolean readLocked;
+
+        private StepObserver(DB db, long pauseMs, int maxRestarts, boolean wal) {
+            this.db = db;
+            this.pauseMs = pauseMs;
+            this.maxRestarts = maxRestarts;
+            this.wal = wal;
+        }
+
+        @Override
+        public void progress(int remaining, int pageCount) {
+            long stepNanos = System.nanoTime() - lastStepEnd;
+            steps++;
+            totalStepNanos += stepNanos;
+            maxStepNanos = Math.max(maxStepNanos, stepNanos);
+            if (remaining > 0 && remaining >= previousRemaining) {
+                // Otra conexión escribió en la base: SQLite reinicia la copia y el paso no avanzó
+                restarts++;
+                if (restarts > maxRestarts && wal && !readLocked) {
+                    acquireReadLock();
+                }
+            }
+            previousRemaining = remaining;
+            this.pageCount = pageCount;
+            if (remaining > 0 && pauseMs > 0 && !readLocked) {
+                try {
+                    Thread.sleep(pauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lastStepEnd = System.nanoTime();
+        }
+
+        private void acquireReadLock() {
+            try {
+                db._exec("BEGIN");
+                inTransaction = true;
+                db._exec("SELECT COUNT(*) FROM sqlite_master");
+                readLocked = true;
+            } catch (SQLException e) {
+                System.err.println("⚠️ Backup: no se pudo abrir la transacción de lectura: " + e.getMessage());
+                releaseReadLock();
+            }
+        }
+
+        private void releaseReadLock() {
+            if (!inTransaction) {
+                return;
+            }
+            inTransaction = false;
+            try {
+                db._exec("ROLLBACK");
+            } catch (SQLException e) {
+                System.err.println("⚠️ Backup: no se pudo cerrar la transacción de lectura: " + e.getMessage());
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("pages", pageCount);
+            map.put("steps", steps);
+            map.put("restarts", restarts);
+            map.put("finishedUnderReadLock", readLocked);
+            map.put("maxStepMillis", maxStepNanos / 1_000_000.0);
+            map.put("lockedMillis", totalStepNanos / 1_000_000);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.DeadlineExceededException;
+import java.util.function.Supplier;
+
+/**
+ * Presupuesto de tiempo de una petición, propagado entre etapas y servicios.
+ *
+ * Se crea a partir del header {@link #HEADER} (o de sales.deadline.default-ms)
+ * y se asocia al hilo con {@link #callWith}. Las llamadas salientes lo leen con
+ * {@link #current()} para acotar sus timeouts y reenviar el tiempo restante en
+ * el mismo header a los servicios de PDF y email.
+ */
+public final class Deadline {
+
+    /** Header con el presupuesto restante en milisegundos. */
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budgetMs Presupuesto desde ahora en milisegundos
+     */
+    public static Deadline afterMillis(long budgetMs) {
+        return new Deadline(System.nanoTime() + budgetMs * 1_000_000L);
+    }
+
+    /**
+     * @return Deadline asociado al hilo actual, o null si no hay
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Ejecuta la tarea con el deadline asociado al hilo actual.
+     */
+    public static <T> T callWith(Deadline deadline, Supplier<T> task) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public long remainingMillis() {
+        return remainingNanos() / 1_000_000L;
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    /**
+     * Verifica que queda presupuesto antes de iniciar una etapa.
+     *
+     * @param stage Etapa que se va a iniciar
+     * @throws DeadlineExceededException Si el deadline ya pasó
+     */
+    public void check(String stage) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(stage);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.invoice.orchestrator.service;
+
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de trabajo abandonado por deadline agotado, por etapa.
+ * Permite ver cuánta capacidad se deja de gastar en peticiones que el cliente
+ * ya dio por perdidas.
+ */
+@Component
+public class DeadlineMetrics {
+
+    private final Map<String, LongAdder> abandonedByStage = new ConcurrentHashMap<>();
+
+    /**
+     * @param stage Etapa que no se inició (o se cortó) por deadline agotado
+     */
+    public void recordAbandoned(String stage) {
+        abandonedByStage.computeIfAbsent(stage, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * @return Trabajo abandonado por etapa
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        abandonedByStage.forEach((stage, count) -> snapshot.put(stage, count.sum()));
+        return snapshot;
+    }
+}
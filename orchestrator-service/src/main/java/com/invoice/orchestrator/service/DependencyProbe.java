@@ -0,0 +1,275 @@
+package com.invoice.orchestrator.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sondea en segundo plano las dependencias del orquestador:
+ * - Servicio de PDF (GET /health)
+ * - Servicio de email (GET /health)
+ * - SQLite (lock de escritura disponible, archivo escribible y espacio libre)
+ *
+ * El resultado queda cacheado: el endpoint de readiness solo lo lee, así que
+ * responder al balanceador nunca espera a una dependencia lenta.
+ *
+ * El sondeo corre en un hilo propio y no en el scheduler compartido de
+ * {@code @Scheduled}: un barrido de recuperación, un archivado o un backup
+ * largos no dejan el estado viejo ni sacan de servicio a todas las réplicas
+ * a la vez.
+ *
+ * Cada fallo lleva un código corto (ej. {@code timeout}, {@code read_only}),
+ * que es lo único que ve el endpoint público, y el detalle (mensaje de la
+ * excepción, ruta del archivo), que solo va al log y a /api/admin/readiness.
+ */
+@Component
+public class DependencyProbe {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RestTemplate probeRestTemplate;
+
+    @Value("${services.pdf.url}")
+    private String pdfServiceUrl;
+
+    @Value("${services.email.url}")
+    private String emailServiceUrl;
+
+    @Value("${readiness.probe-interval-ms:5000}")
+    private long probeIntervalMs;
+
+    @Value("${readiness.min-free-disk-bytes:16777216}")
+    private long minFreeDiskBytes;
+
+    private final ScheduledExecutorService probeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dependency-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile DependencyStatus pdfService = DependencyStatus.unknown();
+    private volatile DependencyStatus emailService = DependencyStatus.unknown();
+    private volatile DependencyStatus database = DependencyStatus.unknown();
+
+    public DependencyProbe(JdbcTemplate jdbcTemplate,
+                           @Value("${readiness.probe-timeout-ms:1000}") int probeTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        // RestTemplate propio con timeouts cortos, separado del de las llamadas de negocio
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(probeTimeoutMs);
+        requestFactory.setReadTimeout(probeTimeoutMs);
+        this.probeRestTemplate = new RestTemplate(requestFactory);
+    }
+
+    @PostConstruct
+    void start() {
+        probeExecutor.scheduleWithFixedDelay(this::probeSafely, 0, probeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        probeExecutor.shutdownNow();
+    }
+
+    private void probeSafely() {
+        // Una excepción cancelaría las ejecuciones siguientes del executor
+        try {
+            probe();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Error en el sondeo de dependencias: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sondea todas las dependencias y actualiza el estado cacheado.
+     */
+    public void probe() {
+        pdfService = logChange("Servicio de PDF", pdfService, probeHttp(pdfServiceUrl + "/health"));
+        emailService = logChange("Servicio de email", emailService, probeHttp(emailServiceUrl + "/health"));
+        database = logChange("Base de datos", database, probeDatabase());
+    }
+
+    /**
+     * Loguea el detalle de un fallo solo cuando cambia, para no repetirlo en
+     * cada sondeo mientras la dependencia sigue caída.
+     */
+    private static DependencyStatus logChange(String name, DependencyStatus previous, DependencyStatus current) {
+        if (Boolean.FALSE.equals(current.up)) {
+            if (!Boolean.FALSE.equals(previous.up) || !current.error.equals(previous.error)) {
+                System.err.println("⚠️ " + name + " no disponible (" + current.reason + "): " + current.error);
+            }
+        } else if (Boolean.FALSE.equals(previous.up)) {
+            System.out.println("✅ " + name + " disponible de nuevo");
+        }
+        return current;
+    }
+
+    private DependencyStatus probeHttp(String url) {
+        long start = System.nanoTime();
+        try {
+            probeRestTemplate.getForEntity(url, String.class);
+            return DependencyStatus.up(elapsedMs(start));
+        } catch (HttpStatusCodeException e) {
+            return DependencyStatus.down(elapsedMs(start), "http_" + e.getStatusCode().value(),
+                "HTTP " + e.getStatusCode().value() + " en " + url);
+        } catch (ResourceAccessException e) {
+            String reason = e.getCause() instanceof SocketTimeoutException ? "timeout" : "unreachable";
+            return DependencyStatus.down(elapsedMs(start), reason, String.valueOf(e.getMessage()));
+        } catch (Exception e) {
+            return DependencyStatus.down(elapsedMs(start), "error", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Verifica que SQLite aceptaría escrituras sin escribir nada: un BEGIN
+     * IMMEDIATE seguido de ROLLBACK toma y suelta el lock de escritura (falla si
+     * otro lo retiene más que el busy timeout), y se comprueba que el archivo y
+     * su directorio sean escribibles y que quede espacio en disco.
+     *
+     * No modificar la base importa: cada escritura de otra conexión reinicia
+     * un backup en línea en curso.
+     */
+    private DependencyStatus probeDatabase() {
+        long start = System.nanoTime();
+        try {
+            String file = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("BEGIN IMMEDIATE");
+                    statement.execute("ROLLBACK");
+                    try (ResultSet rs = statement.executeQuery("PRAGMA database_list")) {
+                        while (rs.next()) {
+                            if ("main".equals(rs.getString("name"))) {
+                                return rs.getString("file");
+                            }
+                        }
+                    }
+                    return null;
+                }
+            });
+            DependencyStatus problem = checkDatabaseFile(file, start);
+            return problem != null ? problem : DependencyStatus.up(elapsedMs(start));
+        } catch (Exception e) {
+            return DependencyStatus.down(elapsedMs(start), "unavailable", String.valueOf(e.getMessage()));
+        }
+    }
+
+    private DependencyStatus checkDatabaseFile(String file, long start) throws IOException {
+        if (file == null || file.isEmpty()) {
+            return null; // Base en memoria
+        }
+        Path path = Path.of(file);
+        Path directory = path.toAbsolutePath().getParent();
+        if (!Files.isWritable(path) || !Files.isWritable(directory)) {
+            return DependencyStatus.down(elapsedMs(start), "read_only",
+                "Archivo de base de datos de solo lectura: " + path);
+        }
+        long usable = Files.getFileStore(directory).getUsableSpace();
+        if (usable < minFreeDiskBytes) {
+            return DependencyStatus.down(elapsedMs(start), "low_disk",
+                "Espacio en disco insuficiente: " + usable + " bytes libres");
+        }
+        return null;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public DependencyStatus getPdfService() {
+        return pdfService;
+    }
+
+    public DependencyStatus getEmailService() {
+        return emailService;
+    }
+
+    public DependencyStatus getDatabase() {
+        return database;
+    }
+
+    /**
+     * @return Antigüedad máxima aceptable de un sondeo antes de considerarlo desconocido
+     */
+    public long getMaxAgeMs() {
+        return probeIntervalMs * 3;
+    }
+
+    /**
+     * Resultado inmutable de un sondeo.
+     */
+    public static final class DependencyStatus {
+
+        private final Boolean up;
+        private final long latencyMs;
+        private final long checkedAtMillis;
+        private final String reason;
+        private final String error;
+
+        private DependencyStatus(Boolean up, long latencyMs, long checkedAtMillis, String reason, String error) {
+            this.up = up;
+            this.latencyMs = latencyMs;
+            this.checkedAtMillis = checkedAtMillis;
+            this.reason = reason;
+            this.error = error;
+        }
+
+        static DependencyStatus unknown() {
+            return new DependencyStatus(null, 0, 0, "not_probed", "Sin sondear todavía");
+        }
+
+        static DependencyStatus up(long latencyMs) {
+            return new DependencyStatus(true, latencyMs, System.currentTimeMillis(), null, null);
+        }
+
+        /**
+         * @param reason Código corto y estable, apto para respuestas públicas
+         * @param error Detalle para el log y el endpoint de administración
+         */
+        static DependencyStatus down(long latencyMs, String reason, String error) {
+            return new DependencyStatus(false, latencyMs, System.currentTimeMillis(), reason, error);
+        }
+
+        /**
+         * @param maxAgeMs Antigüedad máxima del sondeo
+         * @return true si el último sondeo fue exitoso y es reciente
+         */
+        public boolean isUp(long maxAgeMs) {
+            return Boolean.TRUE.equals(up) && System.currentTimeMillis() - checkedAtMillis <= maxAgeMs;
+        }
+
+        /**
+         * @param maxAgeMs Antigüedad máxima del sondeo
+         * @param includeDetails Si se incluye el detalle del error (solo para administración)
+         */
+        public Map<String, Object> toMap(long maxAgeMs, boolean includeDetails) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("status", up == null ? "UNKNOWN" : isUp(maxAgeMs) ? "UP" : up ? "STALE" : "DOWN");
+            map.put("latencyMs", latencyMs);
+            map.put("checkedAgoMs", checkedAtMillis == 0 ? null : System.currentTimeMillis() - checkedAtMillis);
+            if (reason != null) {
+                map.put("reason", reason);
+            }
+            if (includeDetails && error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.invoice.orchestrator.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.config.StreamingJsonClient;
+import com.invoice.orchestrator.controller.PdfClaimController;
 import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.monitoring.EmailCallEvent;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiFunction;
 
 /**
  * Cliente para comunicarse con el Microservicio C (Envío de Email).
@@ -16,6 +22,8 @@ import java.util.Map;
 public class EmailServiceClient {
 
     private final RestTemplate restTemplate;
+    private final StreamingJsonClient streamingClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Value("${services.email.url}")
     private String emailServiceUrl;
@@ -23,8 +31,19 @@ public class EmailServiceClient {
     @Value("${api.key.email-service}")
     private String emailServiceApiKey;
 
-    public EmailServiceClient(RestTemplate restTemplate) {
+    @Value("${claim-check.enabled:true}")
+    private boolean claimCheckEnabled;
+
+    @Value("${services.orchestrator.public-url}")
+    private String orchestratorPublicUrl;
+
+    private final PdfClaimCheckStore claimCheckStore;
+
+    public EmailServiceClient(RestTemplate restTemplate, StreamingJsonClient streamingClient,
+                              PdfClaimCheckStore claimCheckStore) {
         this.restTemplate = restTemplate;
+        this.streamingClient = streamingClient;
+        this.claimCheckStore = claimCheckStore;
     }
 
     /**
@@ -34,42 +53,89 @@ public class EmailServiceClient {
      * PATRON COMENTADO: En un sistema real, aquí se usaría un Message Queue (RabbitMQ, Kafka)
      * para garantizar la entrega del mensaje incluso si el servicio está caído.
      * 
+     * PATRON: Claim-Check. Con claim-check.enabled el PDF no viaja en el payload:
+     * se guarda en {@link PdfClaimCheckStore} y se envía solo la URL firmada
+     * (pdfUrl) para que el servicio de email lo descargue. Si el almacén está
+     * lleno se recurre al envío inline en base64.
+     * 
+     * Emite un evento JFR {@link EmailCallEvent} con la duración, el tamaño y el resultado,
+     * y registra el tramo "email" en la {@link SaleTrace} activa.
+     * 
+     * @param saleId ID de la venta (para correlacionar eventos)
      * @param saleRequest Datos de la venta
      * @param pdfBytes Bytes del PDF generado
      * @return true si se aceptó la petición (202), false en caso contrario
      */
-    public boolean sendInvoiceEmail(SaleRequest saleRequest, byte[] pdfBytes) {
-        try {
-            String url = emailServiceUrl + "/send-invoice";
-            
-            // Preparar el payload con datos y PDF en base64
+    public boolean sendInvoiceEmail(Long saleId, SaleRequest saleRequest, byte[] pdfBytes) {
+        return sendInvoiceEmail(saleId, pdfBytes, (pdfFields, headers) -> {
+            // Preparar el payload con datos y referencia al PDF (o PDF en base64)
             Map<String, Object> payload = new HashMap<>();
             payload.put("customer", saleRequest.getCustomer());
             payload.put("products", saleRequest.getProducts());
-            payload.put("pdfBase64", java.util.Base64.getEncoder().encodeToString(pdfBytes));
+            payload.putAll(pdfFields);
+            
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
+            return restTemplate.exchange(
+                emailServiceUrl + "/send-invoice",
+                HttpMethod.POST,
+                request,
+                String.class
+            );
+        });
+    }
+
+    /**
+     * Envía la factura de una venta recibida por la ingesta en streaming.
+     * Los productos se copian al body desde el spool, sin volver a serializarlos.
+     * 
+     * @param saleId ID de la venta (para correlacionar eventos)
+     * @param spool Venta validada con los productos en disco
+     * @param pdfBytes Bytes del PDF generado
+     * @return true si se aceptó la petición (202), false en caso contrario
+     */
+    public boolean sendInvoiceEmail(Long saleId, SaleSpool spool, byte[] pdfBytes) {
+        return sendInvoiceEmail(saleId, pdfBytes, (pdfFields, headers) -> {
+            SaleSpool.Body body = spool.body(objectMapper, pdfFields);
+            return streamingClient.post(emailServiceUrl + "/send-invoice", headers, body, body.contentLength());
+        });
+    }
+
+    private boolean sendInvoiceEmail(Long saleId, byte[] pdfBytes,
+                                     BiFunction<Map<String, Object>, HttpHeaders, ResponseEntity<?>> exchange) {
+        EmailCallEvent event = new EmailCallEvent();
+        event.begin();
+        event.outcome = "ERROR";
+        long startNanos = System.nanoTime();
+        String reference = null;
+        try {
+            Map<String, Object> pdfFields = new LinkedHashMap<>();
+            reference = claimCheckEnabled ? claimCheckStore.put(pdfBytes) : null;
+            event.claimCheck = reference != null;
+            if (reference != null) {
+                pdfFields.put("pdfUrl", orchestratorPublicUrl + PdfClaimController.CLAIM_PATH + reference);
+            } else {
+                pdfFields.put("pdfBase64", java.util.Base64.getEncoder().encodeToString(pdfBytes));
+            }
             
             // Configurar headers con API Key
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("X-API-Key", emailServiceApiKey);
             
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-            
             System.out.println("📧 Enviando petición asíncrona al servicio de email...");
             
-            ResponseEntity<String> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                request,
-                String.class
-            );
+            ResponseEntity<?> response = exchange.apply(pdfFields, headers);
+            HttpStatusCode status = response.getStatusCode();
+            SaleTrace.recordServerTiming("email-service", startNanos, response.getHeaders().getFirst("Server-Timing"));
             
             // HTTP 202 = Aceptado, se procesará en segundo plano
-            if (response.getStatusCode() == HttpStatus.ACCEPTED) {
+            if (status == HttpStatus.ACCEPTED) {
                 System.out.println("✅ Email aceptado para envío (procesamiento asíncrono)");
+                event.outcome = "OK";
                 return true;
             } else {
-                System.out.println("⚠️ Respuesta inesperada del servicio de email: " + response.getStatusCode());
+                System.out.println("⚠️ Respuesta inesperada del servicio de email: " + status);
+                event.outcome = "REJECTED";
                 return false;
             }
             
@@ -78,6 +144,17 @@ public class EmailServiceClient {
             System.err.println("⚠️ Error al comunicarse con servicio de email (no crítico): " + e.getMessage());
             // PATRON: Aquí se podría implementar un Dead Letter Queue para reintentos
             return false;
+        } finally {
+            if (reference != null && !"OK".equals(event.outcome)) {
+                // Nadie va a descargar el PDF: se libera su espacio en vez de esperar el TTL
+                claimCheckStore.release(reference);
+            }
+            SaleTrace.record("email", startNanos, event.outcome);
+            if (event.shouldCommit()) {
+                event.saleId = saleId != null ? saleId : 0;
+                event.pdfBytes = pdfBytes.length;
+                event.commit();
+            }
         }
     }
 }
\ No newline at end of file
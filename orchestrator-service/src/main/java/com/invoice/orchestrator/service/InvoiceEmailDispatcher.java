@@ -0,0 +1,147 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Encola el envío de la factura por email como última etapa de la saga.
+ * 
+ * El envío corre en el pool "emailExecutor" y al terminar marca la venta como
+ * EMAIL_SENT o EMAIL_FAILED. Una venta que no llega a encolarse (cola llena o
+ * reinicio) queda en INVOICED y la retoma {@link SaleRecoveryService}.
+ * 
+ * Cada envío tiene su propio deadline (services.email.deadline-ms) contado desde
+ * que se encola: si vence esperando en la cola, el envío se abandona como
+ * EMAIL_FAILED y lo reintenta la recuperación.
+ * 
+ * La {@link SaleTrace} de la petición acompaña al envío: se registran la espera
+ * en la cola ("email-queue"), la llamada y el cambio de estado ("email-status").
+ */
+@Service
+public class InvoiceEmailDispatcher {
+
+    private final EmailServiceClient emailServiceClient;
+    private final SaleStatusService statusService;
+    private final ThreadPoolTaskExecutor emailExecutor;
+    private final DeadlineMetrics deadlineMetrics;
+    private final Set<Long> queuedSales = ConcurrentHashMap.newKeySet();
+
+    @Value("${services.email.deadline-ms:30000}")
+    private long emailDeadlineMs;
+
+    public InvoiceEmailDispatcher(EmailServiceClient emailServiceClient,
+                                  SaleStatusService statusService,
+                                  @Qualifier("emailExecutor") ThreadPoolTaskExecutor emailExecutor,
+                                  DeadlineMetrics deadlineMetrics) {
+        this.emailServiceClient = emailServiceClient;
+        this.statusService = statusService;
+        this.emailExecutor = emailExecutor;
+        this.deadlineMetrics = deadlineMetrics;
+    }
+
+    /**
+     * Encola el envío del email de una venta facturada.
+     * 
+     * @param saleId ID de la venta (en INVOICED o EMAIL_FAILED)
+     * @param fromStatus Estado actual de la venta
+     * @param saleRequest Datos de la venta
+     * @param pdfBytes PDF a adjuntar
+     * @return true si se encoló, false si la cola está llena o ya estaba encolada
+     */
+    public boolean enqueue(Long saleId, SaleStatus fromStatus, SaleRequest saleRequest, byte[] pdfBytes) {
+        return enqueue(saleId, fromStatus,
+            () -> emailServiceClient.sendInvoiceEmail(saleId, saleRequest, pdfBytes), null);
+    }
+
+    /**
+     * Encola el envío del email de una venta recibida por la ingesta en streaming.
+     * El envío toma su propia referencia al spool y la libera al terminar.
+     * 
+     * @param saleId ID de la venta (en INVOICED)
+     * @param fromStatus Estado actual de la venta
+     * @param spool Venta con los productos en disco
+     * @param pdfBytes PDF a adjuntar
+     * @return true si se encoló, false si la cola está llena o ya estaba encolada
+     */
+    public boolean enqueue(Long saleId, SaleStatus fromStatus, SaleSpool spool, byte[] pdfBytes) {
+        spool.retain();
+        boolean queued = enqueue(saleId, fromStatus,
+            () -> emailServiceClient.sendInvoiceEmail(saleId, spool, pdfBytes), spool::close);
+        if (!queued) {
+            spool.close();
+        }
+        return queued;
+    }
+
+    private boolean enqueue(Long saleId, SaleStatus fromStatus, Supplier<Boolean> sendCall, Runnable onDone) {
+        if (!queuedSales.add(saleId)) {
+            return false;
+        }
+        Deadline deadline = Deadline.afterMillis(emailDeadlineMs);
+        SaleTrace trace = SaleTrace.current();
+        long enqueuedAt = System.nanoTime();
+        try {
+            emailExecutor.execute(() -> SaleTrace.callWith(trace, () -> {
+                SaleTrace.record("email-queue", enqueuedAt, "OK");
+                send(saleId, fromStatus, sendCall, onDone, deadline);
+                return null;
+            }));
+            return true;
+        } catch (TaskRejectedException e) {
+            queuedSales.remove(saleId);
+            System.out.println("⚠️ Cola de emails llena, la venta " + saleId + " se reintentará en la recuperación");
+            return false;
+        }
+    }
+
+    /**
+     * @return true si la venta tiene un envío de email encolado o en curso
+     */
+    public boolean isQueued(Long saleId) {
+        return queuedSales.contains(saleId);
+    }
+
+    public int getQueueSize() {
+        return emailExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return emailExecutor.getActiveCount();
+    }
+
+    public int getPoolSize() {
+        return emailExecutor.getMaxPoolSize();
+    }
+
+    private void send(Long saleId, SaleStatus fromStatus, Supplier<Boolean> sendCall, Runnable onDone,
+                      Deadline deadline) {
+        try {
+            if (deadline.isExpired()) {
+                deadlineMetrics.recordAbandoned("email");
+                System.out.println("⌛ Email de la venta " + saleId + " abandonado: deadline agotado en la cola");
+                statusService.transition(saleId, fromStatus, SaleStatus.EMAIL_FAILED);
+                return;
+            }
+            boolean accepted = Deadline.callWith(deadline, sendCall);
+            long transitionStart = System.nanoTime();
+            statusService.transition(saleId, fromStatus, accepted ? SaleStatus.EMAIL_SENT : SaleStatus.EMAIL_FAILED);
+            SaleTrace.record("email-status", transitionStart, accepted ? "OK" : "FAILED");
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al enviar email de la venta " + saleId + ": " + e.getMessage());
+            statusService.transition(saleId, fromStatus, SaleStatus.EMAIL_FAILED);
+        } finally {
+            queuedSales.remove(saleId);
+            if (onDone != null) {
+                onDone.run();
+            }
+        }
+    }
+}
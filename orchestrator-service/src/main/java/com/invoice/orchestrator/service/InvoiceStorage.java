@@ -0,0 +1,58 @@
+package com.invoice.orchestrator.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Almacenamiento de PDFs de factura en disco: un archivo {id}.pdf por venta
+ * en invoices.storage-dir.
+ *
+ * La escritura es atómica (archivo temporal + rename), así que un lector nunca
+ * ve un PDF a medio escribir y un reinicio a mitad de escritura no deja
+ * archivos corruptos con el nombre final.
+ */
+@Component
+public class InvoiceStorage {
+
+    private final Path directory;
+
+    public InvoiceStorage(@Value("${invoices.storage-dir:./data/invoices}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Guarda (o reemplaza) el PDF de una venta.
+     *
+     * @param saleId ID de la venta
+     * @param pdfBytes Contenido del PDF
+     * @throws UncheckedIOException Si no se puede escribir
+     */
+    public void save(Long saleId, byte[] pdfBytes) {
+        try {
+            Files.createDirectories(directory);
+            Path target = pathOf(saleId);
+            Path temp = Files.createTempFile(directory, saleId + "-", ".tmp");
+            try {
+                Files.write(temp, pdfBytes);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al guardar el PDF de la venta " + saleId, e);
+        }
+    }
+
+    /**
+     * @return Ruta del PDF de la venta (exista o no)
+     */
+    public Path pathOf(Long saleId) {
+        return directory.resolve(saleId + ".pdf");
+    }
+}
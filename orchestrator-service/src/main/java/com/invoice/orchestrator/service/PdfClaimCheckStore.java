@@ -0,0 +1,187 @@
+package com.invoice.orchestrator.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Almacén temporal de PDFs para el patrón Claim-Check.
+ *
+ * En lugar de enviar el PDF completo en base64 al servicio de email, el
+ * orquestador guarda los bytes aquí y envía solo una referencia firmada
+ * (token + expiración + HMAC). El servicio de email descarga el binario
+ * con esa referencia mientras no haya expirado.
+ *
+ * El servicio de email descarga cada PDF una sola vez (Nodemailer lo lee como
+ * stream al armar el adjunto), así que la entrada se libera apenas se escribe
+ * completa la descarga; la expiración solo limpia las que nunca se descargaron.
+ * El almacén se acota por bytes totales (claim-check.max-bytes): la reserva se
+ * hace con un único incremento atómico antes de guardar.
+ *
+ * Formato de la referencia: {token}.{expiraEpochSegundos}.{firmaBase64Url}
+ */
+@Service
+public class PdfClaimCheckStore {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder URL_DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, StoredPdf> store = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec signingKey;
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final long ttlSeconds;
+    private final long maxBytes;
+
+    public PdfClaimCheckStore(@Value("${claim-check.secret:}") String secret,
+                              @Value("${claim-check.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${claim-check.max-bytes:67108864}") long maxBytes) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            // Sin secreto configurado se genera uno por proceso: las referencias
+            // solo son válidas mientras vive esta instancia (igual que el almacén)
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Guarda el PDF y retorna una referencia firmada con expiración.
+     *
+     * @param pdfBytes Bytes del PDF (no se copian)
+     * @return Referencia firmada, o null si el almacén está lleno
+     */
+    public String put(byte[] pdfBytes) {
+        // Reserva atómica: si no entra se devuelve lo reservado y se usa envío inline
+        if (storedBytes.addAndGet(pdfBytes.length) > maxBytes) {
+            storedBytes.addAndGet(-pdfBytes.length);
+            System.out.println("⚠️ Almacén claim-check lleno (" + maxBytes + " bytes), se usará envío inline");
+            return null;
+        }
+
+        byte[] tokenBytes = new byte[16];
+        random.nextBytes(tokenBytes);
+        String token = URL_ENCODER.encodeToString(tokenBytes);
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+
+        store.put(token, new StoredPdf(pdfBytes, expiresAt));
+        return token + "." + expiresAt + "." + sign(token + "." + expiresAt);
+    }
+
+    /**
+     * Resuelve una referencia firmada a los bytes del PDF.
+     * Valida la firma en tiempo constante y la expiración.
+     *
+     * @param reference Referencia recibida del servicio de email
+     * @return Bytes del PDF, o null si la referencia es inválida o expiró
+     */
+    public byte[] resolve(String reference) {
+        String[] parts = reference.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        String signedPart = parts[0] + "." + parts[1];
+        byte[] expected = URL_DECODER.decode(sign(signedPart));
+        byte[] provided;
+        try {
+            provided = URL_DECODER.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(expected, provided)) {
+            return null;
+        }
+
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt < System.currentTimeMillis() / 1000) {
+            remove(parts[0]);
+            return null;
+        }
+
+        StoredPdf stored = store.get(parts[0]);
+        return stored != null ? stored.bytes() : null;
+    }
+
+    /**
+     * Libera el PDF de una referencia ya descargada por completo.
+     * Llamar solo después de {@link #resolve(String)} exitoso.
+     *
+     * @param reference Referencia firmada
+     */
+    public void release(String reference) {
+        int dot = reference.indexOf('.');
+        if (dot > 0) {
+            remove(reference.substring(0, dot));
+        }
+    }
+
+    /**
+     * Elimina periódicamente los PDFs cuya referencia expiró sin ser descargada.
+     */
+    @Scheduled(fixedDelayString = "${claim-check.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis() / 1000;
+        int removed = 0;
+        for (Map.Entry<String, StoredPdf> entry : store.entrySet()) {
+            if (entry.getValue().expiresAt() < now && store.remove(entry.getKey(), entry.getValue())) {
+                storedBytes.addAndGet(-entry.getValue().bytes().length);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            System.out.println("🧹 Claim-check: " + removed + " PDFs expirados eliminados");
+        }
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * @return Bytes de PDF retenidos en este momento
+     */
+    public long getStoredBytes() {
+        return storedBytes.get();
+    }
+
+    private void remove(String token) {
+        StoredPdf removed = store.remove(token);
+        if (removed != null) {
+            storedBytes.addAndGet(-removed.bytes().length);
+        }
+    }
+
+    private String sign(String data) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return URL_ENCODER.encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar la referencia claim-check", e);
+        }
+    }
+
+    private record StoredPdf(byte[] bytes, long expiresAt) {}
+}
@@ -0,0 +1,256 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.DeadlineExceededException;
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.security.ApiClientRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Cola justa ponderada (Weighted Fair Queuing) delante de la generación de PDF.
+ * 
+ * Limita las llamadas concurrentes al servicio de PDF a services.pdf.max-concurrency.
+ * Cuando no hay cupo, cada petición recibe una etiqueta de fin virtual
+ * (inicio + 1/peso del cliente) y los cupos liberados se entregan a la etiqueta
+ * menor. Así un cliente de carga masiva con peso bajo no puede acaparar el
+ * servicio de PDF frente a clientes interactivos con peso alto.
+ * 
+ * La espera en cola se acota también por el {@link Deadline} de la petición:
+ * no tiene sentido esperar turno para un PDF que el cliente ya no recibirá.
+ */
+@Service
+public class PdfGenerationScheduler {
+
+    private final ApiClientRegistry clientRegistry;
+    private final int maxConcurrency;
+    private final int maxQueuePerClient;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+        Comparator.comparingDouble((Waiter w) -> w.finishTag).thenComparingLong(w -> w.sequence));
+    private final Map<String, ClientQueue> queues = new ConcurrentHashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int inFlight;
+
+    public PdfGenerationScheduler(ApiClientRegistry clientRegistry,
+                                  @Value("${services.pdf.max-concurrency:4}") int maxConcurrency,
+                                  @Value("${services.pdf.max-queue-per-client:100}") int maxQueuePerClient,
+                                  @Value("${services.pdf.queue-timeout-ms:30000}") long queueTimeoutMs) {
+        this.clientRegistry = clientRegistry;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueuePerClient = maxQueuePerClient;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+    }
+
+    /**
+     * Ejecuta la tarea cuando el cliente obtiene turno en la cola justa.
+     * La tarea corre en el hilo que llama; este método bloquea hasta obtener cupo.
+     * 
+     * @param clientName Cliente que origina la petición
+     * @param task Llamada al servicio de PDF
+     * @return Resultado de la tarea
+     * @throws ServiceOverloadedException Si la cola del cliente está llena o se agota la espera
+     * @throws DeadlineExceededException Si el deadline de la petición vence esperando turno
+     */
+    public <T> T execute(String clientName, Supplier<T> task) {
+        acquire(clientName);
+        try {
+            return task.get();
+        } finally {
+            release();
+        }
+    }
+
+    private void acquire(String clientName) {
+        ClientQueue queue = queues.computeIfAbsent(clientName, ClientQueue::new);
+        long startNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrency && waiting.isEmpty()) {
+                inFlight++;
+                queue.recordAdmission(0);
+                return;
+            }
+            if (queue.depth >= maxQueuePerClient) {
+                queue.rejected++;
+                throw new ServiceOverloadedException(
+                    "Cola de generación de PDF llena para el cliente " + clientName, 1);
+            }
+
+            double startTag = Math.max(virtualTime, queue.lastFinishTag);
+            Waiter waiter = new Waiter(queue, startTag,
+                startTag + 1.0 / clientRegistry.weightOf(clientName), sequence++, lock.newCondition());
+            queue.lastFinishTag = waiter.finishTag;
+            queue.depth++;
+            waiting.add(waiter);
+
+            Deadline deadline = Deadline.current();
+            boolean deadlineBound = deadline != null && deadline.remainingNanos() < queueTimeoutNanos;
+            long remaining = deadlineBound ? deadline.remainingNanos() : queueTimeoutNanos;
+            while (!waiter.granted) {
+                if (remaining <= 0) {
+                    abandon(waiter);
+                    if (deadlineBound) {
+                        throw new DeadlineExceededException("pdf-queue");
+                    }
+                    throw new ServiceOverloadedException(
+                        "Tiempo de espera agotado en la cola de generación de PDF", 1);
+                }
+                try {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    abandon(waiter);
+                    throw new IllegalStateException("Espera de generación de PDF interrumpida", e);
+                }
+            }
+            queue.recordAdmission(System.nanoTime() - startNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void abandon(Waiter waiter) {
+        if (waiting.remove(waiter)) {
+            waiter.queue.depth--;
+            waiter.queue.rejected++;
+        } else if (waiter.granted) {
+            // El cupo llegó justo al expirar: se devuelve para el siguiente
+            releaseLocked();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            releaseLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseLocked() {
+        Waiter next = waiting.poll();
+        if (next == null) {
+            inFlight--;
+            return;
+        }
+        // El cupo pasa directamente al siguiente según su etiqueta virtual
+        virtualTime = next.startTag;
+        next.queue.depth--;
+        next.granted = true;
+        next.condition.signal();
+    }
+
+    /**
+     * Métricas de la cola: llamadas en curso y, por cliente, profundidad de cola
+     * y tiempos de espera.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        Map<String, Object> clients = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            snapshot.put("inFlight", inFlight);
+            snapshot.put("maxConcurrency", maxConcurrency);
+            snapshot.put("queueDepth", waiting.size());
+            queues.values().forEach(queue -> clients.put(queue.name, queue.toMap(clientRegistry.weightOf(queue.name))));
+        } finally {
+            lock.unlock();
+        }
+        snapshot.put("clients", clients);
+        return snapshot;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Estado y estadísticas por cliente. Se modifica solo con el lock tomado.
+     */
+    private static final class ClientQueue {
+
+        private final String name;
+        private double lastFinishTag;
+        private int depth;
+        private long admitted;
+        private long queued;
+        private long rejected;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        private ClientQueue(String name) {
+            this.name = name;
+        }
+
+        private void recordAdmission(long waitNanos) {
+            admitted++;
+            if (waitNanos > 0) {
+                queued++;
+                totalWaitNanos += waitNanos;
+                maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+            }
+        }
+
+        private Map<String, Object> toMap(int weight) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("weight", weight);
+            map.put("queueDepth", depth);
+            map.put("admitted", admitted);
+            map.put("queued", queued);
+            map.put("rejected", rejected);
+            map.put("avgWaitMs", queued > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / queued) : 0);
+            map.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            return map;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final ClientQueue queue;
+        private final double startTag;
+        private final double finishTag;
+        private final long sequence;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(ClientQueue queue, double startTag, double finishTag, long sequence, Condition condition) {
+            this.queue = queue;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.RegenerationJob;
+import com.invoice.orchestrator.model.entity.RegenerationJobStatus;
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.RegenerationJobRepository;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Regeneración masiva de PDFs de ventas existentes (cambio de plantilla o
+ * pérdida del almacenamiento), sin crear ventas nuevas.
+ *
+ * - Recorre las ventas facturadas por rango de IDs en lotes (paginación por keyset).
+ * - Reconstruye cada SaleRequest desde el JSON de productos ({@link SaleMapper}).
+ * - Genera los PDFs con paralelismo acotado a través de la cola justa de PDF
+ *   con el cliente "regeneration", de modo que el tráfico interactivo conserva
+ *   su parte de la capacidad del servicio de PDF.
+ * - Guarda un checkpoint (lastCompletedId) al terminar cada lote y reanuda los
+ *   trabajos RUNNING al arrancar la aplicación.
+ * - El checkpoint avanza aunque haya ventas con error; sus IDs quedan en el
+ *   trabajo (acotados) y {@link #retryFailed} lanza otro trabajo solo con ellos.
+ *
+ * Las ventas ya archivadas ({@link SaleArchive}) se leen del archivo: el rango
+ * de IDs se recorre igual sin importar en qué nivel esté cada venta.
+ *
+ * Solo hay un trabajo en ejecución a la vez.
+ */
+@Service
+public class PdfRegenerationService {
+
+    /** Cliente del reparto justo de PDF para la regeneración. */
+    public static final String REGENERATION_CLIENT = "regeneration";
+
+    // Solo las ventas que llegaron a facturarse tienen PDF
+    private static final Set<SaleStatus> INVOICED_STATUSES =
+        EnumSet.of(SaleStatus.INVOICED, SaleStatus.EMAIL_SENT, SaleStatus.EMAIL_FAILED);
+
+    private static final int MAX_OVERLOAD_RETRIES = 5;
+
+    private final SaleRepository saleRepository;
+    private final SaleArchive saleArchive;
+    private final RegenerationJobRepository jobRepository;
+    private final SaleMapper saleMapper;
+    private final PdfServiceClient pdfServiceClient;
+    private final PdfGenerationScheduler pdfScheduler;
+    private final InvoiceStorage invoiceStorage;
+    private final ThreadPoolTaskExecutor regenerationExecutor;
+
+    @Value("${regeneration.max-parallelism:4}")
+    private int maxParallelism;
+
+    @Value("${regeneration.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    // Estado en memoria del trabajo activo (progreso y throughput)
+    private volatile ActiveJob active;
+
+    public PdfRegenerationService(SaleRepository saleRepository,
+                                  SaleArchive saleArchive,
+                                  RegenerationJobRepository jobRepository,
+                                  SaleMapper saleMapper,
+                                  PdfServiceClient pdfServiceClient,
+                                  PdfGenerationScheduler pdfScheduler,
+                                  InvoiceStorage invoiceStorage,
+                                  @Qualifier("regenerationExecutor") ThreadPoolTaskExecutor regenerationExecutor) {
+        this.saleRepository = saleRepository;
+        this.saleArchive = saleArchive;
+        this.jobRepository = jobRepository;
+        this.saleMapper = saleMapper;
+        this.pdfServiceClient = pdfServiceClient;
+        this.pdfScheduler = pdfScheduler;
+        this.invoiceStorage = invoiceStorage;
+        this.regenerationExecutor = regenerationExecutor;
+    }
+
+    /**
+     * Inicia un trabajo de regeneración.
+     *
+     * @param fromId Primer ID (inclusive), null = 1
+     * @param toId Último ID (inclusive), null = mayor ID actual
+     * @param batchSize Ventas por lote y por checkpoint
+     * @param parallelism PDFs en paralelo (acotado por regeneration.max-parallelism)
+     * @return Trabajo creado
+     * @throws IllegalStateException Si ya hay un trabajo en ejecución
+     */
+    public synchronized Map<String, Object> start(Long fromId, Long toId, int batchSize, int parallelism) {
+        if (active != null) {
+            throw new IllegalStateException("Ya hay un trabajo de regeneración en ejecución: " + active.jobId);
+        }
+        long from = fromId != null ? Math.max(1, fromId) : 1;
+        Long maxId = saleRepository.findMaxId();
+        long to = toId != null ? toId : Math.max(maxId != null ? maxId : 0, saleArchive.getMaxArchivedId());
+        int batch = Math.max(1, Math.min(batchSize, maxBatchSize));
+        int threads = Math.max(1, Math.min(parallelism, maxParallelism));
+        long total = saleRepository.countByIdGreaterThanAndIdLessThanEqualAndStatusIn(from - 1, to, INVOICED_STATUSES)
+            + saleArchive.count(from - 1, Math.min(to, saleArchive.getMaxArchivedId()), INVOICED_STATUSES);
+
+        RegenerationJob job = jobRepository.save(new RegenerationJob(from, to, batch, threads, total));
+        System.out.println("🔁 Trabajo de regeneración " + job.getId() + " iniciado: IDs " + from + ".." + to
+            + " (" + total + " ventas, lotes de " + batch + ", paralelismo " + threads + ")");
+        launch(job);
+        return toMap(job);
+    }
+
+    /**
+     * Inicia un trabajo que reintenta solo las ventas con error de otro trabajo.
+     *
+     * @param jobId Trabajo terminado con ventas con error
+     * @return Trabajo creado, o null si el trabajo no existe
+     * @throws IllegalStateException Si ya hay un trabajo en ejecución
+     * @throws IllegalArgumentException Si el trabajo no tiene IDs con error guardados
+     */
+    public synchronized Map<String, Object> retryFailed(Long jobId) {
+        if (active != null) {
+            throw new IllegalStateException("Ya hay un trabajo de regeneración en ejecución: " + active.jobId);
+        }
+        RegenerationJob source = jobRepository.findById(jobId).orElse(null);
+        if (source == null) {
+            return null;
+        }
+        List<Long> failedIds = source.getFailedIds();
+        if (failedIds.isEmpty()) {
+            throw new IllegalArgumentException("El trabajo " + jobId + " no tiene ventas con error para reintentar");
+        }
+
+        RegenerationJob job = new RegenerationJob(failedIds.get(0), failedIds.get(failedIds.size() - 1),
+            source.getBatchSize(), source.getParallelism(), failedIds.size());
+        job.setRetryOfJobId(source.getId());
+        job = jobRepository.save(job);
+        System.out.println("🔁 Trabajo de regeneración " + job.getId() + " iniciado: reintento de "
+            + failedIds.size() + " ventas con error del trabajo " + jobId);
+        launch(job);
+        return toMap(job);
+    }
+
+    /**
+     * Reanuda los trabajos que estaban en ejecución antes del reinicio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeRunningJobs() {
+        for (RegenerationJob job : jobRepository.findByStatusOrderByIdAsc(RegenerationJobStatus.RUNNING)) {
+            if (active == null) {
+                System.out.println("🔁 Reanudando trabajo de regeneración " + job.getId()
+                    + " desde el ID " + (job.getLastCompletedId() + 1));
+                launch(job);
+            } else {
+                // Solo uno a la vez: los demás se marcan como fallidos
+                job.setStatus(RegenerationJobStatus.FAILED);
+                job.setLastError("Otro trabajo de regeneración se reanudó primero");
+                job.setFinishedAt(LocalDateTime.now());
+                jobRepository.save(job);
+            }
+        }
+    }
+
+    /**
+     * Solicita la cancelación del trabajo. El lote en curso termina y se guarda su checkpoint.
+     *
+     * @return true si el trabajo estaba en ejecución
+     */
+    public synchronized boolean cancel(Long jobId) {
+        ActiveJob current = active;
+        if (current == null || !current.jobId.equals(jobId)) {
+            return false;
+        }
+        current.cancelled = true;
+        return true;
+    }
+
+    /**
+     * @return Progreso y throughput del trabajo, o null si no existe
+     */
+    public Map<String, Object> status(Long jobId) {
+        return jobRepository.findById(jobId).map(this::toMap).orElse(null);
+    }
+
+    /**
+     * @return Progreso del último trabajo, o null si no hubo ninguno
+     */
+    public Map<String, Object> latest() {
+        return jobRepository.findTopByOrderByIdDesc().map(this::toMap).orElse(null);
+    }
+
+    /**
+     * Siguiente lote del rango: primero del archivo (IDs ya archivados) y
+     * luego de la tabla de ventas. En un reintento, el lote sale de los IDs
+     * con error del trabajo original.
+     */
+    private List<Sale> nextBatch(RegenerationJob job, List<Long> retryIds) {
+        if (retryIds != null) {
+            return nextRetryBatch(job, retryIds);
+        }
+        long archivedUpTo = Math.min(job.getToId(), saleArchive.getMaxArchivedId());
+        if (job.getLastCompletedId() < archivedUpTo) {
+            List<Sale> archived = saleArchive.findRange(job.getLastCompletedId(), archivedUpTo,
+                INVOICED_STATUSES, job.getBatchSize());
+            if (!archived.isEmpty()) {
+                return archived;
+            }
+            // No quedan ventas facturadas archivadas en el rango: se avanza el checkpoint
+            job.setLastCompletedId(archivedUpTo);
+        }
+        return saleRepository.findByIdGreaterThanAndIdLessThanEqualAndStatusInOrderByIdAsc(
+            job.getLastCompletedId(), job.getToId(), INVOICED_STATUSES, PageRequest.ofSize(job.getBatchSize()));
+    }
+
+    /**
+     * Siguiente lote de IDs a reintentar. Las ventas que ya no existen o dejaron
+     * de estar facturadas se saltan avanzando el checkpoint.
+     */
+    private List<Sale> nextRetryBatch(RegenerationJob job, List<Long> retryIds) {
+        while (true) {
+            List<Long> ids = retryIds.stream()
+                .filter(id -> id > job.getLastCompletedId())
+                .limit(job.getBatchSize())
+                .toList();
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            List<Sale> batch = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                saleRepository.findById(id)
+                    .or(() -> saleArchive.find(id))
+                    .filter(sale -> INVOICED_STATUSES.contains(sale.getStatus()))
+                    .ifPresent(batch::add);
+            }
+            if (!batch.isEmpty()) {
+                return batch;
+            }
+            job.setLastCompletedId(ids.get(ids.size() - 1));
+        }
+    }
+
+    private void launch(RegenerationJob job) {
+        ActiveJob current = new ActiveJob(job.getId());
+        active = current;
+        regenerationExecutor.execute(() -> run(job, current));
+    }
+
+    private void run(RegenerationJob job, ActiveJob current) {
+        ExecutorService workers = Executors.newFixedThreadPool(job.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-regeneration-" + job.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Long> retryIds = job.getRetryOfJobId() != null
+                ? jobRepository.findById(job.getRetryOfJobId()).map(RegenerationJob::getFailedIds).orElse(List.of())
+                : null;
+            while (!current.cancelled) {
+                List<Sale> batch = nextBatch(job, retryIds);
+                if (batch.isEmpty()) {
+                    finish(job, RegenerationJobStatus.COMPLETED, null);
+                    return;
+                }
+
+                List<CompletableFuture<String>> results = new ArrayList<>(batch.size());
+                for (Sale sale : batch) {
+                    results.add(CompletableFuture.supplyAsync(() -> regenerate(sale), workers));
+                }
+                long ok = 0;
+                List<Long> failedIds = new ArrayList<>();
+                String lastError = null;
+                for (int i = 0; i < results.size(); i++) {
+                    String error = results.get(i).join();
+                    if (error == null) {
+                        ok++;
+                    } else {
+                        failedIds.add(batch.get(i).getId());
+                        lastError = error;
+                    }
+                }
+                long ko = failedIds.size();
+
+                // Checkpoint del lote: las ventas con error quedan para un reintento
+                job.setLastCompletedId(batch.get(batch.size() - 1).getId());
+                job.setProcessed(job.getProcessed() + ok);
+                job.setFailed(job.getFailed() + ko);
+                job.addFailedIds(failedIds);
+                if (lastError != null) {
+                    job.setLastError(lastError);
+                }
+                job.setUpdatedAt(LocalDateTime.now());
+                jobRepository.save(job);
+                current.done.addAndGet(ok + ko);
+            }
+            finish(job, RegenerationJobStatus.CANCELLED, null);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Trabajo de regeneración " + job.getId() + " fallido: " + e.getMessage());
+            finish(job, RegenerationJobStatus.FAILED, e.getMessage());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Regenera y guarda el PDF de una venta.
+     *
+     * @return null si se regeneró, o el mensaje de error
+     */
+    private String regenerate(Sale sale) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                SaleRequest saleRequest = saleMapper.toSaleRequest(sale);
+                byte[] pdfBytes = pdfScheduler.execute(REGENERATION_CLIENT,
+                    () -> pdfServiceClient.generatePdf(sale.getId(), saleRequest));
+                invoiceStorage.save(sale.getId(), pdfBytes);
+                return null;
+            } catch (ServiceOverloadedException e) {
+                // Cola de PDF saturada: se cede el paso y se reintenta
+                if (attempt >= MAX_OVERLOAD_RETRIES) {
+                    return "Venta " + sale.getId() + ": " + e.getMessage();
+                }
+                sleep(e.getRetryAfterSeconds() * 1000L * attempt);
+            } catch (RuntimeException e) {
+                return "Venta " + sale.getId() + ": " + e.getMessage();
+            }
+        }
+    }
+
+    private synchronized void finish(RegenerationJob job, RegenerationJobStatus status, String error) {
+        job.setStatus(status);
+        if (error != null) {
+            job.setLastError(error);
+        }
+        job.setFinishedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getFinishedAt());
+        jobRepository.save(job);
+        active = null;
+        System.out.println("🏁 Trabajo de regeneración " + job.getId() + " terminado: " + status
+            + " (" + job.getProcessed() + " regeneradas, " + job.getFailed() + " con error)");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Regeneración interrumpida", e);
+        }
+    }
+
+    private Map<String, Object> toMap(RegenerationJob job) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", job.getId());
+        map.put("status", job.getStatus());
+        map.put("fromId", job.getFromId());
+        map.put("toId", job.getToId());
+        map.put("lastCompletedId", job.getLastCompletedId());
+        map.put("batchSize", job.getBatchSize());
+        map.put("parallelism", job.getParallelism());
+        map.put("total", job.getTotal());
+        map.put("processed", job.getProcessed());
+        map.put("failed", job.getFailed());
+        List<Long> failedIds = job.getFailedIds();
+        map.put("failedIds", failedIds);
+        map.put("failedIdsTruncated", job.getFailed() > failedIds.size());
+        map.put("retryOfJobId", job.getRetryOfJobId());
+        long done = job.getProcessed() + job.getFailed();
+        map.put("progress", job.getTotal() > 0 ? Math.min(1.0, (double) done / job.getTotal()) : 1.0);
+
+        ActiveJob current = active;
+        if (current != null && current.jobId.equals(job.getId())) {
+            // Throughput desde que este proceso tomó el trabajo (sin contar lo hecho antes de un reinicio)
+            double seconds = Math.max(0.001, (System.nanoTime() - current.startedNanos) / 1e9);
+            double perSecond = current.done.get() / seconds;
+            map.put("salesPerSecond", Math.round(perSecond * 100) / 100.0);
+            long remaining = Math.max(0, job.getTotal() - done);
+            map.put("etaSeconds", perSecond > 0 ? Math.round(remaining / perSecond) : null);
+            map.put("cancelRequested", current.cancelled);
+        } else if (job.getFinishedAt() != null) {
+            double seconds = Math.max(0.001, Duration.between(job.getCreatedAt(), job.getFinishedAt()).toMillis() / 1000.0);
+            map.put("salesPerSecond", Math.round(done / seconds * 100) / 100.0);
+        }
+        map.put("lastError", job.getLastError());
+        map.put("createdAt", job.getCreatedAt());
+        map.put("updatedAt", job.getUpdatedAt());
+        map.put("finishedAt", job.getFinishedAt());
+        return map;
+    }
+
+    /**
+     * Estado en memoria del trabajo en ejecución.
+     */
+    private static final class ActiveJob {
+
+        private final Long jobId;
+        private final long startedNanos = System.nanoTime();
+        private final AtomicLong done = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private ActiveJob(Long jobId) {
+            this.jobId = jobId;
+        }
+    }
+}
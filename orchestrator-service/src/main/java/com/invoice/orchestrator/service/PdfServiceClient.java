@@ -1,10 +1,16 @@
 package com.invoice.orchestrator.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.config.StreamingJsonClient;
+import com.invoice.orchestrator.exception.DeadlineExceededException;
 import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.monitoring.PdfCallEvent;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Cliente para comunicarse con el Microservicio B (Generación de PDF).
@@ -14,6 +20,8 @@ import org.springframework.web.client.RestTemplate;
 public class PdfServiceClient {
 
     private final RestTemplate restTemplate;
+    private final StreamingJsonClient streamingClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Value("${services.pdf.url}")
     private String pdfServiceUrl;
@@ -21,8 +29,9 @@ public class PdfServiceClient {
     @Value("${api.key.pdf-service}")
     private String pdfServiceApiKey;
 
-    public PdfServiceClient(RestTemplate restTemplate) {
+    public PdfServiceClient(RestTemplate restTemplate, StreamingJsonClient streamingClient) {
         this.restTemplate = restTemplate;
+        this.streamingClient = streamingClient;
     }
 
     /**
@@ -35,41 +44,80 @@ public class PdfServiceClient {
      * PATRON COMENTADO: Se podría implementar un Retry Pattern con backoff
      * exponencial para reintentar en caso de fallos transitorios.
      * 
+     * Emite un evento JFR {@link PdfCallEvent} con la duración, el tamaño y el resultado,
+     * y registra el tramo "pdf" (más los del header Server-Timing) en la {@link SaleTrace} activa.
+     * 
+     * @param saleId ID de la venta (para correlacionar eventos)
      * @param saleRequest Datos de la venta
      * @return Bytes del PDF generado
      * @throws RuntimeException Si hay error al generar el PDF
      */
-    public byte[] generatePdf(SaleRequest saleRequest) {
+    public byte[] generatePdf(Long saleId, SaleRequest saleRequest) {
+        return generatePdf(saleId, saleRequest.getProducts().size(), (headers) -> restTemplate.exchange(
+            pdfServiceUrl + "/generate-pdf",
+            HttpMethod.POST,
+            new HttpEntity<>(saleRequest, headers),
+            byte[].class
+        ));
+    }
+
+    /**
+     * Genera el PDF de una venta recibida por la ingesta en streaming.
+     * El body se escribe a la conexión desde el spool, sin volver a serializar
+     * los productos ni armar el body completo en memoria.
+     * 
+     * @param saleId ID de la venta (para correlacionar eventos)
+     * @param spool Venta validada con los productos en disco
+     * @return Bytes del PDF generado
+     * @throws RuntimeException Si hay error al generar el PDF
+     */
+    public byte[] generatePdf(Long saleId, SaleSpool spool) {
+        return generatePdf(saleId, spool.getLineItems(), (headers) -> {
+            SaleSpool.Body body = spool.body(objectMapper, Map.of());
+            return streamingClient.post(pdfServiceUrl + "/generate-pdf", headers, body, body.contentLength());
+        });
+    }
+
+    private byte[] generatePdf(Long saleId, int lineItems, Function<HttpHeaders, ResponseEntity<byte[]>> exchange) {
+        PdfCallEvent event = new PdfCallEvent();
+        event.begin();
+        event.outcome = "ERROR";
+        long startNanos = System.nanoTime();
         try {
-            String url = pdfServiceUrl + "/generate-pdf";
-            
             // Configurar headers con API Key
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("X-API-Key", pdfServiceApiKey);
             
-            HttpEntity<SaleRequest> request = new HttpEntity<>(saleRequest, headers);
-            
-            // PATRON: Aquí se configuraría un timeout para evitar esperas indefinidas
+            // Los timeouts de la llamada los acota el deadline de la petición
+            // (ver DeadlineAwareRequestFactory)
             System.out.println("📄 Llamando al servicio de PDF...");
             
-            ResponseEntity<byte[]> response = restTemplate.exchange(
-                url,
-                HttpMethod.POST,
-                request,
-                byte[].class
-            );
+            ResponseEntity<byte[]> response = exchange.apply(headers);
+            SaleTrace.recordServerTiming("pdf-service", startNanos, response.getHeaders().getFirst("Server-Timing"));
             
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 System.out.println("✅ PDF generado exitosamente");
+                event.responseBytes = response.getBody().length;
+                event.outcome = "OK";
                 return response.getBody();
             } else {
                 throw new RuntimeException("Error al generar PDF: respuesta vacía");
             }
             
+        } catch (DeadlineExceededException e) {
+            event.outcome = "DEADLINE";
+            throw e;
         } catch (Exception e) {
             System.err.println("❌ Error al comunicarse con servicio de PDF: " + e.getMessage());
             throw new RuntimeException("Error al generar PDF: " + e.getMessage(), e);
+        } finally {
+            SaleTrace.record("pdf", startNanos, event.outcome);
+            if (event.shouldCommit()) {
+                event.saleId = saleId != null ? saleId : 0;
+                event.lineItems = lineItems;
+                event.commit();
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.invoice.orchestrator.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decide si la réplica debe recibir tráfico (readiness), a diferencia de
+ * /health que solo indica que el proceso está vivo (liveness).
+ *
+ * La réplica deja de estar lista si:
+ * - El servicio de PDF o SQLite no responden (sondeo cacheado de {@link DependencyProbe})
+ * - El servicio de email no responde y readiness.require-email=true
+ * - Alguna señal de carga supera su umbral (ventas en curso, cola de PDF, cola de emails)
+ *
+ * Así el balanceador desvía el tráfico a réplicas sanas en lugar de que las
+ * peticiones esperen hasta agotar el timeout.
+ *
+ * Los motivos son códigos estables (ej. {@code pdf_unavailable}): /health/ready
+ * no requiere API Key, así que los mensajes de error, rutas y umbrales
+ * configurados solo se incluyen en la vista de administración.
+ */
+@Service
+public class ReadinessService {
+
+    private final DependencyProbe dependencyProbe;
+    private final SalesService salesService;
+    private final PdfGenerationScheduler pdfScheduler;
+    private final InvoiceEmailDispatcher emailDispatcher;
+
+    @Value("${readiness.require-email:false}")
+    private boolean requireEmail;
+
+    @Value("${readiness.max-in-flight-sales:50}")
+    private int maxInFlightSales;
+
+    @Value("${readiness.max-pdf-queue-depth:50}")
+    private int maxPdfQueueDepth;
+
+    @Value("${readiness.max-email-queue-size:400}")
+    private int maxEmailQueueSize;
+
+    public ReadinessService(DependencyProbe dependencyProbe,
+                            SalesService salesService,
+                            PdfGenerationScheduler pdfScheduler,
+                            InvoiceEmailDispatcher emailDispatcher) {
+        this.dependencyProbe = dependencyProbe;
+        this.salesService = salesService;
+        this.pdfScheduler = pdfScheduler;
+        this.emailDispatcher = emailDispatcher;
+    }
+
+    /**
+     * Evalúa la readiness con el estado cacheado de dependencias y la carga actual.
+     * No realiza llamadas remotas.
+     *
+     * @param includeDetails Si se incluyen el detalle de los errores y los umbrales
+     *                       (solo para /api/admin/readiness)
+     * @return Mapa con "ready", los motivos si no lo está, dependencias y carga
+     */
+    public Map<String, Object> evaluate(boolean includeDetails) {
+        long maxAgeMs = dependencyProbe.getMaxAgeMs();
+        List<String> reasons = new ArrayList<>();
+
+        if (!dependencyProbe.getPdfService().isUp(maxAgeMs)) {
+            reasons.add("pdf_unavailable");
+        }
+        if (!dependencyProbe.getDatabase().isUp(maxAgeMs)) {
+            reasons.add("database_unwritable");
+        }
+        if (requireEmail && !dependencyProbe.getEmailService().isUp(maxAgeMs)) {
+            reasons.add("email_unavailable");
+        }
+
+        int inFlightSales = salesService.getInFlightSales();
+        int pdfInFlight = pdfScheduler.getInFlight();
+        int pdfQueueDepth = pdfScheduler.getQueueDepth();
+        int emailQueueSize = emailDispatcher.getQueueSize();
+
+        if (inFlightSales > maxInFlightSales) {
+            reasons.add("in_flight_sales_over_threshold");
+        }
+        if (pdfQueueDepth > maxPdfQueueDepth) {
+            reasons.add("pdf_queue_over_threshold");
+        }
+        if (emailQueueSize > maxEmailQueueSize) {
+            reasons.add("email_queue_over_threshold");
+        }
+
+        Map<String, Object> dependencies = new LinkedHashMap<>();
+        dependencies.put("pdfService", dependencyProbe.getPdfService().toMap(maxAgeMs, includeDetails));
+        dependencies.put("emailService", dependencyProbe.getEmailService().toMap(maxAgeMs, includeDetails));
+        dependencies.put("database", dependencyProbe.getDatabase().toMap(maxAgeMs, includeDetails));
+
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("inFlightSales", inFlightSales);
+        load.put("pdfInFlight", pdfInFlight);
+        load.put("pdfUtilization", (double) pdfInFlight / pdfScheduler.getMaxConcurrency());
+        load.put("pdfQueueDepth", pdfQueueDepth);
+        load.put("emailActive", emailDispatcher.getActiveCount());
+        load.put("emailUtilization", (double) emailDispatcher.getActiveCount() / emailDispatcher.getPoolSize());
+        load.put("emailQueueSize", emailQueueSize);
+
+        Map<String, Object> readiness = new LinkedHashMap<>();
+        readiness.put("ready", reasons.isEmpty());
+        if (!reasons.isEmpty()) {
+            readiness.put("reasons", reasons);
+        }
+        readiness.put("dependencies", dependencies);
+        readiness.put("load", load);
+        if (includeDetails) {
+            Map<String, Object> thresholds = new LinkedHashMap<>();
+            thresholds.put("maxInFlightSales", maxInFlightSales);
+            thresholds.put("maxPdfQueueDepth", maxPdfQueueDepth);
+            thresholds.put("maxEmailQueueSize", maxEmailQueueSize);
+            thresholds.put("requireEmail", requireEmail);
+            readiness.put("thresholds", thresholds);
+        }
+        return readiness;
+    }
+}
@@ -0,0 +1,187 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mueve las ventas antiguas y cerradas de la base de datos al archivo
+ * ({@link SaleArchive}), para que la tabla caliente (y sus índices) no crezca
+ * indefinidamente.
+ *
+ * Una venta es archivable si tiene más de archive.min-age-days y su saga
+ * terminó: EMAIL_SENT, CANCELLED, o agotó los intentos de recuperación sin
+ * envío en curso. Se archiva por orden de ID y solo el prefijo archivable de
+ * cada lote, así que los IDs archivados forman siempre un rango contiguo
+ * [1, maxArchivedId] y el archivo se mantiene ordenado.
+ *
+ * Orden de cada lote: append al archivo con fsync y luego borrado en la base.
+ * Si el proceso se corta entre ambos pasos, la próxima corrida borra las filas
+ * que ya estaban archivadas (IDs <= maxArchivedId).
+ */
+@Service
+public class SaleArchivalService {
+
+    private final SaleRepository saleRepository;
+    private final SaleArchive saleArchive;
+    private final InvoiceEmailDispatcher emailDispatcher;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.min-age-days:90}")
+    private int minAgeDays;
+
+    @Value("${archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sales.recovery.max-attempts:3}")
+    private int maxRecoveryAttempts;
+
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunArchived;
+    private volatile long lastRunMillis;
+    private volatile String lastError;
+
+    public SaleArchivalService(SaleRepository saleRepository,
+                               SaleArchive saleArchive,
+                               InvoiceEmailDispatcher emailDispatcher) {
+        this.saleRepository = saleRepository;
+        this.saleArchive = saleArchive;
+        this.emailDispatcher = emailDispatcher;
+    }
+
+    /**
+     * Verifica que el archivo corresponda a esta base de datos.
+     *
+     * El archivado nunca incluye la venta de mayor ID, así que en una base
+     * consistente el mayor ID de la tabla supera al del archivo. Si no es así,
+     * la base se recreó (SQLite reutiliza los IDs) y el archivo se aparta para
+     * no mezclar ventas distintas con el mismo ID. Corre antes que los demás
+     * componentes que leen el archivo al arrancar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void checkConsistency() {
+        long archivedMax = saleArchive.getMaxArchivedId();
+        if (archivedMax == 0) {
+            return;
+        }
+        Long hotMax = saleRepository.findMaxId();
+        if (hotMax == null || hotMax <= archivedMax) {
+            saleArchive.reset("la base de datos no contiene ventas posteriores al ID archivado " + archivedMax);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}",
+               initialDelayString = "${archive.interval-ms:3600000}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runOnce();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error en el archivado de ventas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Archiva todas las ventas archivables en este momento.
+     *
+     * @return Resultado de la corrida
+     */
+    public synchronized Map<String, Object> runOnce() {
+        long start = System.currentTimeMillis();
+        long archived = 0;
+        try {
+            long watermark = saleArchive.getMaxArchivedId();
+            int leftovers = watermark > 0 ? saleRepository.deleteByIdRange(0L, watermark) : 0;
+            if (leftovers > 0) {
+                System.out.println("🗄️ Archivado: " + leftovers + " ventas ya archivadas borradas de la base");
+            }
+
+            Long hotMax = saleRepository.findMaxId();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+            while (hotMax != null) {
+                // Se excluye la venta de mayor ID: mientras exista, SQLite no reutiliza IDs archivados
+                List<Sale> batch = saleRepository.findByIdGreaterThanAndIdLessThanOrderByIdAsc(
+                    watermark, hotMax, PageRequest.ofSize(batchSize));
+                int eligible = 0;
+                while (eligible < batch.size() && isArchivable(batch.get(eligible), cutoff)) {
+                    eligible++;
+                }
+                if (eligible == 0) {
+                    break;
+                }
+
+                List<Sale> toArchive = batch.subList(0, eligible);
+                saleArchive.append(toArchive);
+                long lastId = toArchive.get(eligible - 1).getId();
+                saleRepository.deleteByIdRange(watermark, lastId);
+                watermark = lastId;
+                archived += eligible;
+
+                if (eligible < batch.size()) {
+                    break;
+                }
+            }
+            lastError = null;
+        } catch (RuntimeException e) {
+            lastError = e.getMessage();
+            throw e;
+        } finally {
+            lastRunAt = LocalDateTime.now();
+            lastRunArchived = archived;
+            lastRunMillis = System.currentTimeMillis() - start;
+        }
+
+        if (archived > 0) {
+            System.out.println("🗄️ Archivado: " + archived + " ventas movidas al archivo en " + lastRunMillis
+                + " ms (hasta el ID " + saleArchive.getMaxArchivedId() + ")");
+        }
+        return status();
+    }
+
+    private boolean isArchivable(Sale sale, LocalDateTime cutoff) {
+        if (!sale.getCreatedAt().isBefore(cutoff)) {
+            return false;
+        }
+        SaleStatus status = sale.getStatus();
+        if (status == SaleStatus.EMAIL_SENT || status == SaleStatus.CANCELLED) {
+            return true;
+        }
+        // Ventas que la recuperación ya no va a tocar (quedan para revisión manual)
+        return status != SaleStatus.PENDING
+            && sale.getRecoveryAttempts() >= maxRecoveryAttempts
+            && !emailDispatcher.isQueued(sale.getId());
+    }
+
+    /**
+     * @return Configuración, última corrida y estado del archivo
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("enabled", enabled);
+        map.put("minAgeDays", minAgeDays);
+        map.put("batchSize", batchSize);
+        map.put("lastRunAt", lastRunAt);
+        map.put("lastRunArchived", lastRunArchived);
+        map.put("lastRunMillis", lastRunMillis);
+        map.put("lastError", lastError);
+        map.put("archive", saleArchive.snapshot());
+        return map;
+    }
+}
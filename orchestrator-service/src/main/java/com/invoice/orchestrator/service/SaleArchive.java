@@ -0,0 +1,667 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Archivo frío de ventas: segmentos append-only de bloques comprimidos con un
+ * índice disperso por ID.
+ *
+ * Formato:
+ * - Segmentos {@code sales-<primerId>.seg} en archive.dir. Solo se agregan
+ *   bloques al final del último; al superar archive.segment-max-mb se abre otro.
+ * - Cada bloque agrupa ~archive.block-kb de ventas consecutivas por ID,
+ *   comprimidas con Deflate: cabecera de {@value #BLOCK_HEADER_BYTES} bytes
+ *   (magic, primer y último ID, registros, tamaños y CRC32) y el payload.
+ * - Los IDs crecen entre bloques, así que el índice guarda solo una entrada por
+ *   bloque (primer/último ID y posición) y se reconstruye al arrancar leyendo
+ *   las cabeceras.
+ *
+ * Buscar una venta es una búsqueda binaria en memoria, una lectura posicional
+ * y la descompresión de un solo bloque: la latencia no depende del tamaño del
+ * archivo. Un bloque a medio escribir por un corte se descarta al abrir.
+ */
+@Component
+public class SaleArchive {
+
+    private static final int BLOCK_MAGIC = 0x53414C42; // "SALB"
+    private static final int BLOCK_HEADER_BYTES = 36;
+    private static final String SEGMENT_PREFIX = "sales-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final DateTimeFormatter ORPHAN_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final int blockBytes;
+    private final long segmentMaxBytes;
+    private final int compressionLevel;
+
+    // Canales de solo lectura por segmento (las lecturas posicionales son thread-safe)
+    private final Map<Path, FileChannel> readers = new ConcurrentHashMap<>();
+
+    // Índice inmutable publicado tras cada append; los lectores no toman locks
+    private volatile Index index = Index.EMPTY;
+
+    // Segmento abierto para agregar bloques (protegido por this)
+    private FileChannel activeSegment;
+    private Path activePath;
+
+    public SaleArchive(@Value("${archive.dir:./data/archive}") String directory,
+                       @Value("${archive.block-kb:64}") int blockKb,
+                       @Value("${archive.segment-max-mb:256}") long segmentMaxMb,
+                       @Value("${archive.compression-level:6}") int compressionLevel) {
+        this.directory = Paths.get(directory);
+        this.blockBytes = Math.max(1, blockKb) * 1024;
+        this.segmentMaxBytes = Math.max(1, segmentMaxMb) * 1024 * 1024;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Reconstruye el índice leyendo las cabeceras de bloque de cada segmento.
+     * Si el último segmento termina en un bloque incompleto (corte durante un
+     * append), se trunca hasta el último bloque completo.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = listSegments();
+            Index loaded = Index.EMPTY;
+            for (int i = 0; i < segments.size(); i++) {
+                loaded = scanSegment(segments.get(i), loaded, i == segments.size() - 1);
+            }
+            index = loaded;
+            if (loaded.size > 0) {
+                System.out.println("🗄️ Archivo de ventas: " + segments.size() + " segmentos, "
+                    + loaded.size + " bloques, hasta el ID " + getMaxArchivedId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al abrir el archivo de ventas en " + directory, e);
+        }
+    }
+
+    private Index scanSegment(Path segment, Index loaded, boolean last) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        long previousLastId = loaded.size > 0 ? loaded.blocks[loaded.size - 1].lastId : 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+            while (position + BLOCK_HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                header.flip();
+                Block block = Block.read(segment, position, header);
+                if (block == null || position + BLOCK_HEADER_BYTES + block.compressedLength > size) {
+                    break;
+                }
+                if (block.firstId <= previousLastId) {
+                    throw new IllegalStateException("IDs fuera de orden en " + segment + " (posición " + position + ")");
+                }
+                blocks.add(block);
+                previousLastId = block.lastId;
+                position += BLOCK_HEADER_BYTES + block.compressedLength;
+            }
+            if (position < size) {
+                if (!last) {
+                    throw new IllegalStateException("Segmento dañado: " + segment + " (posición " + position + ")");
+                }
+                System.out.println("⚠️ Descartando bloque incompleto al final de " + segment.getFileName()
+                    + " (" + (size - position) + " bytes)");
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+        return loaded.append(blocks);
+    }
+
+    /**
+     * Agrega ventas al archivo. Al volver, los bloques están en disco (fsync)
+     * y visibles para las búsquedas.
+     *
+     * @param sales Ventas en orden de ID creciente, todas mayores a {@link #getMaxArchivedId()}
+     * @throws IllegalArgumentException Si los IDs no son crecientes
+     * @throws UncheckedIOException Si falla la escritura (el segmento queda como estaba)
+     */
+    public synchronized void append(List<Sale> sales) {
+        if (sales.isEmpty()) {
+            return;
+        }
+        long previousId = getMaxArchivedId();
+        for (Sale sale : sales) {
+            if (sale.getId() <= previousId) {
+                throw new IllegalArgumentException("Las ventas a archivar deben tener IDs crecientes mayores a " + previousId);
+            }
+            previousId = sale.getId();
+        }
+
+        List<Block> written = new ArrayList<>();
+        FileChannel channel = null;
+        long startSize = -1;
+        try {
+            channel = segmentFor(sales.get(0).getId());
+            startSize = channel.size();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(blockBytes + blockBytes / 4);
+            DataOutputStream out = new DataOutputStream(buffer);
+            int from = 0;
+            for (int i = 0; i < sales.size(); i++) {
+                writeRecord(out, sales.get(i));
+                if (buffer.size() >= blockBytes || i == sales.size() - 1) {
+                    written.add(writeBlock(channel, sales.get(from).getId(), sales.get(i).getId(),
+                        i - from + 1, buffer.toByteArray()));
+                    buffer.reset();
+                    from = i + 1;
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            rollback(channel, startSize);
+            throw new UncheckedIOException("Error al archivar ventas", e);
+        } catch (RuntimeException e) {
+            rollback(channel, startSize);
+            throw e;
+        }
+        index = index.append(written);
+    }
+
+    /**
+     * @param id ID de la venta
+     * @return Venta archivada, o vacío si no está en el archivo
+     */
+    public Optional<Sale> find(Long id) {
+        Index current = index;
+        int slot = current.blockFor(id);
+        if (slot < 0 || current.blocks[slot].lastId < id) {
+            return Optional.empty();
+        }
+        ByteBuffer records = readBlock(current.blocks[slot]);
+        while (records.hasRemaining()) {
+            long recordId = records.getLong();
+            int length = records.getInt();
+            if (recordId == id) {
+                return Optional.of(readSale(recordId, records));
+            }
+            records.position(records.position() + length);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Indica si el ID cae en el rango de algún bloque archivado. Solo consulta
+     * el índice (no descomprime): el archivado copia rangos contiguos de la
+     * tabla, así que un ID cubierto que no esté en el bloque nunca existió.
+     *
+     * @param id ID de la venta
+     * @return true si algún bloque cubre el ID
+     */
+    public boolean covers(long id) {
+        Index current = index;
+        int slot = current.blockFor(id);
+        return slot >= 0 && current.blocks[slot].lastId >= id;
+    }
+
+    /**
+     * Ventas archivadas con ID en (afterId, toId] y en los estados dados, en orden de ID.
+     *
+     * @param limit Máximo de ventas a retornar
+     */
+    public List<Sale> findRange(long afterId, long toId, Set<SaleStatus> statuses, int limit) {
+        List<Sale> result = new ArrayList<>();
+        scanRange(afterId, toId, statuses, sale -> {
+            result.add(sale);
+            return result.size() < limit;
+        });
+        return result;
+    }
+
+    /**
+     * Cantidad de ventas archivadas con ID en (afterId, toId] y en los estados dados.
+     * Descomprime los bloques del rango.
+     */
+    public long count(long afterId, long toId, Set<SaleStatus> statuses) {
+        long[] count = new long[1];
+        scanRange(afterId, toId, statuses, sale -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    private void scanRange(long afterId, long toId, Set<SaleStatus> statuses, SaleVisitor visitor) {
+        Index current = index;
+        int slot = Math.max(0, current.blockFor(afterId + 1));
+        for (; slot < current.size; slot++) {
+            Block block = current.blocks[slot];
+            if (block.firstId > toId) {
+                return;
+            }
+            if (block.lastId <= afterId) {
+                continue;
+            }
+            ByteBuffer records = readBlock(block);
+            while (records.hasRemaining()) {
+                long recordId = records.getLong();
+                int length = records.getInt();
+                if (recordId <= afterId) {
+                    records.position(records.position() + length);
+                    continue;
+                }
+                if (recordId > toId) {
+                    return;
+                }
+                Sale sale = readSale(recordId, records);
+                if (statuses.contains(sale.getStatus()) && !visitor.visit(sale)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Mayor ID archivado, o 0 si el archivo está vacío
+     */
+    public long getMaxArchivedId() {
+        Index current = index;
+        return current.size > 0 ? current.blocks[current.size - 1].lastId : 0;
+    }
+
+    /**
+     * Aparta el archivo actual (se renombra el directorio) y empieza uno vacío.
+     * Se usa cuando la base de datos se recreó y los IDs archivados ya no corresponden.
+     *
+     * @param reason Motivo (para el log)
+     */
+    public synchronized void reset(String reason) {
+        closeChannels();
+        index = Index.EMPTY;
+        try {
+            if (Files.exists(directory)) {
+                Path orphaned = directory.resolveSibling(directory.getFileName() + "-orphaned-"
+                    + LocalDateTime.now().format(ORPHAN_SUFFIX));
+                Files.move(directory, orphaned);
+                System.out.println("⚠️ Archivo de ventas apartado en " + orphaned + ": " + reason);
+            }
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al apartar el archivo de ventas", e);
+        }
+    }
+
+    /**
+     * @return Segmentos, bloques, ventas y tamaños del archivo
+     */
+    public Map<String, Object> snapshot() {
+        Index current = index;
+        long sales = 0;
+        long compressed = 0;
+        long uncompressed = 0;
+        long segments = 0;
+        Path lastSegment = null;
+        for (int i = 0; i < current.size; i++) {
+            Block block = current.blocks[i];
+            sales += block.records;
+            compressed += BLOCK_HEADER_BYTES + block.compressedLength;
+            uncompressed += block.uncompressedLength;
+            if (!block.segment.equals(lastSegment)) {
+                segments++;
+                lastSegment = block.segment;
+            }
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("directory", directory.toAbsolutePath().toString());
+        map.put("segments", segments);
+        map.put("blocks", current.size);
+        map.put("sales", sales);
+        map.put("maxArchivedId", getMaxArchivedId());
+        map.put("bytesOnDisk", compressed);
+        map.put("uncompressedBytes", uncompressed);
+        map.put("compressionRatio", compressed > 0 ? Math.round((double) uncompressed / compressed * 100) / 100.0 : null);
+        return map;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeChannels();
+    }
+
+    private FileChannel segmentFor(long firstId) throws IOException {
+        if (activeSegment == null) {
+            // Se reanuda el último segmento si todavía tiene espacio
+            List<Path> segments = listSegments();
+            if (!segments.isEmpty()) {
+                Path last = segments.get(segments.size() - 1);
+                if (Files.size(last) < segmentMaxBytes) {
+                    activeSegment = FileChannel.open(last, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    activePath = last;
+                }
+            }
+        }
+        if (activeSegment != null && activeSegment.size() >= segmentMaxBytes) {
+            activeSegment.close();
+            activeSegment = null;
+        }
+        if (activeSegment == null) {
+            activePath = directory.resolve(SEGMENT_PREFIX + String.format("%019d", firstId) + SEGMENT_SUFFIX);
+            activeSegment = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return activeSegment;
+    }
+
+    private Block writeBlock(FileChannel channel, long firstId, long lastId, int records, byte[] payload)
+            throws IOException {
+        Deflater deflater = new Deflater(compressionLevel);
+        byte[] compressed;
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            compressed = out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+
+        long position = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+        header.putInt(BLOCK_MAGIC)
+            .putLong(firstId)
+            .putLong(lastId)
+            .putInt(records)
+            .putInt(payload.length)
+            .putInt(compressed.length)
+            .putInt((int) crc.getValue())
+            .flip();
+        ByteBuffer body = ByteBuffer.wrap(compressed);
+        while (header.hasRemaining() || body.hasRemaining()) {
+            channel.write(new ByteBuffer[] {header, body});
+        }
+        return new Block(activePath, position, firstId, lastId, records, payload.length,
+            compressed.length, (int) crc.getValue());
+    }
+
+    private ByteBuffer readBlock(Block block) {
+        try {
+            FileChannel channel = readers.computeIfAbsent(block.segment, SaleArchive::openReader);
+            ByteBuffer compressed = ByteBuffer.allocate(block.compressedLength);
+            readFully(channel, compressed, block.offset + BLOCK_HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(compressed.array());
+            if ((int) crc.getValue() != block.crc) {
+                throw new IllegalStateException("CRC inválido en el bloque " + block.firstId + ".." + block.lastId
+                    + " de " + block.segment.getFileName());
+            }
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed.array());
+                byte[] records = new byte[block.uncompressedLength];
+                int read = 0;
+                while (read < records.length && !inflater.finished()) {
+                    read += inflater.inflate(records, read, records.length - read);
+                }
+                return ByteBuffer.wrap(records, 0, read);
+            } finally {
+                inflater.end();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el archivo de ventas", e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloque corrupto en " + block.segment.getFileName(), e);
+        }
+    }
+
+    // Registro: id (long), longitud del resto (int), campos
+    private static void writeRecord(DataOutputStream out, Sale sale) throws IOException {
+        ByteArrayOutputStream fields = new ByteArrayOutputStream(256);
+        DataOutputStream data = new DataOutputStream(fields);
+        writeString(data, sale.getCustomerName());
+        writeString(data, sale.getCustomerId());
+        writeString(data, sale.getCustomerEmail());
+        data.writeLong(sale.getTotalAmount());
+        writeDateTime(data, sale.getCreatedAt());
+        writeString(data, sale.getStatus().name());
+        writeDateTime(data, sale.getUpdatedAt());
+        data.writeInt(sale.getRecoveryAttempts());
+        writeString(data, sale.getProducts());
+
+        out.writeLong(sale.getId());
+        out.writeInt(fields.size());
+        fields.writeTo(out);
+    }
+
+    private static Sale readSale(long id, ByteBuffer records) {
+        Sale sale = new Sale();
+        sale.setId(id);
+        sale.setCustomerName(readString(records));
+        sale.setCustomerId(readString(records));
+        sale.setCustomerEmail(readString(records));
+        sale.setTotalAmount(records.getLong());
+        sale.setCreatedAt(readDateTime(records));
+        sale.setStatus(SaleStatus.valueOf(readString(records)));
+        sale.setUpdatedAt(readDateTime(records));
+        sale.setRecoveryAttempts(records.getInt());
+        sale.setProducts(readString(records));
+        return sale;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long seconds = in.getLong();
+        int nanos = in.getInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static FileChannel openReader(Path segment) {
+        try {
+            return FileChannel.open(segment, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el segmento " + segment, e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Fin de archivo inesperado en la posición " + position);
+            }
+        }
+    }
+
+    private void rollback(FileChannel channel, long startSize) {
+        if (channel == null || startSize < 0) {
+            return;
+        }
+        try {
+            channel.truncate(startSize);
+        } catch (IOException e) {
+            // El bloque parcial se descartará al reabrir el archivo
+            System.err.println("⚠️ No se pudo deshacer el append en el archivo de ventas: " + e.getMessage());
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel channel : readers.values()) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Solo lectura: no hay nada que perder
+            }
+        }
+        readers.clear();
+        if (activeSegment != null) {
+            try {
+                activeSegment.close();
+            } catch (IOException e) {
+                System.err.println("⚠️ Error al cerrar el segmento activo: " + e.getMessage());
+            }
+            activeSegment = null;
+        }
+    }
+
+    private interface SaleVisitor {
+        /** @return false para detener el recorrido */
+        boolean visit(Sale sale);
+    }
+
+    /**
+     * Entrada del índice disperso: un bloque de un segmento.
+     */
+    private static final class Block {
+
+        private final Path segment;
+        private final long offset;
+        private final long firstId;
+        private final long lastId;
+        private final int records;
+        private final int uncompressedLength;
+        private final int compressedLength;
+        private final int crc;
+
+        private Block(Path segment, long offset, long firstId, long lastId, int records,
+                      int uncompressedLength, int compressedLength, int crc) {
+            this.segment = segment;
+            this.offset = offset;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.records = records;
+            this.uncompressedLength = uncompressedLength;
+            this.compressedLength = compressedLength;
+            this.crc = crc;
+        }
+
+        /**
+         * @return Bloque leído de la cabecera, o null si la cabecera no es válida
+         */
+        private static Block read(Path segment, long offset, ByteBuffer header) {
+            if (header.getInt() != BLOCK_MAGIC) {
+                return null;
+            }
+            long firstId = header.getLong();
+            long lastId = header.getLong();
+            int records = header.getInt();
+            int uncompressedLength = header.getInt();
+            int compressedLength = header.getInt();
+            int crc = header.getInt();
+            if (firstId > lastId || records <= 0 || compressedLength <= 0 || uncompressedLength <= 0) {
+                return null;
+            }
+            return new Block(segment, offset, firstId, lastId, records, uncompressedLength, compressedLength, crc);
+        }
+    }
+
+    /**
+     * Índice de bloques ordenado por ID. Es inmutable hacia los lectores: un
+     * append escribe en posiciones posteriores a {@code size} (o en un arreglo
+     * nuevo) y publica otra instancia.
+     */
+    private static final class Index {
+
+        private static final Index EMPTY = new Index(new Block[0], 0);
+
+        private final Block[] blocks;
+        private final int size;
+
+        private Index(Block[] blocks, int size) {
+            this.blocks = blocks;
+            this.size = size;
+        }
+
+        private Index append(List<Block> added) {
+            if (added.isEmpty()) {
+                return this;
+            }
+            Block[] target = blocks;
+            if (size + added.size() > target.length) {
+                target = Arrays.copyOf(blocks, Math.max(16, Math.max(size + added.size(), blocks.length * 2)));
+            }
+            for (int i = 0; i < added.size(); i++) {
+                target[size + i] = added.get(i);
+            }
+            return new Index(target, size + added.size());
+        }
+
+        /**
+         * @return Posición del último bloque con primer ID <= id, o -1 si no hay
+         */
+        private int blockFor(long id) {
+            int low = 0;
+            int high = size - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (blocks[mid].firstId <= id) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+    }
+}
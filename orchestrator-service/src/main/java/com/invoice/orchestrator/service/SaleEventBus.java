@@ -0,0 +1,354 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.dto.SaleEvent;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feed en memoria de eventos de ventas para GET /api/sales/stream (Server-Sent Events).
+ *
+ * - Los eventos se guardan en un ring buffer acotado (sales.stream.buffer-size)
+ *   con número de secuencia creciente. El id SSE es {@code <epoch>-<secuencia>}:
+ *   la secuencia vuelve a 1 en cada arranque y el epoch (aleatorio por proceso)
+ *   distingue un Last-Event-ID de una ejecución anterior.
+ * - Publicar solo escribe en el buffer y agenda la entrega: la ruta de escritura
+ *   de ventas nunca espera a un suscriptor.
+ * - Cada suscriptor lleva su cursor y se drena en el pool "sseExecutor".
+ *   Si se atrasa más que el tamaño del buffer recibe un evento "resync"
+ *   (debe recargar el estado) y continúa desde el evento más reciente.
+ * - Un envío bloqueado más de sales.stream.send-timeout-ms (cliente que dejó de
+ *   leer con la ventana TCP llena) descarta al suscriptor. El hilo queda
+ *   bloqueado hasta el write timeout del conector, así que mientras tanto el
+ *   pool suma un hilo de reemplazo para que el resto de los suscriptores y los
+ *   heartbeats sigan fluyendo.
+ * - Reconexión: con Last-Event-ID del mismo epoch el suscriptor continúa desde
+ *   el evento siguiente; con otro epoch o un id ilegible recibe "resync".
+ */
+@Service
+public class SaleEventBus {
+
+    public static final String RESYNC = "resync";
+
+    private static final int MAX_EVENTS_PER_DRAIN = 256;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+    private final SaleEvent[] ring;
+    private final ThreadPoolTaskExecutor deliveryExecutor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    // Próximo número de secuencia; el buffer contiene [nextSequence - ring.length, nextSequence)
+    private long nextSequence = 1;
+
+    @Value("${sales.stream.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${sales.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${sales.stream.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    // Hilos de reemplazo sumados al pool por envíos bloqueados (protegido por "subscribers")
+    private int stalledThreads;
+
+    public SaleEventBus(@Value("${sales.stream.buffer-size:1024}") int bufferSize,
+                        @Qualifier("sseExecutor") ThreadPoolTaskExecutor deliveryExecutor) {
+        this.ring = new SaleEvent[Math.max(16, bufferSize)];
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Publica la creación de una venta (ya confirmada en base de datos).
+     */
+    public void saleCreated(Long saleId, long totalAmount) {
+        publish(SaleEvent.SALE_CREATED, saleId, SaleStatus.PENDING, null, totalAmount);
+    }
+
+    /**
+     * Publica un cambio de estado de una venta (ya confirmado en base de datos).
+     */
+    public void statusChanged(Long saleId, SaleStatus from, SaleStatus to) {
+        publish(SaleEvent.SALE_STATUS, saleId, to, from, null);
+    }
+
+    private void publish(String type, Long saleId, SaleStatus status, SaleStatus previous, Long totalAmount) {
+        synchronized (ring) {
+            long sequence = nextSequence++;
+            ring[(int) (sequence % ring.length)] = new SaleEvent(sequence, type, saleId, status, previous, totalAmount);
+        }
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Registra un suscriptor nuevo.
+     *
+     * @param lastEventId Último id SSE recibido (header Last-Event-ID), o null para solo eventos nuevos
+     * @return Emitter SSE del suscriptor
+     * @throws ServiceOverloadedException Si se alcanzó el máximo de suscriptores
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceOverloadedException("Máximo de suscriptores del feed de ventas alcanzado", 5);
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        long lastSequence = lastEventId != null && !lastEventId.isBlank() ? sequenceOf(lastEventId) : 0;
+        long cursor;
+        synchronized (ring) {
+            cursor = lastSequence > 0 ? lastSequence + 1 : nextSequence;
+        }
+        Subscriber subscriber = new Subscriber(emitter, cursor);
+        // Id de otro arranque (o ilegible): su secuencia no dice nada de este buffer
+        subscriber.resyncPending = lastSequence < 0;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /**
+     * @return Secuencia del id SSE si es de este epoch, o -1 si no lo es o no se puede leer
+     */
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            long sequence = Long.parseLong(eventId.substring(separator + 1));
+            return sequence > 0 ? sequence : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * Comentario SSE periódico para mantener viva la conexión a través de proxies
+     * y detectar suscriptores desconectados.
+     */
+    @Scheduled(fixedDelayString = "${sales.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatPending = true;
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Descarta a los suscriptores con un envío en curso de más de
+     * sales.stream.send-timeout-ms y compensa el hilo que queda bloqueado.
+     *
+     * El emitter no se completa desde aquí: complete/send comparten el monitor
+     * del emitter y este hilo quedaría esperando al envío bloqueado. Lo completa
+     * el hilo de entrega cuando el envío termina o falla.
+     */
+    @Scheduled(fixedDelayString = "${sales.stream.stall-check-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = sendTimeoutMs * 1_000_000;
+        for (Subscriber subscriber : subscribers) {
+            synchronized (subscribers) {
+                if (subscriber.sending && !subscriber.stalled && now - subscriber.sendStartedNanos > timeoutNanos) {
+                    subscriber.stalled = true;
+                    subscriber.closed = true;
+                    subscribers.remove(subscriber);
+                    dropped.increment();
+                    resizeDeliveryPool(+1);
+                    System.out.println("🐢 Suscriptor SSE descartado: envío bloqueado más de " + sendTimeoutMs + " ms");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Epoch, último id, suscriptores, eventos publicados, resyncs y suscriptores descartados
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("epoch", epoch);
+        synchronized (ring) {
+            snapshot.put("lastEventId", eventId(nextSequence - 1));
+        }
+        snapshot.put("bufferSize", ring.length);
+        snapshot.put("subscribers", subscribers.size());
+        snapshot.put("published", published.sum());
+        snapshot.put("resyncs", resyncs.sum());
+        snapshot.put("dropped", dropped.sum());
+        synchronized (subscribers) {
+            snapshot.put("stalledDeliveryThreads", stalledThreads);
+        }
+        return snapshot;
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(() -> drain(subscriber));
+        } catch (TaskRejectedException e) {
+            // Pool de entrega saturado: se reintenta en el próximo evento o heartbeat
+            subscriber.scheduled.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            do {
+                if (subscriber.heartbeatPending) {
+                    subscriber.heartbeatPending = false;
+                    send(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+                List<SaleEvent> events = new ArrayList<>();
+                boolean resync = read(subscriber, events);
+                if (resync) {
+                    resyncs.increment();
+                    send(subscriber, SseEmitter.event()
+                        .id(eventId(subscriber.cursor - 1))
+                        .name(RESYNC)
+                        .data(Map.of("message", "Eventos perdidos: recargar el estado"), MediaType.APPLICATION_JSON));
+                }
+                for (SaleEvent event : events) {
+                    send(subscriber, SseEmitter.event()
+                        .id(eventId(event.getId()))
+                        .name(event.getType())
+                        .data(event, MediaType.APPLICATION_JSON));
+                }
+                subscriber.scheduled.set(false);
+                // Si llegaron eventos mientras se enviaba, se vuelve a drenar
+            } while (hasPending(subscriber) && subscriber.scheduled.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado, emitter ya completado o descartado por envío bloqueado
+            if (subscribers.remove(subscriber)) {
+                dropped.increment();
+            }
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        if (subscriber.closed) {
+            throw new IllegalStateException("Suscriptor descartado por envío bloqueado");
+        }
+        subscriber.sendStartedNanos = System.nanoTime();
+        subscriber.sending = true;
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            synchronized (subscribers) {
+                subscriber.sending = false;
+                if (subscriber.stalled) {
+                    subscriber.stalled = false;
+                    resizeDeliveryPool(-1);
+                }
+            }
+        }
+        if (subscriber.closed) {
+            throw new IllegalStateException("Suscriptor descartado por envío bloqueado");
+        }
+    }
+
+    /**
+     * Suma o quita un hilo al pool de entrega (con el lock de "subscribers").
+     * El máximo se ajusta antes que el core al crecer, y después al achicarse.
+     */
+    private void resizeDeliveryPool(int delta) {
+        stalledThreads += delta;
+        int core = deliveryExecutor.getCorePoolSize() + delta;
+        if (delta > 0) {
+            deliveryExecutor.setMaxPoolSize(deliveryExecutor.getMaxPoolSize() + delta);
+            deliveryExecutor.setCorePoolSize(core);
+        } else {
+            deliveryExecutor.setCorePoolSize(core);
+            deliveryExecutor.setMaxPoolSize(deliveryExecutor.getMaxPoolSize() + delta);
+        }
+    }
+
+    /**
+     * Copia los eventos pendientes del suscriptor y avanza su cursor.
+     *
+     * @return true si el suscriptor se atrasó más que el buffer (resync)
+     */
+    private boolean read(Subscriber subscriber, List<SaleEvent> out) {
+        synchronized (ring) {
+            long oldest = Math.max(1, nextSequence - ring.length);
+            boolean resync = false;
+            if (subscriber.resyncPending) {
+                subscriber.resyncPending = false;
+                subscriber.cursor = nextSequence;
+                resync = true;
+            } else if (subscriber.cursor < oldest) {
+                // Se perdieron eventos: se salta al más reciente
+                subscriber.cursor = nextSequence;
+                resync = true;
+            } else if (subscriber.cursor > nextSequence) {
+                // Last-Event-ID de este epoch pero de un evento que no existe
+                subscriber.cursor = nextSequence;
+                resync = true;
+            }
+            long end = Math.min(nextSequence, subscriber.cursor + MAX_EVENTS_PER_DRAIN);
+            for (long sequence = subscriber.cursor; sequence < end; sequence++) {
+                out.add(ring[(int) (sequence % ring.length)]);
+            }
+            subscriber.cursor = end;
+            return resync;
+        }
+    }
+
+    private boolean hasPending(Subscriber subscriber) {
+        synchronized (ring) {
+            return subscriber.cursor < nextSequence || subscriber.heartbeatPending || subscriber.resyncPending;
+        }
+    }
+
+    /**
+     * Suscriptor con su cursor. El cursor solo se modifica con el lock del buffer;
+     * stalled solo con el lock de "subscribers".
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long cursor;
+        private volatile boolean resyncPending;
+        private volatile boolean heartbeatPending;
+        private volatile boolean sending;
+        private volatile long sendStartedNanos;
+        private volatile boolean closed;
+        private boolean stalled;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.invoice.orchestrator.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.model.dto.CustomerInfo;
+import com.invoice.orchestrator.model.dto.ProductInfo;
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.Sale;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reconstruye la petición de venta a partir de una venta persistida.
+ * Se usa para reanudar etapas (regenerar el PDF) sin la petición original.
+ */
+@Component
+public class SaleMapper {
+
+    private static final TypeReference<List<ProductInfo>> PRODUCT_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param sale Venta persistida (productos en JSON)
+     * @return SaleRequest equivalente a la petición original
+     * @throws IllegalStateException Si el JSON de productos no es válido
+     */
+    public SaleRequest toSaleRequest(Sale sale) {
+        try {
+            List<ProductInfo> products = objectMapper.readValue(sale.getProducts(), PRODUCT_LIST);
+            CustomerInfo customer = new CustomerInfo(
+                sale.getCustomerName(),
+                sale.getCustomerId(),
+                sale.getCustomerEmail()
+            );
+            return new SaleRequest(customer, products);
+        } catch (IOException e) {
+            throw new IllegalStateException("Productos inválidos en la venta " + sale.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Barrido periódico que reanuda o compensa las ventas que quedaron a medias
+ * (reinicio del proceso, cola de emails llena o fallo del servicio de email).
+ *
+ * - PENDING sin cambios: se regenera el PDF y se continúa la saga.
+ * - INVOICED / EMAIL_FAILED sin envío en curso: se regenera el PDF y se reencola el email.
+ * - Si falla el último intento, PENDING pasa a CANCELLED; las ya facturadas
+ *   se dejan en su estado para revisión manual.
+ *
+ * Cada venta se reclama con una actualización condicional sobre updated_at,
+ * así que dos barridos concurrentes no procesan la misma venta.
+ */
+@Service
+public class SaleRecoveryService {
+
+    /** Cliente del reparto justo de PDF para el trabajo de recuperación. */
+    public static final String RECOVERY_CLIENT = "recovery";
+
+    private static final Set<SaleStatus> RECOVERABLE =
+        EnumSet.of(SaleStatus.PENDING, SaleStatus.INVOICED, SaleStatus.EMAIL_FAILED);
+
+    private final SaleRepository saleRepository;
+    private final SaleMapper saleMapper;
+    private final PdfServiceClient pdfServiceClient;
+    private final PdfGenerationScheduler pdfScheduler;
+    private final SaleStatusService statusService;
+    private final InvoiceEmailDispatcher emailDispatcher;
+
+    @Value("${sales.recovery.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${sales.recovery.max-attempts:3}")
+    private int maxAttempts;
+
+    public SaleRecoveryService(SaleRepository saleRepository,
+                               SaleMapper saleMapper,
+                               PdfServiceClient pdfServiceClient,
+                               PdfGenerationScheduler pdfScheduler,
+                               SaleStatusService statusService,
+                               InvoiceEmailDispatcher emailDispatcher) {
+        this.saleRepository = saleRepository;
+        this.saleMapper = saleMapper;
+        this.pdfServiceClient = pdfServiceClient;
+        this.pdfScheduler = pdfScheduler;
+        this.statusService = statusService;
+        this.emailDispatcher = emailDispatcher;
+    }
+
+    /**
+     * Revisa un lote de ventas sin cambios desde hace más de sales.recovery.stale-after-ms.
+     */
+    @Scheduled(fixedDelayString = "${sales.recovery.interval-ms:60000}",
+               initialDelayString = "${sales.recovery.interval-ms:60000}")
+    public void recoverStaleSales() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000L);
+        List<Sale> stale = saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(
+            RECOVERABLE, before, maxAttempts);
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        System.out.println("🧹 Recuperación: " + stale.size() + " ventas pendientes de completar");
+        for (Sale sale : stale) {
+            try {
+                recover(sale);
+            } catch (ServiceOverloadedException e) {
+                // El servicio de PDF está saturado: se reintenta en el próximo barrido
+                System.out.println("⏳ Recuperación pausada por sobrecarga: " + e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error al recuperar la venta " + sale.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void recover(Sale sale) {
+        SaleStatus status = sale.getStatus();
+        if (status != SaleStatus.PENDING && emailDispatcher.isQueued(sale.getId())) {
+            return;
+        }
+        if (saleRepository.claimForRecovery(sale.getId(), status, sale.getUpdatedAt(), LocalDateTime.now()) != 1) {
+            return;
+        }
+
+        SaleRequest saleRequest = saleMapper.toSaleRequest(sale);
+        byte[] pdfBytes;
+        try {
+            pdfBytes = pdfScheduler.execute(RECOVERY_CLIENT, () -> pdfServiceClient.generatePdf(sale.getId(), saleRequest));
+        } catch (RuntimeException e) {
+            // Compensación: último intento fallido de una venta sin facturar
+            if (status == SaleStatus.PENDING && sale.getRecoveryAttempts() + 1 >= maxAttempts) {
+                statusService.transition(sale.getId(), SaleStatus.PENDING, SaleStatus.CANCELLED);
+            }
+            throw e;
+        }
+
+        SaleStatus emailFrom = status;
+        if (status == SaleStatus.PENDING) {
+            if (!statusService.transition(sale.getId(), SaleStatus.PENDING, SaleStatus.INVOICED)) {
+                return;
+            }
+            emailFrom = SaleStatus.INVOICED;
+        }
+        if (emailDispatcher.enqueue(sale.getId(), emailFrom, saleRequest, pdfBytes)) {
+            System.out.println("♻️ Venta " + sale.getId() + " reanudada desde " + status);
+        }
+    }
+}
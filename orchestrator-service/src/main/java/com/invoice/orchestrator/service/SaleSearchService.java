@@ -0,0 +1,217 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.Money;
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de texto completo sobre ventas (cliente, identificación, email y
+ * nombres de productos) con una tabla virtual FTS5 de SQLite.
+ *
+ * - La tabla {@code sales_fts} usa el ID de la venta como rowid y se mantiene
+ *   con triggers sobre {@code sales}: cada INSERT indexa la venta en la misma
+ *   transacción que la guarda. Los nombres de producto se extraen del JSON con
+ *   json_each.
+ * - Al archivar ventas ({@link SaleArchivalService}) sus filas del índice se
+ *   conservan, así que las ventas archivadas siguen apareciendo en la búsqueda.
+ * - Cada término de la consulta se busca como prefijo ("jua" encuentra "Juan");
+ *   los resultados se ordenan por bm25, con más peso al cliente que a los productos.
+ */
+@Service
+public class SaleSearchService {
+
+    private static final int MAX_TERMS = 8;
+    private static final int MIN_QUERY_CHARS = 2;
+    private static final int PURGE_BATCH = 500;
+
+    private static final String SEARCH_SQL =
+        "SELECT rowid, snippet(sales_fts, 3, '[', ']', '…', 8) FROM sales_fts "
+      + "WHERE sales_fts MATCH ? ORDER BY bm25(sales_fts, 10.0, 5.0, 5.0, 1.0) LIMIT ? OFFSET ?";
+
+    // Texto indexado de los productos: sus nombres separados por espacios
+    private static final String PRODUCT_NAMES =
+        "(SELECT group_concat(json_extract(value, '$.name'), ' ') "
+      + "FROM json_each(CASE WHEN json_valid(%1$s.products) THEN %1$s.products ELSE '[]' END))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SaleRepository saleRepository;
+    private final SaleArchive saleArchive;
+
+    @Value("${sales.search.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${sales.search.max-results:1000}")
+    private int maxResults;
+
+    public SaleSearchService(JdbcTemplate jdbcTemplate, SaleRepository saleRepository, SaleArchive saleArchive) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.saleRepository = saleRepository;
+        this.saleArchive = saleArchive;
+    }
+
+    /**
+     * Crea el índice y los triggers si no existen y lo pone al día con la tabla.
+     *
+     * Se ejecuta después de que Hibernate crea el esquema (los triggers se
+     * pierden si la tabla se recrea) y de la verificación del archivo, y de
+     * nuevo tras restaurar un backup. Descarta las entradas de IDs que ya no
+     * existen en ningún nivel (ver {@link #purgeOrphans()}) e indexa las ventas
+     * posteriores a la última indexada que no tengan entrada (las guardadas
+     * después de crear el trigger ya la tienen).
+     *
+     * Cada sentencia es su propia transacción: una transacción que primero lee
+     * y luego escribe recibe SQLITE_BUSY sin esperar si otro escritor se adelanta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIndex() {
+        jdbcTemplate.execute("CREATE VIRTUAL TABLE IF NOT EXISTS sales_fts USING fts5("
+            + "customer_name, customer_id, customer_email, products, "
+            + "tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')");
+        jdbcTemplate.execute("CREATE TRIGGER IF NOT EXISTS sales_fts_insert AFTER INSERT ON sales BEGIN "
+            + "INSERT INTO sales_fts (rowid, customer_name, customer_id, customer_email, products) "
+            + "VALUES (NEW.id, NEW.customer_name, NEW.customer_id, NEW.customer_email, "
+            + String.format(PRODUCT_NAMES, "NEW") + "); END");
+        jdbcTemplate.execute("CREATE TRIGGER IF NOT EXISTS sales_fts_update "
+            + "AFTER UPDATE OF customer_name, customer_id, customer_email, products ON sales BEGIN "
+            + "UPDATE sales_fts SET customer_name = NEW.customer_name, customer_id = NEW.customer_id, "
+            + "customer_email = NEW.customer_email, products = " + String.format(PRODUCT_NAMES, "NEW")
+            + " WHERE rowid = NEW.id; END");
+
+        int stale = purgeOrphans();
+
+        Long indexedMax = jdbcTemplate.queryForObject("SELECT MAX(rowid) FROM sales_fts", Long.class);
+        long from = indexedMax != null ? indexedMax : 0;
+        int indexed = jdbcTemplate.update("INSERT INTO sales_fts (rowid, customer_name, customer_id, customer_email, products) "
+            + "SELECT s.id, s.customer_name, s.customer_id, s.customer_email, " + String.format(PRODUCT_NAMES, "s")
+            + " FROM sales s WHERE s.id > ? AND s.id NOT IN (SELECT rowid FROM sales_fts WHERE rowid > ?)", from, from);
+
+        if (stale > 0 || indexed > 0) {
+            System.out.println("🔎 Índice de búsqueda: " + indexed + " ventas indexadas, "
+                + stale + " entradas obsoletas descartadas");
+        }
+    }
+
+    /**
+     * Descarta las entradas del índice cuyo ID no está en la tabla ni en un
+     * bloque del archivo: quedan tras recrear la base, apartar el archivo o
+     * restaurar un backup, y sin esto la búsqueda devolvería páginas cortas.
+     *
+     * @return Entradas descartadas
+     */
+    int purgeOrphans() {
+        List<Long> orphans = new ArrayList<>();
+        jdbcTemplate.query("SELECT rowid FROM sales_fts WHERE rowid NOT IN (SELECT id FROM sales)", rs -> {
+            long id = rs.getLong(1);
+            if (!saleArchive.covers(id)) {
+                orphans.add(id);
+            }
+        });
+        for (int from = 0; from < orphans.size(); from += PURGE_BATCH) {
+            List<Object[]> batch = orphans.subList(from, Math.min(orphans.size(), from + PURGE_BATCH)).stream()
+                .map(id -> new Object[] {id})
+                .toList();
+            jdbcTemplate.batchUpdate("DELETE FROM sales_fts WHERE rowid = ?", batch);
+        }
+        return orphans.size();
+    }
+
+    /**
+     * Busca ventas por texto.
+     *
+     * @param query Texto libre; cada palabra se busca como prefijo y deben estar todas
+     * @param page Página (desde 0)
+     * @param size Resultados por página (acotado por sales.search.max-page-size)
+     * @return Página de resultados ordenados por relevancia
+     * @throws IllegalArgumentException Si la consulta no tiene términos válidos
+     *         o la página supera sales.search.max-results
+     */
+    public Map<String, Object> search(String query, int page, int size) {
+        String match = toMatchExpression(query);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        int offset = Math.max(0, page) * pageSize;
+        if (offset + pageSize > maxResults) {
+            throw new IllegalArgumentException("Solo se pueden recorrer los primeros " + maxResults
+                + " resultados; refina la búsqueda");
+        }
+
+        // Se pide un resultado de más para saber si hay otra página sin contar todas las coincidencias
+        Map<Long, String> hits = new LinkedHashMap<>();
+        jdbcTemplate.query(SEARCH_SQL, rs -> {
+            hits.put(rs.getLong(1), rs.getString(2));
+        }, match, pageSize + 1, offset);
+        boolean hasMore = hits.size() > pageSize;
+
+        List<Long> ids = hits.keySet().stream().limit(pageSize).toList();
+        Map<Long, Sale> sales = saleRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Sale::getId, Function.identity()));
+        List<Map<String, Object>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Sale sale = sales.get(id);
+            boolean archived = false;
+            if (sale == null) {
+                sale = saleArchive.find(id).orElse(null);
+                archived = true;
+            }
+            if (sale != null) {
+                results.add(toResult(sale, archived, hits.get(id)));
+            }
+        }
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("query", query);
+        map.put("page", Math.max(0, page));
+        map.put("size", pageSize);
+        map.put("hasMore", hasMore);
+        map.put("results", results);
+        return map;
+    }
+
+    /**
+     * Convierte el texto libre en una expresión MATCH de FTS5: cada palabra
+     * entre comillas y con *, de modo que la sintaxis de FTS5 del usuario
+     * (operadores, columnas, comillas) nunca se interpreta.
+     */
+    private static String toMatchExpression(String query) {
+        List<String> terms = new ArrayList<>();
+        int chars = 0;
+        if (query != null) {
+            for (String term : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!term.isEmpty() && terms.size() < MAX_TERMS) {
+                    terms.add("\"" + term + "\"*");
+                    chars += term.length();
+                }
+            }
+        }
+        if (chars < MIN_QUERY_CHARS) {
+            throw new IllegalArgumentException("La búsqueda debe tener al menos " + MIN_QUERY_CHARS + " letras o números");
+        }
+        return String.join(" ", terms);
+    }
+
+    private static Map<String, Object> toResult(Sale sale, boolean archived, String productsMatch) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", sale.getId());
+        map.put("customerName", sale.getCustomerName());
+        map.put("customerId", sale.getCustomerId());
+        map.put("customerEmail", sale.getCustomerEmail());
+        map.put("totalAmount", Money.toBigDecimal(sale.getTotalAmount()));
+        map.put("status", sale.getStatus());
+        map.put("createdAt", sale.getCreatedAt());
+        map.put("archived", archived);
+        // Fragmento de los productos con los términos encontrados entre [ ]
+        map.put("productsMatch", productsMatch);
+        return map;
+    }
+}
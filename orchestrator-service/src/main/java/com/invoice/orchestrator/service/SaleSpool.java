@@ -0,0 +1,158 @@
+package com.invoice.orchestrator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.model.dto.CustomerInfo;
+import org.springframework.http.StreamingHttpOutputMessage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Venta recibida por la ingesta en streaming: el cliente y los totales en memoria,
+ * los productos ya validados y serializados en un archivo temporal.
+ *
+ * El JSON de productos del spool es el mismo que se guarda en la columna
+ * {@code products}, así que se reutiliza tal cual en los bodies hacia los
+ * servicios de PDF y email ({@link #body}) en lugar de volver a serializar
+ * miles de objetos.
+ *
+ * El archivo se borra cuando se liberan todas las referencias: la de quien lo
+ * crea ({@link #close()}) y la que toma el envío de email si se encola ({@link #retain()}).
+ */
+public final class SaleSpool implements AutoCloseable {
+
+    private static final byte[] CUSTOMER_FIELD = "{\"customer\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PRODUCTS_FIELD = ",\"products\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path productsFile;
+    private final CustomerInfo customer;
+    private final int lineItems;
+    private final long totalAmount;
+    private final long productsBytes;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    SaleSpool(Path productsFile, CustomerInfo customer, int lineItems, long totalAmount) throws IOException {
+        this.productsFile = productsFile;
+        this.customer = customer;
+        this.lineItems = lineItems;
+        this.totalAmount = totalAmount;
+        this.productsBytes = Files.size(productsFile);
+    }
+
+    public CustomerInfo getCustomer() {
+        return customer;
+    }
+
+    public int getLineItems() {
+        return lineItems;
+    }
+
+    /**
+     * @return Total de la venta en unidades menores (calculado al leer)
+     */
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * @return Tamaño del JSON de productos en bytes
+     */
+    public long getProductsBytes() {
+        return productsBytes;
+    }
+
+    /**
+     * @return JSON de productos (array) para la columna products de la venta
+     */
+    public String readProductsJson() {
+        try {
+            return Files.readString(productsFile, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el spool de productos", e);
+        }
+    }
+
+    /**
+     * Arma un body JSON {"customer": ..., "products": [...], ...extra} que copia
+     * los productos desde el spool al escribirse.
+     *
+     * @param objectMapper Mapper para el cliente y los campos extra
+     * @param extraFields Campos adicionales después de products (ej. pdfUrl)
+     * @return Body con longitud conocida
+     */
+    public Body body(ObjectMapper objectMapper, Map<String, Object> extraFields) {
+        try {
+            ByteArrayOutputStream head = new ByteArrayOutputStream(256);
+            head.write(CUSTOMER_FIELD);
+            head.write(objectMapper.writeValueAsBytes(customer));
+            head.write(PRODUCTS_FIELD);
+
+            ByteArrayOutputStream tail = new ByteArrayOutputStream(64);
+            for (Map.Entry<String, Object> field : extraFields.entrySet()) {
+                tail.write(',');
+                tail.write(objectMapper.writeValueAsBytes(field.getKey()));
+                tail.write(':');
+                tail.write(objectMapper.writeValueAsBytes(field.getValue()));
+            }
+            tail.write('}');
+            return new Body(head.toByteArray(), tail.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al armar el body de la venta", e);
+        }
+    }
+
+    /**
+     * Toma una referencia adicional al spool (ej. un envío de email encolado).
+     */
+    public void retain() {
+        references.incrementAndGet();
+    }
+
+    /**
+     * Libera una referencia; con la última se borra el archivo.
+     */
+    @Override
+    public void close() {
+        if (references.decrementAndGet() == 0) {
+            try {
+                Files.deleteIfExists(productsFile);
+            } catch (IOException e) {
+                System.err.println("⚠️ No se pudo borrar el spool " + productsFile + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Body HTTP que escribe el encabezado, los productos desde el archivo y el cierre.
+     */
+    public final class Body implements StreamingHttpOutputMessage.Body {
+
+        private final byte[] head;
+        private final byte[] tail;
+
+        private Body(byte[] head, byte[] tail) {
+            this.head = head;
+            this.tail = tail;
+        }
+
+        /**
+         * @return Longitud total del body sin comprimir
+         */
+        public long contentLength() {
+            return head.length + productsBytes + tail.length;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(head);
+            Files.copy(productsFile, out);
+            out.write(tail);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+
+/**
+ * Aplica las transiciones de estado de la saga de ventas.
+ * 
+ * Cada transición se confirma en su propia transacción corta, de modo que el
+ * lock de escritura de SQLite nunca se mantiene durante llamadas remotas.
+ * Las transiciones aplicadas se publican, ya confirmadas, en {@link SaleEventBus}.
+ */
+@Service
+public class SaleStatusService {
+
+    private final SaleRepository saleRepository;
+    private final SaleEventBus eventBus;
+
+    public SaleStatusService(SaleRepository saleRepository, SaleEventBus eventBus) {
+        this.saleRepository = saleRepository;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Cambia el estado de la venta si está en el estado esperado.
+     * 
+     * @param saleId ID de la venta
+     * @param from Estado esperado
+     * @param to Nuevo estado
+     * @return true si se aplicó la transición
+     */
+    public boolean transition(Long saleId, SaleStatus from, SaleStatus to) {
+        boolean applied = saleRepository.transition(saleId, from, to, LocalDateTime.now()) == 1;
+        if (applied) {
+            System.out.println("🔀 Venta " + saleId + ": " + from + " -> " + to);
+            eventBus.statusChanged(saleId, from, to);
+        } else {
+            System.out.println("⚠️ Venta " + saleId + ": transición " + from + " -> " + to
+                + " no aplicada (estado modificado)");
+        }
+        return applied;
+    }
+}
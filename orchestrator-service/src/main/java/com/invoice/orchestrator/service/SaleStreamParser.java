@@ -0,0 +1,202 @@
+package com.invoice.orchestrator.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.exception.InvalidAmountException;
+import com.invoice.orchestrator.exception.InvalidSaleException;
+import com.invoice.orchestrator.model.Money;
+import com.invoice.orchestrator.model.dto.CustomerInfo;
+import com.invoice.orchestrator.model.dto.ProductInfo;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lee una petición de venta con el API de streaming de Jackson, sin construir
+ * la lista completa de productos.
+ *
+ * Cada producto se lee, se valida con las mismas reglas de Bean Validation que
+ * el binding de POST /api/sales, se le recalcula el total y se escribe de
+ * inmediato al spool; en memoria solo quedan el cliente, los totales y a lo
+ * sumo {@value #MAX_REPORTED_ERRORS} errores. El cliente puede venir antes o
+ * después de los productos.
+ */
+@Component
+public class SaleStreamParser {
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final int SPOOL_BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${sales.ingest.max-line-items:100000}")
+    private int maxLineItems;
+
+    public SaleStreamParser(Validator validator) {
+        this.validator = validator;
+        this.objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Lee, valida y totaliza la venta, dejando los productos en un spool.
+     *
+     * @param body Body JSON de la petición ({"customer": {...}, "products": [...]})
+     * @return Spool con la venta validada (el llamador debe cerrarlo)
+     * @throws InvalidSaleException Si el JSON es inválido o algún campo no pasa la validación
+     * @throws InvalidAmountException Si algún monto desborda el rango permitido
+     */
+    public SaleSpool parse(InputStream body) {
+        Path file;
+        try {
+            file = Files.createTempFile("sale-products-", ".json");
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el spool de productos", e);
+        }
+        try {
+            ParseState state = new ParseState();
+            try (JsonParser parser = objectMapper.getFactory().createParser(body);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), SPOOL_BUFFER_BYTES);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                readSale(parser, generator, state);
+            }
+            validateSale(state);
+            return new SaleSpool(file, state.customer, state.lineItems, state.totalAmount);
+        } catch (JsonProcessingException e) {
+            deleteQuietly(file);
+            throw new InvalidSaleException(Map.of("body", e.getOriginalMessage()));
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Error al leer la venta", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private void readSale(JsonParser parser, JsonGenerator generator, ParseState state) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new InvalidSaleException(Map.of("body", "Se esperaba un objeto JSON"));
+        }
+        boolean productsRead = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("customer".equals(field) && value == JsonToken.START_OBJECT) {
+                state.customer = readValue(parser, CustomerInfo.class, "customer", state);
+            } else if ("products".equals(field) && value == JsonToken.START_ARRAY && !productsRead) {
+                readProducts(parser, generator, state);
+                productsRead = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!productsRead) {
+            // Sin productos el spool igual debe ser un array válido
+            generator.writeStartArray();
+            generator.writeEndArray();
+        }
+    }
+
+    private void readProducts(JsonParser parser, JsonGenerator generator, ParseState state) throws IOException {
+        generator.writeStartArray();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String path = "products[" + state.lineItems + "]";
+            if (state.lineItems >= maxLineItems) {
+                throw new InvalidSaleException(Map.of("products", "Máximo " + maxLineItems + " productos por venta"));
+            }
+            ProductInfo product = readValue(parser, ProductInfo.class, path, state);
+            state.lineItems++;
+
+            if (reportViolations(validator.validate(product), path + ".", state)) {
+                continue;
+            }
+            if (state.errors.isEmpty()) {
+                long lineTotal = Money.lineTotal(product.getPrice(), product.getQuantity());
+                product.setTotal(lineTotal);
+                state.totalAmount = Money.add(state.totalAmount, lineTotal);
+                generator.writeObject(product);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void validateSale(ParseState state) {
+        if (state.customer == null) {
+            state.errors.put("customer", "La información del cliente es obligatoria");
+        } else {
+            reportViolations(validator.validate(state.customer), "customer.", state);
+        }
+        if (state.lineItems == 0) {
+            state.errors.put("products", "Debe incluir al menos un producto");
+        }
+        if (!state.errors.isEmpty()) {
+            throw new InvalidSaleException(state.errors);
+        }
+    }
+
+    /**
+     * @return true si hubo violaciones
+     * @throws InvalidSaleException Si se alcanzó el máximo de errores reportados
+     */
+    private static <T> boolean reportViolations(Iterable<ConstraintViolation<T>> violations, String prefix,
+                                                ParseState state) {
+        boolean any = false;
+        for (ConstraintViolation<T> violation : violations) {
+            state.errors.put(prefix + violation.getPropertyPath(), violation.getMessage());
+            any = true;
+        }
+        if (state.errors.size() >= MAX_REPORTED_ERRORS) {
+            // No tiene sentido seguir leyendo miles de productos para un body que se rechaza
+            throw new InvalidSaleException(state.errors);
+        }
+        return any;
+    }
+
+    /**
+     * @throws InvalidSaleException Si el valor no se puede leer (junto con los errores previos)
+     */
+    private static <T> T readValue(JsonParser parser, Class<T> type, String path, ParseState state)
+            throws IOException {
+        try {
+            return parser.readValueAs(type);
+        } catch (JsonProcessingException e) {
+            // Tras un valor ilegible el parser no puede seguir: se corta la lectura
+            state.errors.put(path, e.getOriginalMessage());
+            throw new InvalidSaleException(state.errors);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudo borrar el spool " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estado acumulado durante la lectura.
+     */
+    private static final class ParseState {
+        private CustomerInfo customer;
+        private int lineItems;
+        private long totalAmount;
+        private final Map<String, String> errors = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,89 @@
+package com.invoice.orchestrator.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Últimas trazas de ventas en memoria, indexadas por ID de venta.
+ *
+ * Acotado a sales.timeline.max-entries trazas: al llenarse se descarta la más
+ * antigua. Alcanza para reconstruir dónde se fue el tiempo de una venta
+ * reciente y para listar las más lentas de la última hora sin un backend de
+ * tracing externo.
+ */
+@Component
+public class SaleTimelineStore {
+
+    private final Map<Long, SaleTrace> traces;
+
+    public SaleTimelineStore(@Value("${sales.timeline.max-entries:10000}") int maxEntries) {
+        this.traces = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, SaleTrace> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param trace Traza con el ID de venta asignado
+     */
+    public void register(SaleTrace trace) {
+        synchronized (traces) {
+            traces.put(trace.getSaleId(), trace);
+        }
+    }
+
+    /**
+     * @param saleId ID de la venta
+     * @return Línea de tiempo, o null si la venta no tiene traza en memoria
+     */
+    public Map<String, Object> timeline(Long saleId) {
+        SaleTrace trace;
+        synchronized (traces) {
+            trace = traces.get(saleId);
+        }
+        return trace != null ? trace.toMap() : null;
+    }
+
+    /**
+     * Ventas más lentas (de punta a punta, incluido el email) iniciadas en la ventana dada.
+     *
+     * @param limit Cantidad de ventas
+     * @param window Ventana hacia atrás desde ahora
+     * @return Líneas de tiempo de mayor a menor duración
+     */
+    public List<Map<String, Object>> slowest(int limit, Duration window) {
+        Instant since = Instant.now().minus(window);
+        List<TraceTotal> recent = new ArrayList<>();
+        synchronized (traces) {
+            for (SaleTrace trace : traces.values()) {
+                if (!trace.getStartedAt().isBefore(since)) {
+                    // El total se fija una vez: los hilos de email siguen sumando tramos
+                    // y un comparador sobre valores que cambian rompe el ordenamiento
+                    recent.add(new TraceTotal(trace, trace.getTotalMillis()));
+                }
+            }
+        }
+        return recent.stream()
+            .sorted(Comparator.comparingDouble(TraceTotal::totalMillis).reversed())
+            .limit(Math.max(1, limit))
+            .map(total -> total.trace().toMap())
+            .toList();
+    }
+
+    public int size() {
+        synchronized (traces) {
+            return traces.size();
+        }
+    }
+
+    private record TraceTotal(SaleTrace trace, double totalMillis) {}
+}
@@ -0,0 +1,236 @@
+package com.invoice.orchestrator.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Traza de una venta: un ID que viaja en el header {@value #HEADER} hacia los
+ * servicios de PDF y email, y los tramos (spans) medidos en cada etapa.
+ *
+ * Igual que {@link Deadline}, la traza activa se guarda en un ThreadLocal
+ * durante el procesamiento (y en el hilo del envío de email), así que los
+ * clientes HTTP y la fábrica de peticiones la toman sin pasarla por parámetro.
+ *
+ * Los tramos se guardan como desplazamiento y duración en microsegundos desde
+ * el inicio de la traza; como mucho {@value #MAX_SPANS} por venta.
+ */
+public final class SaleTrace {
+
+    public static final String HEADER = "X-Trace-Id";
+
+    private static final int MAX_SPANS = 32;
+    private static final Pattern VALID_ID = Pattern.compile("[0-9A-Za-z-]{8,64}");
+    // Métrica con dur en ms: dígitos con a lo sumo una parte decimal (acotados para no desbordar)
+    private static final Pattern SERVER_TIMING = Pattern.compile("(?<![\\w-])([\\w-]{1,32})\\s*;[^,]*?dur=(\\d{1,9}(?:\\.\\d{1,6})?)(?=\\s*(?:[;,]|$))");
+
+    private static final ThreadLocal<SaleTrace> CURRENT = new ThreadLocal<>();
+
+    private final String traceId;
+    private final Instant startedAt;
+    private final long startNanos;
+    private final List<Span> spans = new ArrayList<>();
+    private volatile Long saleId;
+    private volatile long requestMicros = -1;
+
+    private SaleTrace(String traceId) {
+        this.traceId = traceId;
+        this.startedAt = Instant.now();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Inicia una traza. Se reutiliza el ID recibido si es válido, para
+     * correlacionar con el sistema que originó la petición.
+     *
+     * @param incomingId ID recibido en {@value #HEADER} (opcional)
+     * @return Traza nueva
+     */
+    public static SaleTrace start(String incomingId) {
+        if (incomingId != null && VALID_ID.matcher(incomingId).matches()) {
+            return new SaleTrace(incomingId);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new SaleTrace(String.format("%016x%016x", random.nextLong(), random.nextLong()));
+    }
+
+    /**
+     * @return Traza del hilo actual, o null si no hay
+     */
+    public static SaleTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Ejecuta una tarea con la traza activa en el hilo actual.
+     *
+     * @param trace Traza (null = sin traza)
+     * @param task Tarea
+     * @return Resultado de la tarea
+     */
+    public static <T> T callWith(SaleTrace trace, Supplier<T> task) {
+        SaleTrace previous = CURRENT.get();
+        CURRENT.set(trace);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Registra un tramo en la traza del hilo actual (no hace nada si no hay traza).
+     *
+     * @param name Etapa (ej. "save", "pdf")
+     * @param startNanos Inicio del tramo (System.nanoTime())
+     * @param outcome Resultado (OK, ERROR, ...)
+     */
+    public static void record(String name, long startNanos, String outcome) {
+        SaleTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.addSpan(name, startNanos, System.nanoTime() - startNanos, outcome);
+        }
+    }
+
+    /**
+     * Registra los tiempos informados por un servicio en su header Server-Timing
+     * (ej. {@code render;dur=120.5}) como tramos "servicio.métrica" que empiezan
+     * junto con la llamada.
+     *
+     * Es solo telemetría: nunca lanza excepciones, así que no puede cambiar el
+     * resultado de la llamada. Las entradas mal formadas se ignoran.
+     *
+     * @param service Nombre del servicio (prefijo de los tramos)
+     * @param callStartNanos Inicio de la llamada HTTP
+     * @param serverTiming Valor del header (puede ser null)
+     */
+    public static void recordServerTiming(String service, long callStartNanos, String serverTiming) {
+        SaleTrace trace = CURRENT.get();
+        if (trace == null || serverTiming == null) {
+            return;
+        }
+        try {
+            Matcher matcher = SERVER_TIMING.matcher(serverTiming);
+            while (matcher.find()) {
+                long durationNanos;
+                try {
+                    durationNanos = (long) (Double.parseDouble(matcher.group(2)) * 1_000_000);
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                trace.addSpan(service + "." + matcher.group(1), callStartNanos, durationNanos, "REMOTE");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Server-Timing inválido de " + service + " ignorado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Marca el fin de la parte síncrona (la respuesta al cliente).
+     */
+    public void finishRequest() {
+        requestMicros = (System.nanoTime() - startNanos) / 1_000;
+    }
+
+    private void addSpan(String name, long spanStartNanos, long durationNanos, String outcome) {
+        synchronized (spans) {
+            if (spans.size() < MAX_SPANS) {
+                spans.add(new Span(name, (spanStartNanos - startNanos) / 1_000, durationNanos / 1_000, outcome));
+            }
+        }
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public Long getSaleId() {
+        return saleId;
+    }
+
+    public void setSaleId(Long saleId) {
+        this.saleId = saleId;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return Duración de la parte síncrona en ms, o -1 si sigue en curso
+     */
+    public double getRequestMillis() {
+        return requestMicros < 0 ? -1 : requestMicros / 1000.0;
+    }
+
+    /**
+     * @return Desde el inicio hasta el fin del último tramo o de la respuesta, en ms
+     *         (incluye el envío de email en segundo plano)
+     */
+    public double getTotalMillis() {
+        long end = Math.max(requestMicros, 0);
+        synchronized (spans) {
+            for (Span span : spans) {
+                end = Math.max(end, span.offsetMicros + span.durationMicros);
+            }
+        }
+        return end / 1000.0;
+    }
+
+    /**
+     * @return Línea de tiempo con los tramos en orden de inicio
+     */
+    public Map<String, Object> toMap() {
+        List<Map<String, Object>> stages = new ArrayList<>();
+        synchronized (spans) {
+            spans.stream()
+                .sorted((a, b) -> Long.compare(a.offsetMicros, b.offsetMicros))
+                .forEach(span -> stages.add(span.toMap()));
+        }
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("saleId", saleId);
+        map.put("traceId", traceId);
+        map.put("startedAt", startedAt);
+        map.put("requestMillis", getRequestMillis());
+        map.put("totalMillis", getTotalMillis());
+        map.put("stages", stages);
+        return map;
+    }
+
+    /**
+     * Tramo de la traza.
+     */
+    private static final class Span {
+
+        private final String name;
+        private final long offsetMicros;
+        private final long durationMicros;
+        private final String outcome;
+
+        private Span(String name, long offsetMicros, long durationMicros, String outcome) {
+            this.name = name;
+            this.offsetMicros = offsetMicros;
+            this.durationMicros = durationMicros;
+            this.outcome = outcome;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("stage", name);
+            map.put("startMillis", offsetMicros / 1000.0);
+            map.put("durationMillis", durationMicros / 1000.0);
+            map.put("outcome", outcome);
+            return map;
+        }
+    }
+}
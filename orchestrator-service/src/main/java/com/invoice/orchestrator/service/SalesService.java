@@ -2,12 +2,24 @@ package com.invoice.orchestrator.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.invoice.orchestrator.exception.DeadlineExceededException;
+import com.invoice.orchestrator.exception.InvalidAmountException;
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.Money;
+import com.invoice.orchestrator.model.SaleVersion;
+import com.invoice.orchestrator.model.dto.CustomerInfo;
+import com.invoice.orchestrator.model.dto.ProductInfo;
 import com.invoice.orchestrator.model.dto.SaleRequest;
 import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.monitoring.SaleProcessingEvent;
+import com.invoice.orchestrator.monitoring.SaleSaveEvent;
 import com.invoice.orchestrator.repository.SaleRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio principal que orquesta la creación de ventas.
@@ -15,115 +27,394 @@ import java.math.BigDecimal;
  * 1. Persistencia en base de datos
  * 2. Generación de PDF (síncrona)
  * 3. Envío de email (asíncrona)
+ * 
+ * Cada etapa se confirma por separado y queda reflejada en el estado de la venta.
+ * 
+ * El procesamiento y el guardado emiten eventos JFR ({@link SaleProcessingEvent},
+ * {@link SaleSaveEvent}) que se pueden analizar junto a GC, locks y E/S.
+ * 
+ * Cada venta lleva además una {@link SaleTrace} con los tramos de cada etapa
+ * (incluidos los de los servicios de PDF y email), consultable por ID de venta
+ * en {@link SaleTimelineStore}.
  */
 @Service
 public class SalesService {
 
     private final SaleRepository saleRepository;
+    private final SaleArchive saleArchive;
     private final PdfServiceClient pdfServiceClient;
-    private final EmailServiceClient emailServiceClient;
+    private final PdfGenerationScheduler pdfScheduler;
+    private final SaleStatusService statusService;
+    private final InvoiceEmailDispatcher emailDispatcher;
+    private final DeadlineMetrics deadlineMetrics;
+    private final SaleEventBus eventBus;
+    private final DatabaseBackupService backupService;
+    private final SaleTimelineStore timelineStore;
     private final ObjectMapper objectMapper;
+    private final AtomicInteger inFlightSales = new AtomicInteger();
 
     public SalesService(SaleRepository saleRepository,
+                       SaleArchive saleArchive,
                        PdfServiceClient pdfServiceClient,
-                       EmailServiceClient emailServiceClient) {
+                       PdfGenerationScheduler pdfScheduler,
+                       SaleStatusService statusService,
+                       InvoiceEmailDispatcher emailDispatcher,
+                       DeadlineMetrics deadlineMetrics,
+                       SaleEventBus eventBus,
+                       DatabaseBackupService backupService,
+                       SaleTimelineStore timelineStore) {
         this.saleRepository = saleRepository;
+        this.saleArchive = saleArchive;
         this.pdfServiceClient = pdfServiceClient;
-        this.emailServiceClient = emailServiceClient;
+        this.pdfScheduler = pdfScheduler;
+        this.statusService = statusService;
+        this.emailDispatcher = emailDispatcher;
+        this.deadlineMetrics = deadlineMetrics;
+        this.eventBus = eventBus;
+        this.backupService = backupService;
+        this.timelineStore = timelineStore;
         this.objectMapper = new ObjectMapper();
     }
 
     /**
-     * Busca una venta por su ID.
+     * Busca una venta por su ID, en la base de datos o en el archivo de ventas antiguas.
      * 
      * @param id ID de la venta a buscar
      * @return Optional con la venta si existe, vacío si no
      */
     public Sale findSaleById(Long id) {
         return saleRepository.findById(id)
+            .or(() -> saleArchive.find(id))
             .orElseThrow(() -> new RuntimeException("Venta no encontrada con ID: " + id));
     }
 
     /**
-     * Procesa una nueva venta siguiendo el flujo completo:
-     * 1. Guarda la venta en base de datos
-     * 2. Genera el PDF (comunicación síncrona)
-     * 3. Envía email con la factura (comunicación asíncrona)
+     * Versión de una venta para responder peticiones condicionales sin cargarla.
      * 
-     * PATRON COMENTADO: Este método actúa como Saga Orchestrator, coordinando
-     * múltiples operaciones. En producción se implementaría compensación
-     * en caso de fallos parciales.
+     * Para el archivo solo se consulta el índice de bloques: un ID cubierto por
+     * un bloque pero ausente en él (hueco del rango) da una versión sin venta,
+     * que se resuelve como 404 al cargarla.
+     * 
+     * @param id ID de la venta
+     * @return Versión de la venta, vacío si no existe en la base ni en el rango del archivo
+     */
+    public Optional<SaleVersion> findSaleVersion(Long id) {
+        return saleRepository.findVersionById(id)
+            .or(() -> saleArchive.covers(id) ? Optional.of(SaleVersion.archived(id)) : Optional.empty());
+    }
+
+    /**
+     * Procesa una nueva venta como una saga de etapas confirmadas por separado:
+     * 1. Guarda la venta en base de datos como PENDING (transacción corta)
+     * 2. Genera el PDF (comunicación síncrona, fuera de toda transacción)
+     * 3. Marca la venta como INVOICED (transacción corta)
+     * 4. Encola el envío del email (asíncrono)
+     * 
+     * PATRON: Saga Orchestrator con compensación. Si falla la generación del PDF
+     * la venta se compensa a CANCELLED. Las ventas que quedan a medias por un
+     * reinicio las reanuda o compensa {@link SaleRecoveryService}.
+     * 
+     * Ninguna llamada remota se hace con una transacción abierta, así que el
+     * lock de escritura de SQLite no depende de la latencia del servicio de PDF.
+     * 
+     * El deadline se verifica antes de cada etapa y acota la espera en la cola de
+     * PDF y los timeouts de la llamada. Si vence, el trabajo restante se abandona
+     * (la venta se compensa a CANCELLED) en lugar de completarse para un cliente
+     * que ya no espera la respuesta.
      * 
      * @param saleRequest Datos de la venta a procesar
+     * @param clientName Cliente de la API que origina la venta (para el reparto de PDF)
+     * @param deadline Presupuesto de tiempo de la petición
+     * @param trace Traza de la petición
+     * @return Bytes del PDF generado
+     * @throws DeadlineExceededException Si el deadline vence antes de terminar
+     * @throws ServiceOverloadedException Si la cola de PDF del cliente está llena
+     * @throws InvalidAmountException Si algún monto desborda el rango permitido
+     * @throws RuntimeException Si hay error en el proceso
+     */
+    public byte[] processSale(SaleRequest saleRequest, String clientName, Deadline deadline, SaleTrace trace) {
+        return process(requestInput(saleRequest), clientName, deadline, trace);
+    }
+
+    /**
+     * Procesa una venta recibida por la ingesta en streaming, con las mismas
+     * etapas que {@link #processSale(SaleRequest, String, Deadline, SaleTrace)}.
+     * 
+     * Los productos ya vienen validados, totalizados y serializados en el spool:
+     * ese mismo JSON se guarda en la venta y se copia a los bodies hacia los
+     * servicios de PDF y email, sin construir la lista de productos en memoria.
+     * 
+     * @param spool Venta validada (el llamador conserva su referencia y la cierra)
+     * @param clientName Cliente de la API que origina la venta (para el reparto de PDF)
+     * @param deadline Presupuesto de tiempo de la petición
+     * @param trace Traza de la petición
      * @return Bytes del PDF generado
+     * @throws DeadlineExceededException Si el deadline vence antes de terminar
+     * @throws ServiceOverloadedException Si la cola de PDF del cliente está llena
      * @throws RuntimeException Si hay error en el proceso
      */
-    @Transactional
-    public byte[] processSale(SaleRequest saleRequest) {
+    public byte[] processSale(SaleSpool spool, String clientName, Deadline deadline, SaleTrace trace) {
+        return process(spoolInput(spool), clientName, deadline, trace);
+    }
+
+    private byte[] process(SaleInput input, String clientName, Deadline deadline, SaleTrace trace) {
+        inFlightSales.incrementAndGet();
+        SaleProcessingEvent event = new SaleProcessingEvent();
+        event.begin();
+        event.outcome = "ERROR";
+        try {
+            byte[] pdfBytes = SaleTrace.callWith(trace, () ->
+                Deadline.callWith(deadline, () -> processSaleStages(input, clientName, deadline, event, trace)));
+            event.pdfBytes = pdfBytes.length;
+            event.outcome = "OK";
+            return pdfBytes;
+        } catch (DeadlineExceededException e) {
+            event.outcome = "DEADLINE";
+            deadlineMetrics.recordAbandoned(e.getStage());
+            System.out.println("⌛ Venta abandonada por deadline agotado (" + e.getStage() + ")");
+            throw e;
+        } catch (ServiceOverloadedException e) {
+            event.outcome = "OVERLOADED";
+            throw e;
+        } finally {
+            trace.finishRequest();
+            inFlightSales.decrementAndGet();
+            if (event.shouldCommit()) {
+                event.client = clientName;
+                event.lineItems = input.lineItems();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return Ventas en procesamiento en este momento (señal de carga para readiness)
+     */
+    public int getInFlightSales() {
+        return inFlightSales.get();
+    }
+
+    private byte[] processSaleStages(SaleInput input, String clientName, Deadline deadline,
+                                     SaleProcessingEvent event, SaleTrace trace) {
         System.out.println("🎯 Iniciando procesamiento de venta...");
         
+        // Recalcular totales en el servidor (antes de cualquier efecto)
+        long totalAmount = input.totalAmount();
+        event.totalAmountMinor = totalAmount;
+        
+        // Etapa 1: Guardar en base de datos como PENDING
+        deadline.check("save");
+        long saveStart = System.nanoTime();
+        Sale sale = saveSale(input, totalAmount);
+        SaleTrace.record("save", saveStart, "OK");
+        trace.setSaleId(sale.getId());
+        timelineStore.register(trace);
+        event.saleId = sale.getId();
+        System.out.println("💾 Venta guardada en BD con ID: " + sale.getId() + " (PENDING)");
+        eventBus.saleCreated(sale.getId(), totalAmount);
+        
         try {
-            // Paso 1: Guardar en base de datos
-            Sale sale = saveSale(saleRequest);
-            System.out.println("💾 Venta guardada en BD con ID: " + sale.getId());
+            // Etapa 2: Generar PDF (SÍNCRONO - esperamos turno en la cola justa y la respuesta)
+            deadline.check("pdf");
+            long queuedAt = System.nanoTime();
+            byte[] pdfBytes = pdfScheduler.execute(clientName, () -> {
+                SaleTrace.record("pdf-queue", queuedAt, "OK");
+                return input.generatePdf(sale.getId());
+            });
             
-            // Paso 2: Generar PDF (SÍNCRONO - esperamos respuesta)
-            byte[] pdfBytes = pdfServiceClient.generatePdf(saleRequest);
+            // Etapa 3: Marcar como facturada (el cliente ya no recibiría el PDF si venció)
+            deadline.check("invoice");
+            long invoiceStart = System.nanoTime();
+            if (!statusService.transition(sale.getId(), SaleStatus.PENDING, SaleStatus.INVOICED)) {
+                throw new IllegalStateException("La venta " + sale.getId() + " cambió de estado durante la facturación");
+            }
+            SaleTrace.record("invoice", invoiceStart, "OK");
             
-            // Paso 3: Enviar email (ASÍNCRONO - no esperamos que termine)
-            // Si falla el email, no afecta el flujo principal
-            boolean emailAccepted = emailServiceClient.sendInvoiceEmail(saleRequest, pdfBytes);
-            if (emailAccepted) {
-                System.out.println("📬 Email aceptado para envío en background");
-            } else {
-                System.out.println("⚠️ Email no pudo ser enviado (operación no crítica)");
+            // Etapa 4: Encolar el email (ASÍNCRONO - no esperamos que termine)
+            // Si no se puede encolar, la recuperación lo reintentará
+            if (input.enqueueEmail(sale.getId(), pdfBytes)) {
+                System.out.println("📬 Email encolado para envío en background");
             }
             
             System.out.println("✅ Venta procesada exitosamente");
             return pdfBytes;
             
+        } catch (ServiceOverloadedException | DeadlineExceededException e) {
+            System.err.println("⏳ Venta no completada: " + e.getMessage());
+            compensate(sale.getId());
+            throw e;
         } catch (Exception e) {
             System.err.println("❌ Error al procesar venta: " + e.getMessage());
-            // PATRON: Aquí se implementaría compensación (rollback de operaciones)
+            compensate(sale.getId());
+            // Un timeout de la llamada al PDF acotado por el deadline cuenta como deadline agotado
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("pdf");
+            }
             throw new RuntimeException("Error al procesar la venta: " + e.getMessage(), e);
         }
     }
 
+    private SaleInput requestInput(SaleRequest saleRequest) {
+        return new SaleInput() {
+            @Override
+            public int lineItems() {
+                return saleRequest.getProducts().size();
+            }
+
+            @Override
+            public long totalAmount() {
+                return calculateTotals(saleRequest);
+            }
+
+            @Override
+            public CustomerInfo customer() {
+                return saleRequest.getCustomer();
+            }
+
+            @Override
+            public String productsJson() throws JsonProcessingException {
+                return objectMapper.writeValueAsString(saleRequest.getProducts());
+            }
+
+            @Override
+            public byte[] generatePdf(Long saleId) {
+                return pdfServiceClient.generatePdf(saleId, saleRequest);
+            }
+
+            @Override
+            public boolean enqueueEmail(Long saleId, byte[] pdfBytes) {
+                return emailDispatcher.enqueue(saleId, SaleStatus.INVOICED, saleRequest, pdfBytes);
+            }
+        };
+    }
+
+    private SaleInput spoolInput(SaleSpool spool) {
+        return new SaleInput() {
+            @Override
+            public int lineItems() {
+                return spool.getLineItems();
+            }
+
+            @Override
+            public long totalAmount() {
+                return spool.getTotalAmount();
+            }
+
+            @Override
+            public CustomerInfo customer() {
+                return spool.getCustomer();
+            }
+
+            @Override
+            public String productsJson() {
+                return spool.readProductsJson();
+            }
+
+            @Override
+            public byte[] generatePdf(Long saleId) {
+                return pdfServiceClient.generatePdf(saleId, spool);
+            }
+
+            @Override
+            public boolean enqueueEmail(Long saleId, byte[] pdfBytes) {
+                return emailDispatcher.enqueue(saleId, SaleStatus.INVOICED, spool, pdfBytes);
+            }
+        };
+    }
+
     /**
-     * Guarda una venta en la base de datos.
-     * Serializa los productos a JSON para almacenamiento.
+     * Origen de los datos de una venta para las etapas de la saga: la petición
+     * enlazada por Spring o el spool de la ingesta en streaming.
+     */
+    private interface SaleInput {
+        int lineItems();
+        long totalAmount();
+        CustomerInfo customer();
+        String productsJson() throws JsonProcessingException;
+        byte[] generatePdf(Long saleId);
+        boolean enqueueEmail(Long saleId, byte[] pdfBytes);
+    }
+
+    /**
+     * Compensa una venta que no pudo facturarse (PENDING -> CANCELLED).
+     * 
+     * @param saleId ID de la venta
+     */
+    private void compensate(Long saleId) {
+        try {
+            statusService.transition(saleId, SaleStatus.PENDING, SaleStatus.CANCELLED);
+        } catch (RuntimeException e) {
+            // La venta queda en PENDING y la compensará el barrido de recuperación
+            System.err.println("⚠️ No se pudo compensar la venta " + saleId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula el total de cada línea (precio * cantidad) y el total de la venta.
+     * Opera sobre long en unidades menores: no crea objetos y detecta desbordamiento.
+     * El total por línea enviado por el cliente se reemplaza por el calculado.
      * 
      * @param saleRequest Datos de la venta
+     * @return Total de la venta en unidades menores (centavos)
+     * @throws InvalidAmountException Si algún monto desborda un long
+     */
+    public long calculateTotals(SaleRequest saleRequest) {
+        List<ProductInfo> products = saleRequest.getProducts();
+        long totalAmount = 0;
+        for (int i = 0, size = products.size(); i < size; i++) {
+            ProductInfo product = products.get(i);
+            long lineTotal = Money.lineTotal(product.getPrice(), product.getQuantity());
+            product.setTotal(lineTotal);
+            totalAmount = Money.add(totalAmount, lineTotal);
+        }
+        return totalAmount;
+    }
+
+    /**
+     * Guarda una venta en la base de datos.
+     * Los productos se guardan como JSON (serializados o tomados del spool).
+     * 
+     * @param input Datos de la venta
+     * @param totalAmount Total de la venta en unidades menores
      * @return Entidad Sale guardada
      * @throws RuntimeException Si hay error al guardar
      */
-    private Sale saveSale(SaleRequest saleRequest) {
+    private Sale saveSale(SaleInput input, long totalAmount) {
+        SaleSaveEvent event = new SaleSaveEvent();
+        event.begin();
+        event.outcome = "ERROR";
+        long start = System.nanoTime();
         try {
-            // Calcular total
-            BigDecimal totalAmount = saleRequest.getProducts().stream()
-                .map(p -> p.getTotal())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
             // Serializar productos a JSON
-            String productsJson = objectMapper.writeValueAsString(saleRequest.getProducts());
+            String productsJson = input.productsJson();
+            if (event.isEnabled()) {
+                // Bytes en UTF-8 (como se guarda), no caracteres; la copia solo si JFR registra el evento
+                event.productsBytes = productsJson.getBytes(StandardCharsets.UTF_8).length;
+            }
             
             // Crear entidad
+            CustomerInfo customer = input.customer();
             Sale sale = new Sale(
-                saleRequest.getCustomer().getName(),
-                saleRequest.getCustomer().getIdentification(),
-                saleRequest.getCustomer().getEmail(),
+                customer.getName(),
+                customer.getIdentification(),
+                customer.getEmail(),
                 totalAmount,
                 productsJson
             );
             
             // Guardar en BD
             Sale savedSale = saleRepository.save(sale);
+            event.saleId = savedSale.getId();
+            event.outcome = "OK";
             return savedSale;
             
         } catch (Exception e) {
             System.err.println("❌ Error al guardar venta: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al guardar venta: " + e.getMessage(), e);
+        } finally {
+            backupService.recordWrite(System.nanoTime() - start);
+            event.commit();
         }
     }
 }
\ No newline at end of file
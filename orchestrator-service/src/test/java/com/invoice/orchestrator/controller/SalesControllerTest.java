@@ -0,0 +1,67 @@
+package com.invoice.orchestrator.controller;
+
+import com.invoice.orchestrator.exception.GlobalExceptionHandler;
+import com.invoice.orchestrator.security.ApiClient;
+import com.invoice.orchestrator.security.ApiKeyFilter;
+import com.invoice.orchestrator.service.Deadline;
+import com.invoice.orchestrator.service.SaleStreamParser;
+import com.invoice.orchestrator.service.SalesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SalesControllerTest {
+
+    private static final String SALE = """
+        {"customer":{"name":"Ana","identification":"ID1","email":"ana@example.com"},
+         "products":[{"name":"Widget","price":10,"quantity":1}]}
+        """;
+
+    private SalesService salesService;
+    private SaleStreamParser saleStreamParser;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        salesService = mock(SalesService.class);
+        saleStreamParser = mock(SaleStreamParser.class);
+        SalesController controller = new SalesController(salesService, null, saleStreamParser, null, null);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void rejectsANonPositiveTimeoutBeforeCreatingTheSale() throws Exception {
+        expectRejected("/api/sales", "0");
+        expectRejected("/api/sales", "-1");
+
+        verifyNoInteractions(salesService);
+    }
+
+    @Test
+    void rejectsANonPositiveTimeoutBeforeReadingTheStream() throws Exception {
+        expectRejected("/api/sales/ingest", "0");
+        expectRejected("/api/sales/ingest", "-1");
+
+        verifyNoInteractions(saleStreamParser, salesService);
+    }
+
+    private void expectRejected(String path, String timeoutMs) throws Exception {
+        mockMvc.perform(post(path)
+                .requestAttr(ApiKeyFilter.CLIENT_ATTRIBUTE, new ApiClient("test", "key", 1))
+                .header(Deadline.HEADER, timeoutMs)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(SALE))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.details['" + Deadline.HEADER + "']").value("Debe ser mayor a 0"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.invoice.orchestrator.model;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.invoice.orchestrator.exception.InvalidAmountException;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void parseScalesToMinorUnits() {
+        assertThat(Money.parse("50000")).isEqualTo(5_000_000L);
+        assertThat(Money.parse("50000.5")).isEqualTo(5_000_050L);
+        assertThat(Money.parse("0.05")).isEqualTo(5L);
+        assertThat(Money.parse(".5")).isEqualTo(50L);
+        assertThat(Money.parse("+3.25")).isEqualTo(325L);
+        assertThat(Money.parse("-3.25")).isEqualTo(-325L);
+    }
+
+    @Test
+    void parseAcceptsTrailingZerosButNeverRounds() {
+        assertThat(Money.parse("1.2300")).isEqualTo(123L);
+        assertThatThrownBy(() -> Money.parse("1.234")).isInstanceOf(InvalidAmountException.class);
+        assertThatThrownBy(() -> Money.parse("0.001")).isInstanceOf(InvalidAmountException.class);
+    }
+
+    @Test
+    void parseCoversTheFullLongRange() {
+        assertThat(Money.parse("92233720368547758.07")).isEqualTo(Long.MAX_VALUE);
+        assertThat(Money.parse("-92233720368547758.08")).isEqualTo(Long.MIN_VALUE);
+        assertThatThrownBy(() -> Money.parse("92233720368547758.08")).isInstanceOf(InvalidAmountException.class);
+        assertThatThrownBy(() -> Money.parse("99999999999999999999")).isInstanceOf(InvalidAmountException.class);
+    }
+
+    @Test
+    void parseRejectsMalformedText() {
+        for (String text : new String[] {"", "-", ".", "1.2.3", "12a", "1,5", " 1"}) {
+            assertThatThrownBy(() -> Money.parse(text)).as(text).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test
+    void formatAlwaysWritesTwoDecimals() {
+        assertThat(Money.format(5_000_000L)).isEqualTo("50000.00");
+        assertThat(Money.format(5L)).isEqualTo("0.05");
+        assertThat(Money.format(-5L)).isEqualTo("-0.05");
+        assertThat(Money.format(-325L)).isEqualTo("-3.25");
+        assertThat(Money.format(Long.MIN_VALUE)).isEqualTo("-92233720368547758.08");
+    }
+
+    @Test
+    void formatAndParseRoundTrip() {
+        for (long value : new long[] {0, 1, 99, 100, 101, -1, -100, 123_456_789L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertThat(Money.parse(Money.format(value))).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void arithmeticOverflowIsAnInvalidAmount() {
+        assertThat(Money.lineTotal(1_050L, 3)).isEqualTo(3_150L);
+        assertThatThrownBy(() -> Money.lineTotal(Long.MAX_VALUE / 2, 3)).isInstanceOf(InvalidAmountException.class);
+        assertThatThrownBy(() -> Money.add(Long.MAX_VALUE, 1)).isInstanceOf(InvalidAmountException.class);
+    }
+
+    @Test
+    void bigDecimalConversionIsExact() {
+        assertThat(Money.fromBigDecimal(new BigDecimal("1E3"))).isEqualTo(100_000L);
+        assertThat(Money.toBigDecimal(123L)).isEqualByComparingTo("1.23");
+        assertThatThrownBy(() -> Money.fromBigDecimal(new BigDecimal("0.125"))).isInstanceOf(InvalidAmountException.class);
+    }
+
+    @Test
+    void deserializerRejectsUnrepresentableAmounts() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThat(mapper.readValue("{\"amount\": 12.5}", Amount.class).amount).isEqualTo(1_250L);
+        assertThat(mapper.readValue("{\"amount\": \"7\"}", Amount.class).amount).isEqualTo(700L);
+        assertThatThrownBy(() -> mapper.readValue("{\"amount\": 12.345}", Amount.class))
+            .isInstanceOf(JsonMappingException.class);
+    }
+
+    static class Amount {
+        @JsonDeserialize(using = Money.Deserializer.class)
+        public Long amount;
+    }
+}
@@ -0,0 +1,44 @@
+package com.invoice.orchestrator.model.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductInfoTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void missingPriceIsReportedAsMissing() throws Exception {
+        ProductInfo product = mapper.readValue("{\"name\": \"Widget\", \"quantity\": 1}", ProductInfo.class);
+
+        assertThat(messagesFor(product)).containsExactly("El precio es obligatorio");
+    }
+
+    @Test
+    void zeroPriceIsReportedAsNotPositive() throws Exception {
+        ProductInfo product = mapper.readValue("{\"name\": \"Widget\", \"price\": 0, \"quantity\": 1}", ProductInfo.class);
+
+        assertThat(messagesFor(product)).containsExactly("El precio debe ser mayor a 0");
+    }
+
+    @Test
+    void priceIsReadInMinorUnits() throws Exception {
+        ProductInfo product = mapper.readValue("{\"name\": \"Widget\", \"price\": 10.5, \"quantity\": 2}", ProductInfo.class);
+
+        assertThat(product.getPrice()).isEqualTo(1_050L);
+        assertThat(messagesFor(product)).isEmpty();
+    }
+
+    private Set<String> messagesFor(ProductInfo product) {
+        Set<ConstraintViolation<ProductInfo>> violations = validator.validate(product);
+        return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,109 @@
+package com.invoice.orchestrator.repository;
+
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SaleRepositoryTest {
+
+    /**
+     * Solo entidades y repositorios: la configuración de la aplicación arrastra
+     * clientes HTTP y servicios que este test no necesita.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Sale.class)
+    static class JpaOnly {
+    }
+
+    @TempDir
+    static Path tempDir;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + tempDir.resolve("sales.db"));
+    }
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Test
+    void transitionAppliesOnlyFromTheExpectedStatus() {
+        Long id = saleRepository.save(sale()).getId();
+
+        assertThat(saleRepository.transition(id, SaleStatus.PENDING, SaleStatus.INVOICED, LocalDateTime.now())).isEqualTo(1);
+        // Una segunda etapa que todavía cree que está PENDING no la pisa
+        assertThat(saleRepository.transition(id, SaleStatus.PENDING, SaleStatus.CANCELLED, LocalDateTime.now())).isZero();
+        assertThat(saleRepository.findById(id)).get().extracting(Sale::getStatus).isEqualTo(SaleStatus.INVOICED);
+    }
+
+    @Test
+    void compensationMovesPendingToCancelled() {
+        Long id = saleRepository.save(sale()).getId();
+
+        assertThat(saleRepository.transition(id, SaleStatus.PENDING, SaleStatus.CANCELLED, LocalDateTime.now())).isEqualTo(1);
+        assertThat(saleRepository.transition(id, SaleStatus.PENDING, SaleStatus.INVOICED, LocalDateTime.now())).isZero();
+        assertThat(saleRepository.findById(id)).get().extracting(Sale::getStatus).isEqualTo(SaleStatus.CANCELLED);
+    }
+
+    @Test
+    void recoveryClaimSucceedsOnceForTheSeenVersion() {
+        Long id = saleRepository.save(sale()).getId();
+        Sale seen = saleRepository.findById(id).orElseThrow();
+
+        LocalDateTime now = seen.getUpdatedAt().plusSeconds(1);
+        assertThat(saleRepository.claimForRecovery(id, SaleStatus.PENDING, seen.getUpdatedAt(), now)).isEqualTo(1);
+        // Otro barrido con la misma lectura ya no la reclama
+        assertThat(saleRepository.claimForRecovery(id, SaleStatus.PENDING, seen.getUpdatedAt(), now.plusSeconds(1))).isZero();
+
+        Sale claimed = saleRepository.findById(id).orElseThrow();
+        assertThat(claimed.getRecoveryAttempts()).isEqualTo(1);
+        // SQLite guarda los timestamps con precisión de milisegundos
+        assertThat(claimed.getUpdatedAt()).isEqualTo(now.truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    @Test
+    void recoveryClaimFailsWhenTheStatusChanged() {
+        Long id = saleRepository.save(sale()).getId();
+        Sale seen = saleRepository.findById(id).orElseThrow();
+        saleRepository.transition(id, SaleStatus.PENDING, SaleStatus.INVOICED, seen.getUpdatedAt());
+
+        assertThat(saleRepository.claimForRecovery(id, SaleStatus.PENDING, seen.getUpdatedAt(), LocalDateTime.now())).isZero();
+    }
+
+    @Test
+    void staleSalesQueryHonoursStatusAgeAndAttempts() {
+        Sale stale = saleRepository.save(sale());
+        Sale exhausted = sale();
+        exhausted.setRecoveryAttempts(3);
+        saleRepository.save(exhausted);
+        Sale cancelled = saleRepository.save(sale());
+        saleRepository.transition(cancelled.getId(), SaleStatus.PENDING, SaleStatus.CANCELLED, LocalDateTime.now().minusHours(1));
+
+        assertThat(saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(
+                EnumSet.of(SaleStatus.PENDING, SaleStatus.INVOICED, SaleStatus.EMAIL_FAILED),
+                LocalDateTime.now().plusMinutes(1), 3))
+            .extracting(Sale::getId).containsExactly(stale.getId());
+    }
+
+    private static Sale sale() {
+        return new Sale("Ana Perez", "123456", "ana@example.com", 2100, "[]");
+    }
+}
@@ -0,0 +1,100 @@
+package com.invoice.orchestrator.security;
+
+import com.invoice.orchestrator.config.ApiClientProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiKeyFilterTest {
+
+    private ApiKeyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientProperties properties = new ApiClientProperties();
+        ApiClientProperties.Client admin = new ApiClientProperties.Client();
+        admin.setKey("admin-key");
+        admin.setAdmin(true);
+        properties.getClients().put("admin", admin);
+        filter = new ApiKeyFilter(new ApiClientRegistry(properties, "legacy-key"));
+    }
+
+    @Test
+    void rejectsNonAdminClientOnAdminPaths() throws Exception {
+        MockHttpServletResponse response = send("/api/admin/backups", "/api/admin/backups", "legacy-key");
+
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(filter.getAdminRequiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    void checksTheDecodedPathNotTheRawUri() throws Exception {
+        MockHttpServletResponse response = send("/api/%61dmin;x=1/backups", "/api/admin/backups", "legacy-key");
+
+        assertThat(response.getStatus()).isEqualTo(403);
+    }
+
+    @Test
+    void admitsAdminClientOnAdminPaths() throws Exception {
+        MockHttpServletResponse response = send("/api/admin/backups", "/api/admin/backups", "admin-key");
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.getAdminRequiredCount()).isZero();
+    }
+
+    @Test
+    void adminPathsStayClosedWithoutAnAdminKey() throws Exception {
+        ApiClientProperties properties = new ApiClientProperties();
+        ApiClientProperties.Client admin = new ApiClientProperties.Client();
+        admin.setKey("");
+        admin.setAdmin(true);
+        properties.getClients().put("admin", admin);
+        filter = new ApiKeyFilter(new ApiClientRegistry(properties, "legacy-key"));
+
+        assertThat(send("/api/admin/backups", "/api/admin/backups", "").getStatus()).isEqualTo(401);
+        assertThat(send("/api/admin/backups", "/api/admin/backups", "legacy-key").getStatus()).isEqualTo(403);
+    }
+
+    @Test
+    void admitsAnyClientOutsideAdminPaths() throws Exception {
+        assertThat(send("/api/sales", "/api/sales", "legacy-key").getStatus()).isEqualTo(200);
+        assertThat(send("/api/administration", "/api/administration", "legacy-key").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsUnknownKey() throws Exception {
+        assertThat(send("/api/sales", "/api/sales", "otra-key").getStatus()).isEqualTo(403);
+        assertThat(filter.getInvalidKeyCount()).isEqualTo(1);
+    }
+
+    @Test
+    void answers429WithRetryAfterWhenRateLimited() throws Exception {
+        ApiClientProperties properties = new ApiClientProperties();
+        ApiClientProperties.Client limited = new ApiClientProperties.Client();
+        limited.setKey("limitada");
+        limited.setRatePerSecond(0.5);
+        limited.setBurst(1);
+        properties.getClients().put("backoffice", limited);
+        filter = new ApiKeyFilter(new ApiClientRegistry(properties, "legacy-key"));
+
+        assertThat(send("/api/sales", "/api/sales", "limitada").getStatus()).isEqualTo(200);
+        MockHttpServletResponse response = send("/api/sales", "/api/sales", "limitada");
+
+        // Un token cada 2 s: se pide esperar como mucho eso, redondeado hacia arriba
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(response.getHeader("Retry-After"))).isBetween(1L, 2L);
+    }
+
+    private MockHttpServletResponse send(String requestUri, String servletPath, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+        request.setServletPath(servletPath);
+        request.addHeader("X-API-Key", apiKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
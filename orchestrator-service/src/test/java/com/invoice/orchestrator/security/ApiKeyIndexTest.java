@@ -0,0 +1,55 @@
+package com.invoice.orchestrator.security;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ApiKeyIndexTest {
+
+    @Test
+    void findsEachClientByItsKey() {
+        List<ApiClient> clients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            clients.add(new ApiClient("cliente-" + i, "key-" + i, 1));
+        }
+        ApiKeyIndex index = new ApiKeyIndex(clients);
+
+        for (ApiClient client : clients) {
+            assertThat(index.find(client.getKey())).isSameAs(client);
+        }
+    }
+
+    @Test
+    void returnsNullForUnknownOrPartialKeys() {
+        ApiKeyIndex index = new ApiKeyIndex(List.of(new ApiClient("checkout", "secreto-123", 1)));
+
+        assertThat(index.find("secreto-12")).isNull();
+        assertThat(index.find("secreto-1234")).isNull();
+        assertThat(index.find("")).isNull();
+    }
+
+    @Test
+    void handlesLongAndNonAsciiKeys() {
+        String longKey = "k".repeat(300);
+        ApiClient longClient = new ApiClient("largo", longKey, 1);
+        ApiClient accented = new ApiClient("acentos", "contraseña-ñandú", 1);
+        ApiKeyIndex index = new ApiKeyIndex(List.of(longClient, accented));
+
+        assertThat(index.find(longKey)).isSameAs(longClient);
+        assertThat(index.find("contraseña-ñandú")).isSameAs(accented);
+        assertThat(index.find("contrasena-nandu")).isNull();
+    }
+
+    @Test
+    void rejectsDuplicateKeys() {
+        List<ApiClient> clients = List.of(new ApiClient("a", "misma", 1), new ApiClient("b", "misma", 1));
+
+        assertThatThrownBy(() -> new ApiKeyIndex(clients))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("a")
+            .hasMessageContaining("b");
+    }
+}
@@ -0,0 +1,67 @@
+package com.invoice.orchestrator.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void admitsBurstThenAsksToWaitOneInterval() {
+        TokenBucket bucket = new TokenBucket(2, 3);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire(now)).isZero();
+        }
+        long wait = bucket.tryAcquire(now);
+
+        // A 2 por segundo el próximo token llega en medio segundo
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND / 2);
+        assertThat(bucket.available(now)).isZero();
+    }
+
+    @Test
+    void admitsAgainAfterTheAnnouncedWait() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = System.nanoTime();
+        assertThat(bucket.tryAcquire(now)).isZero();
+
+        long wait = bucket.tryAcquire(now);
+        assertThat(bucket.tryAcquire(now + wait - 1)).isPositive();
+        assertThat(bucket.tryAcquire(now + wait)).isZero();
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(1, 1);
+        long now = System.nanoTime();
+        assertThat(bucket.tryAcquire(now)).isZero();
+
+        long firstWait = bucket.tryAcquire(now);
+        for (int i = 0; i < 10; i++) {
+            bucket.tryAcquire(now);
+        }
+        assertThat(bucket.tryAcquire(now)).isEqualTo(firstWait);
+    }
+
+    @Test
+    void refillsUpToBurstOnly() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long later = System.nanoTime() + 60 * SECOND;
+
+        assertThat(bucket.available(later)).isEqualTo(5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(later)).isZero();
+        }
+        assertThat(bucket.tryAcquire(later)).isPositive();
+    }
+
+    @Test
+    void rejectsNonPositiveRate() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
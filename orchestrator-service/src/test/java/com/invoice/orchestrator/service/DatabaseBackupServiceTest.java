@@ -0,0 +1,151 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatabaseBackupServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String url;
+    private SaleRepository saleRepository;
+    private SaleArchive saleArchive;
+    private SaleSearchService saleSearchService;
+    private DatabaseBackupService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + tempDir.resolve("sales.db") + "?journal_mode=WAL";
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sales (id INTEGER PRIMARY KEY, padding BLOB)");
+            statement.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < 500) "
+                + "INSERT INTO sales (padding) SELECT randomblob(2000) FROM n");
+        }
+
+        saleRepository = mock(SaleRepository.class);
+        saleArchive = mock(SaleArchive.class);
+        saleSearchService = mock(SaleSearchService.class);
+        service = new DatabaseBackupService(saleRepository, saleArchive, saleSearchService,
+            tempDir.resolve("backups").toString());
+        ReflectionTestUtils.setField(service, "datasourceUrl", url);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "pagesPerStep", 4);
+        ReflectionTestUtils.setField(service, "stepPauseMs", 2L);
+        ReflectionTestUtils.setField(service, "retentionCount", 7);
+        ReflectionTestUtils.setField(service, "busyRetryMs", 100);
+        ReflectionTestUtils.setField(service, "busyMaxRetries", 50);
+        ReflectionTestUtils.setField(service, "maxRestarts", 2);
+    }
+
+    @Test
+    void finishesUnderReadLockWhenWritesKeepRestartingTheCopy() throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Exception> writerError = new AtomicReference<>();
+        // Sin busy timeout: cualquier espera por el lock del backup haría fallar el guardado
+        Thread writer = new Thread(() -> {
+            try (Connection connection = DriverManager.getConnection(url + "&busy_timeout=0");
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO sales (padding) VALUES (randomblob(100))")) {
+                while (!done.get()) {
+                    long start = System.nanoTime();
+                    insert.executeUpdate();
+                    service.recordWrite(System.nanoTime() - start);
+                    Thread.sleep(1);
+                }
+            } catch (SQLException | InterruptedException e) {
+                writerError.set(e);
+            }
+        });
+        writer.start();
+
+        Map<String, Object> result;
+        try {
+            result = service.backup();
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+
+        assertThat(writerError.get()).isNull();
+        assertThat(result.get("journalMode")).isEqualTo("wal");
+        assertThat((Long) result.get("restarts")).isGreaterThan(2);
+        assertThat(result.get("finishedUnderReadLock")).isEqualTo(true);
+        assertThat(result.get("verified")).asInstanceOf(InstanceOfAssertFactories.MAP)
+            .containsEntry("integrity", "ok");
+        assertThat(writes(result)).isPositive();
+    }
+
+    @Test
+    void writerMetricsBelongToEachRun() throws Exception {
+        service.recordWrite(1_000_000);
+        Map<String, Object> quiet = service.backup();
+
+        assertThat(quiet.get("restarts")).isEqualTo(0L);
+        assertThat(quiet.get("finishedUnderReadLock")).isEqualTo(false);
+        assertThat(writes(quiet)).isZero();
+        assertThat(service.status().get("running")).isEqualTo(false);
+    }
+
+    @Test
+    void doesNotTakeTheReadLockOutsideWalMode() throws Exception {
+        url = "jdbc:sqlite:" + tempDir.resolve("sales.db") + "?journal_mode=DELETE";
+        ReflectionTestUtils.setField(service, "datasourceUrl", url);
+        ReflectionTestUtils.setField(service, "maxRestarts", 0);
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO sales (padding) VALUES (randomblob(100))");
+        }
+
+        Map<String, Object> result = service.backup();
+
+        assertThat(result.get("journalMode")).isEqualTo("delete");
+        assertThat(result.get("finishedUnderReadLock")).isEqualTo(false);
+    }
+
+    @Test
+    void restoresABackupOverTheLiveWalDatabase() throws Exception {
+        String name = (String) service.backup().get("name");
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO sales (padding) VALUES (randomblob(100))");
+        }
+        when(saleRepository.count()).thenReturn(500L);
+
+        Map<String, Object> result = service.restore(name);
+
+        assertThat(result.get("verified")).asInstanceOf(InstanceOfAssertFactories.MAP)
+            .containsEntry("sales", 500L);
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM sales")) {
+            rs.next();
+            assertThat(rs.getLong(1)).isEqualTo(500L);
+        }
+        verify(saleSearchService).initializeIndex();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long writes(Map<String, Object> result) {
+        return (Long) ((Map<String, Object>) result.get("writersDuringBackup")).get("writes");
+    }
+}
@@ -0,0 +1,63 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import java.net.ConnectException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+class EmailServiceClientTest {
+
+    private static final String URL = "http://email.test/send-invoice";
+
+    private MockRestServiceServer server;
+    private PdfClaimCheckStore claimCheckStore;
+    private EmailServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        claimCheckStore = new PdfClaimCheckStore("secreto", 300, 1024 * 1024);
+        client = new EmailServiceClient(restTemplate, null, claimCheckStore);
+        ReflectionTestUtils.setField(client, "emailServiceUrl", "http://email.test");
+        ReflectionTestUtils.setField(client, "emailServiceApiKey", "key");
+        ReflectionTestUtils.setField(client, "claimCheckEnabled", true);
+        ReflectionTestUtils.setField(client, "orchestratorPublicUrl", "http://orchestrator.test");
+    }
+
+    @Test
+    void keepsThePdfWhenTheEmailIsAccepted() {
+        server.expect(requestTo(URL)).andExpect(method(HttpMethod.POST)).andRespond(withStatus(HttpStatus.ACCEPTED));
+
+        assertThat(client.sendInvoiceEmail(1L, new SaleRequest(), new byte[100])).isTrue();
+        assertThat(claimCheckStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    void releasesThePdfWhenTheEmailIsRejected() {
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThat(client.sendInvoiceEmail(1L, new SaleRequest(), new byte[100])).isFalse();
+        assertThat(claimCheckStore.size()).isZero();
+        assertThat(claimCheckStore.getStoredBytes()).isZero();
+    }
+
+    @Test
+    void releasesThePdfWhenTheCallFails() {
+        server.expect(requestTo(URL)).andRespond(withException(new ConnectException("caído")));
+
+        assertThat(client.sendInvoiceEmail(1L, new SaleRequest(), new byte[100])).isFalse();
+        assertThat(claimCheckStore.getStoredBytes()).isZero();
+    }
+}
@@ -0,0 +1,56 @@
+package com.invoice.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfClaimCheckStoreTest {
+
+    @Test
+    void resolvesUntilReleased() {
+        PdfClaimCheckStore store = new PdfClaimCheckStore("secreto", 300, 1024);
+        byte[] pdf = new byte[100];
+        String reference = store.put(pdf);
+
+        assertThat(store.resolve(reference)).isSameAs(pdf);
+        assertThat(store.getStoredBytes()).isEqualTo(100);
+
+        store.release(reference);
+        assertThat(store.resolve(reference)).isNull();
+        assertThat(store.getStoredBytes()).isZero();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void rejectsWhenTotalBytesExceedLimit() {
+        PdfClaimCheckStore store = new PdfClaimCheckStore("secreto", 300, 250);
+
+        assertThat(store.put(new byte[100])).isNotNull();
+        assertThat(store.put(new byte[100])).isNotNull();
+        assertThat(store.put(new byte[100])).isNull();
+        assertThat(store.getStoredBytes()).isEqualTo(200);
+        assertThat(store.put(new byte[50])).isNotNull();
+    }
+
+    @Test
+    void rejectsTamperedReference() {
+        PdfClaimCheckStore store = new PdfClaimCheckStore("secreto", 300, 1024);
+        String reference = store.put(new byte[10]);
+        String[] parts = reference.split("\\.");
+
+        assertThat(store.resolve(parts[0] + "." + (Long.parseLong(parts[1]) + 60) + "." + parts[2])).isNull();
+        assertThat(store.resolve("sin-puntos")).isNull();
+    }
+
+    @Test
+    void evictsExpiredEntriesAndFreesBytes() {
+        PdfClaimCheckStore store = new PdfClaimCheckStore("secreto", -1, 1024);
+        String reference = store.put(new byte[100]);
+
+        store.evictExpired();
+
+        assertThat(store.size()).isZero();
+        assertThat(store.getStoredBytes()).isZero();
+        assertThat(store.resolve(reference)).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.config.ApiClientProperties;
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.security.ApiClientRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfGenerationSchedulerTest {
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final CountDownLatch holderRelease = new CountDownLatch(1);
+    private PdfGenerationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientProperties properties = new ApiClientProperties();
+        properties.getClients().put("bulk", client(1));
+        properties.getClients().put("interactive", client(4));
+        scheduler = new PdfGenerationScheduler(new ApiClientRegistry(properties, "legacy-key"), 1, 3, 10_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        holderRelease.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+    }
+
+    @Test
+    void grantsFreedSlotsByWeightedFinishTag() throws Exception {
+        occupySlot();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            enqueue("bulk", order);
+        }
+        for (int i = 0; i < 3; i++) {
+            enqueue("interactive", order);
+        }
+
+        holderRelease.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+
+        // Etiquetas: interactive 0.25, 0.5, 0.75; bulk 1, 2, 3
+        assertThat(order).containsExactly("interactive", "interactive", "interactive", "bulk", "bulk", "bulk");
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    @Test
+    void rejectsWhenClientQueueIsFull() throws Exception {
+        occupySlot();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            enqueue("bulk", order);
+        }
+
+        assertThatThrownBy(() -> scheduler.execute("bulk", () -> null))
+            .isInstanceOf(ServiceOverloadedException.class);
+        // Otro cliente todavía puede encolar
+        enqueue("interactive", order);
+        assertThat(scheduler.getQueueDepth()).isEqualTo(4);
+    }
+
+    @Test
+    void runsImmediatelyWhenThereIsCapacity() {
+        assertThat(scheduler.execute("bulk", () -> "ok")).isEqualTo("ok");
+        assertThat(scheduler.getInFlight()).isZero();
+    }
+
+    private void occupySlot() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        start(() -> scheduler.execute("bulk", () -> {
+            started.countDown();
+            await(holderRelease);
+            return null;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    /**
+     * Encola una petición y espera a que quede en la cola, para fijar el orden de llegada.
+     */
+    private void enqueue(String client, List<String> order) throws InterruptedException {
+        int depth = scheduler.getQueueDepth();
+        start(() -> scheduler.execute(client, () -> order.add(client)));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getQueueDepth() == depth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(scheduler.getQueueDepth()).isEqualTo(depth + 1);
+    }
+
+    private void start(Runnable task) {
+        Thread thread = new Thread(task);
+        threads.add(thread);
+        thread.start();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ApiClientProperties.Client client(int weight) {
+        ApiClientProperties.Client client = new ApiClientProperties.Client();
+        client.setWeight(weight);
+        return client;
+    }
+}
@@ -0,0 +1,157 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.RegenerationJob;
+import com.invoice.orchestrator.model.entity.RegenerationJobStatus;
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.RegenerationJobRepository;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PdfRegenerationServiceTest {
+
+    private final Map<Long, RegenerationJob> jobs = new HashMap<>();
+    private final Map<Long, Sale> sales = new HashMap<>();
+    private SaleRepository saleRepository;
+    private PdfServiceClient pdfServiceClient;
+    private InvoiceStorage invoiceStorage;
+    private PdfRegenerationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        SaleArchive saleArchive = mock(SaleArchive.class);
+        RegenerationJobRepository jobRepository = mock(RegenerationJobRepository.class);
+        SaleMapper saleMapper = mock(SaleMapper.class);
+        pdfServiceClient = mock(PdfServiceClient.class);
+        PdfGenerationScheduler pdfScheduler = mock(PdfGenerationScheduler.class);
+        invoiceStorage = mock(InvoiceStorage.class);
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+
+        // Los trabajos corren en el hilo del test y se "guardan" en memoria
+        doAnswer(call -> {
+            ((Runnable) call.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any());
+        when(jobRepository.save(any())).thenAnswer(call -> {
+            RegenerationJob job = call.getArgument(0);
+            if (job.getId() == null) {
+                ReflectionTestUtils.setField(job, "id", (long) jobs.size() + 1);
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyLong())).thenAnswer(call -> Optional.ofNullable(jobs.get(call.<Long>getArgument(0))));
+        when(pdfScheduler.execute(any(), any())).thenAnswer(call -> ((Supplier<Object>) call.getArgument(1)).get());
+        when(saleMapper.toSaleRequest(any())).thenReturn(new SaleRequest());
+
+        LongStream.rangeClosed(1, 5).forEach(id -> sales.put(id, sale(id)));
+        when(saleRepository.findMaxId()).thenReturn(5L);
+        when(saleRepository.findById(anyLong())).thenAnswer(call -> Optional.ofNullable(sales.get(call.<Long>getArgument(0))));
+        when(saleRepository.findByIdGreaterThanAndIdLessThanEqualAndStatusInOrderByIdAsc(anyLong(), anyLong(), any(), any()))
+            .thenAnswer(call -> {
+                long after = call.getArgument(0);
+                long to = call.getArgument(1);
+                List<Sale> batch = new ArrayList<>();
+                for (long id = after + 1; id <= to && batch.size() < 2; id++) {
+                    batch.add(sales.get(id));
+                }
+                return batch;
+            });
+
+        service = new PdfRegenerationService(saleRepository, saleArchive, jobRepository, saleMapper,
+            pdfServiceClient, pdfScheduler, invoiceStorage, executor);
+        ReflectionTestUtils.setField(service, "maxParallelism", 2);
+        ReflectionTestUtils.setField(service, "maxBatchSize", 2);
+    }
+
+    @Test
+    void keepsFailedIdsWhileTheCheckpointMovesOn() {
+        failPdfFor(2L, 5L);
+
+        Map<String, Object> started = service.start(null, null, 2, 2);
+
+        RegenerationJob job = jobs.get((Long) started.get("id"));
+        assertThat(job.getStatus()).isEqualTo(RegenerationJobStatus.COMPLETED);
+        assertThat(job.getLastCompletedId()).isEqualTo(5L);
+        assertThat(job.getProcessed()).isEqualTo(3);
+        assertThat(job.getFailed()).isEqualTo(2);
+        assertThat(job.getFailedIds()).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void retriesOnlyTheFailedSales() {
+        failPdfFor(2L, 5L);
+        Long first = (Long) service.start(null, null, 2, 2).get("id");
+        when(pdfServiceClient.generatePdf(anyLong(), any(SaleRequest.class))).thenReturn(new byte[] {1});
+        // Una de las ventas con error se canceló entretanto: se salta
+        sales.get(5L).setStatus(SaleStatus.CANCELLED);
+
+        Map<String, Object> retry = service.retryFailed(first);
+
+        RegenerationJob job = jobs.get((Long) retry.get("id"));
+        assertThat(job.getRetryOfJobId()).isEqualTo(first);
+        assertThat(job.getStatus()).isEqualTo(RegenerationJobStatus.COMPLETED);
+        assertThat(job.getProcessed()).isEqualTo(1);
+        assertThat(job.getFailed()).isZero();
+        verify(invoiceStorage).save(eq(2L), any());
+        verify(invoiceStorage, never()).save(eq(5L), any());
+    }
+
+    @Test
+    void rejectsRetryWithoutFailedIds() {
+        Long first = (Long) service.start(null, null, 2, 2).get("id");
+
+        assertThatThrownBy(() -> service.retryFailed(first)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.retryFailed(99L)).isNull();
+    }
+
+    @Test
+    void boundsTheStoredFailedIds() {
+        RegenerationJob job = new RegenerationJob(1, 5_000, 100, 1, 5_000);
+        job.addFailedIds(LongStream.rangeClosed(1, 600).boxed().toList());
+        job.addFailedIds(LongStream.rangeClosed(601, 1_200).boxed().toList());
+
+        assertThat(job.getFailedIds()).hasSize(RegenerationJob.MAX_FAILED_IDS).endsWith(1_000L);
+    }
+
+    private void failPdfFor(Long... ids) {
+        when(pdfServiceClient.generatePdf(anyLong(), any(SaleRequest.class))).thenAnswer(call -> {
+            Long id = call.getArgument(0);
+            if (List.of(ids).contains(id)) {
+                throw new RuntimeException("pdf caído");
+            }
+            return new byte[] {1};
+        });
+    }
+
+    private static Sale sale(long id) {
+        Sale sale = new Sale("Cliente " + id, "ID" + id, "c" + id + "@example.com", 100, "[]");
+        sale.setId(id);
+        sale.setStatus(SaleStatus.EMAIL_SENT);
+        return sale;
+    }
+}
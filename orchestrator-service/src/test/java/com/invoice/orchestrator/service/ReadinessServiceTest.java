@@ -0,0 +1,76 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.service.DependencyProbe.DependencyStatus;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadinessServiceTest {
+
+    private DependencyProbe dependencyProbe;
+    private SalesService salesService;
+    private ReadinessService readinessService;
+
+    @BeforeEach
+    void setUp() {
+        dependencyProbe = mock(DependencyProbe.class);
+        salesService = mock(SalesService.class);
+        PdfGenerationScheduler pdfScheduler = mock(PdfGenerationScheduler.class);
+        InvoiceEmailDispatcher emailDispatcher = mock(InvoiceEmailDispatcher.class);
+        when(pdfScheduler.getMaxConcurrency()).thenReturn(4);
+        when(emailDispatcher.getPoolSize()).thenReturn(2);
+        when(dependencyProbe.getMaxAgeMs()).thenReturn(15_000L);
+        when(dependencyProbe.getPdfService()).thenReturn(DependencyStatus.down(1000, "timeout",
+            "I/O error on GET request for \"http://pdf-service:3001/health\": Read timed out"));
+        when(dependencyProbe.getEmailService()).thenReturn(DependencyStatus.up(3));
+        when(dependencyProbe.getDatabase()).thenReturn(DependencyStatus.down(2, "read_only",
+            "Archivo de base de datos de solo lectura: /app/data/sales.db"));
+
+        readinessService = new ReadinessService(dependencyProbe, salesService, pdfScheduler, emailDispatcher);
+        ReflectionTestUtils.setField(readinessService, "maxInFlightSales", 5);
+        ReflectionTestUtils.setField(readinessService, "maxPdfQueueDepth", 50);
+        ReflectionTestUtils.setField(readinessService, "maxEmailQueueSize", 400);
+    }
+
+    @Test
+    void publicViewOnlyCarriesReasonCodes() {
+        when(salesService.getInFlightSales()).thenReturn(6);
+
+        Map<String, Object> readiness = readinessService.evaluate(false);
+
+        assertThat(readiness.get("ready")).isEqualTo(false);
+        assertThat(readiness.get("reasons")).asInstanceOf(InstanceOfAssertFactories.LIST)
+            .containsExactly("pdf_unavailable", "database_unwritable", "in_flight_sales_over_threshold");
+        assertThat(dependency(readiness, "pdfService"))
+            .containsEntry("status", "DOWN")
+            .containsEntry("reason", "timeout")
+            .doesNotContainKey("error");
+        assertThat(dependency(readiness, "database"))
+            .containsEntry("reason", "read_only")
+            .doesNotContainKey("error");
+        assertThat(readiness).doesNotContainKey("thresholds");
+        assertThat(readiness.toString()).doesNotContain("/app/data", "pdf-service:3001");
+    }
+
+    @Test
+    void adminViewAddsErrorDetailsAndThresholds() {
+        Map<String, Object> readiness = readinessService.evaluate(true);
+
+        assertThat(dependency(readiness, "database"))
+            .containsEntry("error", "Archivo de base de datos de solo lectura: /app/data/sales.db");
+        assertThat(dependency(readiness, "emailService")).doesNotContainKeys("reason", "error");
+        assertThat(readiness.get("thresholds")).asInstanceOf(InstanceOfAssertFactories.MAP)
+            .containsEntry("maxInFlightSales", 5);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> dependency(Map<String, Object> readiness, String name) {
+        return (Map<String, Object>) ((Map<String, Object>) readiness.get("dependencies")).get(name);
+    }
+}
@@ -0,0 +1,139 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SaleArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<SaleArchive> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(SaleArchive::close);
+    }
+
+    @Test
+    void findsSalesAcrossFullAndPartiallyFilledBlocks() {
+        SaleArchive archive = open();
+        archive.append(sales(1, 60));
+        // El último bloque queda a medio llenar
+        archive.append(sales(61, 63));
+
+        assertThat(((Number) archive.snapshot().get("blocks")).intValue()).isGreaterThan(2);
+        for (long id = 1; id <= 63; id++) {
+            assertThat(archive.find(id)).get().extracting(Sale::getCustomerName).isEqualTo("Cliente " + id);
+        }
+        assertThat(archive.find(64L)).isEmpty();
+        assertThat(archive.find(0L)).isEmpty();
+        assertThat(archive.getMaxArchivedId()).isEqualTo(63);
+        assertThat(archive.findRange(58, 100, EnumSet.allOf(SaleStatus.class), 10))
+            .extracting(Sale::getId).containsExactly(59L, 60L, 61L, 62L, 63L);
+    }
+
+    @Test
+    void reopensWithTheSameIndex() {
+        SaleArchive archive = open();
+        archive.append(sales(1, 40));
+        archive.close();
+
+        SaleArchive reopened = open();
+        assertThat(reopened.getMaxArchivedId()).isEqualTo(40);
+        assertThat(reopened.find(17L)).get().extracting(Sale::getProducts).isEqualTo(products(17));
+    }
+
+    @Test
+    void truncatesIncompleteBlockAtTheTail() throws IOException {
+        SaleArchive archive = open();
+        archive.append(sales(1, 10));
+        Path segment = onlySegment();
+        long completeSize = Files.size(segment);
+        // Un solo bloque más (cabe en 1 KB)
+        archive.append(sales(11, 13));
+        archive.close();
+
+        // Corte durante el append: solo llegó parte del último bloque
+        truncate(segment, Files.size(segment) - 7);
+
+        SaleArchive recovered = open();
+        assertThat(recovered.getMaxArchivedId()).isEqualTo(10);
+        assertThat(Files.size(segment)).isEqualTo(completeSize);
+        assertThat(recovered.find(10L)).isPresent();
+        assertThat(recovered.find(11L)).isEmpty();
+
+        // Se puede seguir archivando desde el último bloque completo
+        recovered.append(sales(11, 12));
+        assertThat(recovered.find(12L)).isPresent();
+    }
+
+    @Test
+    void truncatesPartialBlockHeader() throws IOException {
+        SaleArchive archive = open();
+        archive.append(sales(1, 5));
+        Path segment = onlySegment();
+        long completeSize = Files.size(segment);
+        archive.close();
+
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0x53, 0x41, 0x4C}));
+        }
+
+        SaleArchive recovered = open();
+        assertThat(recovered.getMaxArchivedId()).isEqualTo(5);
+        assertThat(Files.size(segment)).isEqualTo(completeSize);
+    }
+
+    private SaleArchive open() {
+        // Bloques de 1 KB para tener varios bloques con pocas ventas
+        SaleArchive archive = new SaleArchive(tempDir.resolve("archive").toString(), 1, 1, 6);
+        archive.open();
+        opened.add(archive);
+        return archive;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("archive"))) {
+            List<Path> segments = files.toList();
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    private static List<Sale> sales(long fromId, long toId) {
+        List<Sale> sales = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            Sale sale = new Sale("Cliente " + id, "ID" + id, "c" + id + "@example.com", id * 100, products(id));
+            sale.setId(id);
+            sale.setStatus(SaleStatus.EMAIL_SENT);
+            sales.add(sale);
+        }
+        return sales;
+    }
+
+    private static String products(long id) {
+        return "[{\"name\":\"Producto " + id + "\",\"quantity\":1,\"price\":100,\"total\":100}]";
+    }
+}
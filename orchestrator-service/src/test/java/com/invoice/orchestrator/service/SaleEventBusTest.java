@@ -0,0 +1,176 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SaleEventBusTest {
+
+    private static final int BUFFER_SIZE = 16;
+    private static final Pattern EVENT_ID = Pattern.compile("(?m)^id:[0-9a-z]+-(\\d+)$");
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final SaleEventBus bus = newBus(1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void deliversEventsInOrder() throws Exception {
+        SseTestClient handler = SseTestClient.open(() -> bus.subscribe(null));
+
+        for (long saleId = 1; saleId <= 5; saleId++) {
+            bus.saleCreated(saleId, 100);
+        }
+
+        awaitTrue(() -> ids(handler.getContent()).size() == 5);
+        assertThat(ids(handler.getContent())).containsExactly("1", "2", "3", "4", "5");
+    }
+
+    @Test
+    void resumesAfterLastEventIdWhileStillBuffered() throws Exception {
+        for (long saleId = 1; saleId <= 5; saleId++) {
+            bus.saleCreated(saleId, 100);
+        }
+
+        SseTestClient handler = SseTestClient.open(() -> bus.subscribe(eventId(3)));
+
+        awaitTrue(() -> ids(handler.getContent()).size() == 2);
+        assertThat(ids(handler.getContent())).containsExactly("4", "5");
+    }
+
+    @Test
+    void resyncsWhenLastEventIdFellOutOfTheBuffer() throws Exception {
+        for (long saleId = 1; saleId <= BUFFER_SIZE * 2; saleId++) {
+            bus.statusChanged(saleId, SaleStatus.PENDING, SaleStatus.INVOICED);
+        }
+
+        SseTestClient handler = SseTestClient.open(() -> bus.subscribe(eventId(1)));
+        awaitTrue(() -> ids(handler.getContent()).size() == 1);
+        bus.saleCreated(99L, 100);
+        awaitTrue(() -> ids(handler.getContent()).size() == 2);
+
+        // resync lleva el id del último evento y continúa desde el siguiente
+        assertThat(handler.getContent()).startsWith("id:").contains("event:" + SaleEventBus.RESYNC);
+        assertThat(ids(handler.getContent())).containsExactly("32", "33");
+        assertThat(bus.snapshot()).containsEntry("resyncs", 1L);
+    }
+
+    @Test
+    void resyncsWhenLastEventIdIsFromAnotherProcess() throws Exception {
+        SaleEventBus previous = new SaleEventBus(BUFFER_SIZE, executor);
+        for (long saleId = 1; saleId <= 5; saleId++) {
+            bus.saleCreated(saleId, 100);
+        }
+
+        // La secuencia 2 sigue en el buffer, pero es del arranque anterior
+        String staleId = previous.snapshot().get("epoch") + "-2";
+        SseTestClient handler = SseTestClient.open(() -> bus.subscribe(staleId));
+
+        awaitTrue(() -> ids(handler.getContent()).size() == 1);
+        assertThat(handler.getContent()).startsWith("id:").contains("event:" + SaleEventBus.RESYNC);
+        assertThat(ids(handler.getContent())).containsExactly("5");
+    }
+
+    @Test
+    void resyncsOnUnreadableLastEventId() throws Exception {
+        bus.saleCreated(1L, 100);
+
+        SseTestClient handler = SseTestClient.open(() -> bus.subscribe("1"));
+
+        awaitTrue(() -> handler.getContent().contains("event:" + SaleEventBus.RESYNC));
+        assertThat(handler.getContent()).startsWith("id:").contains("event:" + SaleEventBus.RESYNC);
+    }
+
+    @Test
+    void rejectsSubscribersOverTheLimit() {
+        ReflectionTestUtils.setField(bus, "maxSubscribers", 1);
+        bus.subscribe(null);
+
+        assertThatThrownBy(() -> bus.subscribe(null)).isInstanceOf(ServiceOverloadedException.class);
+    }
+
+    @Test
+    void dropsStalledSubscriberWithoutStallingTheOthers() throws Exception {
+        ReflectionTestUtils.setField(bus, "sendTimeoutMs", 50L);
+        CountDownLatch release = new CountDownLatch(1);
+        SseTestClient stalled = SseTestClient.open(() -> bus.subscribe(null));
+        stalled.blockWrites(release);
+
+        // El único hilo de entrega queda bloqueado en el envío al suscriptor lento
+        bus.saleCreated(1L, 100);
+        awaitTrue(() -> executor.getActiveCount() == 1);
+        SseTestClient healthy = SseTestClient.open(() -> bus.subscribe(null));
+        bus.saleCreated(2L, 100);
+        Thread.sleep(100);
+        assertThat(healthy.getContent()).isEmpty();
+
+        bus.dropStalledSubscribers();
+
+        awaitTrue(() -> ids(healthy.getContent()).size() == 1);
+        assertThat(ids(healthy.getContent())).containsExactly("2");
+        assertThat(bus.snapshot())
+            .containsEntry("subscribers", 1)
+            .containsEntry("dropped", 1L)
+            .containsEntry("stalledDeliveryThreads", 1);
+
+        // Cuando el envío bloqueado termina, el emitter se completa y el pool vuelve a su tamaño
+        release.countDown();
+        awaitTrue(stalled::isCompleted);
+        assertThat(stalled.getFailure()).isNotNull();
+        awaitTrue(() -> executor.getCorePoolSize() == 1);
+        assertThat(bus.snapshot()).containsEntry("stalledDeliveryThreads", 0);
+    }
+
+    private SaleEventBus newBus(int threads) {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.initialize();
+        SaleEventBus eventBus = new SaleEventBus(BUFFER_SIZE, executor);
+        ReflectionTestUtils.setField(eventBus, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(eventBus, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(eventBus, "sendTimeoutMs", 5_000L);
+        return eventBus;
+    }
+
+    private String eventId(long sequence) {
+        return bus.snapshot().get("epoch") + "-" + sequence;
+    }
+
+    /**
+     * @return Secuencias de los "id:" recibidos, en orden
+     */
+    private static List<String> ids(String content) {
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = EVENT_ID.matcher(content);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        return ids;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("La condición no se cumplió en 5 s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.ServiceOverloadedException;
+import com.invoice.orchestrator.model.dto.SaleRequest;
+import com.invoice.orchestrator.model.entity.Sale;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SaleRecoveryServiceTest {
+
+    private static final byte[] PDF = {1, 2, 3};
+
+    private SaleRepository saleRepository;
+    private PdfServiceClient pdfServiceClient;
+    private PdfGenerationScheduler pdfScheduler;
+    private SaleStatusService statusService;
+    private InvoiceEmailDispatcher emailDispatcher;
+    private SaleRecoveryService recoveryService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        pdfServiceClient = mock(PdfServiceClient.class);
+        pdfScheduler = mock(PdfGenerationScheduler.class);
+        statusService = mock(SaleStatusService.class);
+        emailDispatcher = mock(InvoiceEmailDispatcher.class);
+        SaleMapper saleMapper = mock(SaleMapper.class);
+        when(saleMapper.toSaleRequest(any())).thenReturn(new SaleRequest());
+        when(pdfScheduler.execute(any(), any())).thenAnswer(call -> ((Supplier<Object>) call.getArgument(1)).get());
+
+        recoveryService = new SaleRecoveryService(saleRepository, saleMapper, pdfServiceClient,
+            pdfScheduler, statusService, emailDispatcher);
+        ReflectionTestUtils.setField(recoveryService, "staleAfterMs", 60_000L);
+        ReflectionTestUtils.setField(recoveryService, "maxAttempts", 3);
+    }
+
+    @Test
+    void resumesPendingSaleThroughInvoicedAndEnqueuesEmail() {
+        Sale sale = stale(1L, SaleStatus.PENDING, 0);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenReturn(PDF);
+        when(statusService.transition(1L, SaleStatus.PENDING, SaleStatus.INVOICED)).thenReturn(true);
+
+        recoveryService.recoverStaleSales();
+
+        verify(emailDispatcher).enqueue(eq(1L), eq(SaleStatus.INVOICED), any(SaleRequest.class), eq(PDF));
+    }
+
+    @Test
+    void doesNotEnqueueWhenAnotherStageMovedTheSaleFirst() {
+        Sale sale = stale(1L, SaleStatus.PENDING, 0);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenReturn(PDF);
+        when(statusService.transition(1L, SaleStatus.PENDING, SaleStatus.INVOICED)).thenReturn(false);
+
+        recoveryService.recoverStaleSales();
+
+        verify(emailDispatcher, never()).enqueue(anyLong(), any(), any(SaleRequest.class), any());
+    }
+
+    @Test
+    void skipsSaleWhenTheClaimIsLost() {
+        Sale sale = stale(1L, SaleStatus.PENDING, 0);
+        when(saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(any(), any(), anyInt()))
+            .thenReturn(List.of(sale));
+        when(saleRepository.claimForRecovery(eq(1L), eq(SaleStatus.PENDING), eq(sale.getUpdatedAt()), any())).thenReturn(0);
+
+        recoveryService.recoverStaleSales();
+
+        verifyNoInteractions(pdfServiceClient, statusService);
+    }
+
+    @Test
+    void keepsPendingSaleWhileAttemptsRemain() {
+        Sale sale = stale(1L, SaleStatus.PENDING, 0);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenThrow(new RuntimeException("pdf caído"));
+
+        recoveryService.recoverStaleSales();
+
+        verifyNoInteractions(statusService);
+    }
+
+    @Test
+    void cancelsPendingSaleOnTheLastFailedAttempt() {
+        Sale sale = stale(1L, SaleStatus.PENDING, 2);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenThrow(new RuntimeException("pdf caído"));
+
+        recoveryService.recoverStaleSales();
+
+        verify(statusService).transition(1L, SaleStatus.PENDING, SaleStatus.CANCELLED);
+        verify(emailDispatcher, never()).enqueue(anyLong(), any(), any(SaleRequest.class), any());
+    }
+
+    @Test
+    void leavesInvoicedSaleForManualReviewOnTheLastFailedAttempt() {
+        Sale sale = stale(1L, SaleStatus.INVOICED, 2);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenThrow(new RuntimeException("pdf caído"));
+
+        recoveryService.recoverStaleSales();
+
+        verifyNoInteractions(statusService);
+    }
+
+    @Test
+    void resendsInvoicedSaleFromItsCurrentStatus() {
+        Sale sale = stale(1L, SaleStatus.EMAIL_FAILED, 1);
+        claimSucceeds(sale);
+        when(pdfServiceClient.generatePdf(eq(1L), any(SaleRequest.class))).thenReturn(PDF);
+
+        recoveryService.recoverStaleSales();
+
+        verifyNoInteractions(statusService);
+        verify(emailDispatcher).enqueue(eq(1L), eq(SaleStatus.EMAIL_FAILED), any(SaleRequest.class), eq(PDF));
+    }
+
+    @Test
+    void leavesQueuedEmailsAlone() {
+        Sale sale = stale(1L, SaleStatus.INVOICED, 0);
+        when(saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(any(), any(), anyInt()))
+            .thenReturn(List.of(sale));
+        when(emailDispatcher.isQueued(1L)).thenReturn(true);
+
+        recoveryService.recoverStaleSales();
+
+        verify(saleRepository, never()).claimForRecovery(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void stopsTheSweepWhenThePdfServiceIsOverloaded() {
+        Sale first = stale(1L, SaleStatus.PENDING, 0);
+        Sale second = stale(2L, SaleStatus.PENDING, 0);
+        when(saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(any(), any(), anyInt()))
+            .thenReturn(List.of(first, second));
+        when(saleRepository.claimForRecovery(anyLong(), any(), any(), any())).thenReturn(1);
+        doThrow(new ServiceOverloadedException("cola llena", 1)).when(pdfScheduler).execute(any(), any());
+
+        recoveryService.recoverStaleSales();
+
+        verify(saleRepository, never()).claimForRecovery(eq(2L), any(), any(), any());
+    }
+
+    private void claimSucceeds(Sale sale) {
+        when(saleRepository.findTop50ByStatusInAndUpdatedAtBeforeAndRecoveryAttemptsLessThanOrderByIdAsc(any(), any(), anyInt()))
+            .thenReturn(List.of(sale));
+        when(saleRepository.claimForRecovery(eq(sale.getId()), eq(sale.getStatus()), eq(sale.getUpdatedAt()), any()))
+            .thenReturn(1);
+    }
+
+    private static Sale stale(Long id, SaleStatus status, int attempts) {
+        Sale sale = new Sale("Ana Perez", "123456", "ana@example.com", 2100, "[]");
+        sale.setId(id);
+        sale.setStatus(status);
+        sale.setRecoveryAttempts(attempts);
+        sale.setUpdatedAt(LocalDateTime.now().minusMinutes(10));
+        return sale;
+    }
+}
@@ -0,0 +1,76 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.entity.Sale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SaleSearchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SaleArchive saleArchive;
+    private SaleSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite:" + tempDir.resolve("sales.db"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE sales (id INTEGER PRIMARY KEY, customer_name TEXT, "
+            + "customer_id TEXT, customer_email TEXT, products TEXT)");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("INSERT INTO sales VALUES (?, ?, ?, ?, ?)",
+                id, "Cliente " + id, "ID" + id, "c" + id + "@example.com", "[{\"name\":\"Widget\"}]");
+        }
+        saleArchive = new SaleArchive(tempDir.resolve("archive").toString(), 64, 1, 6);
+        saleArchive.open();
+        searchService = new SaleSearchService(jdbcTemplate, null, saleArchive);
+        searchService.initializeIndex();
+    }
+
+    @AfterEach
+    void tearDown() {
+        saleArchive.close();
+        dataSource.destroy();
+    }
+
+    @Test
+    void keepsArchivedEntriesAndPurgesIdsMissingFromBothTiers() {
+        saleArchive.append(List.of(sale(1), sale(2)));
+        jdbcTemplate.update("DELETE FROM sales WHERE id <= 3");
+
+        searchService.initializeIndex();
+
+        assertThat(indexedIds()).containsExactly(1L, 2L, 4L, 5L);
+    }
+
+    @Test
+    void purgesArchivedEntriesAfterArchiveReset() {
+        saleArchive.append(List.of(sale(1), sale(2)));
+        jdbcTemplate.update("DELETE FROM sales WHERE id <= 2");
+        saleArchive.reset("test");
+
+        assertThat(searchService.purgeOrphans()).isEqualTo(2);
+        assertThat(indexedIds()).containsExactly(3L, 4L, 5L);
+    }
+
+    private List<Long> indexedIds() {
+        return jdbcTemplate.queryForList("SELECT rowid FROM sales_fts ORDER BY rowid", Long.class);
+    }
+
+    private static Sale sale(long id) {
+        Sale sale = new Sale("Cliente " + id, "ID" + id, "c" + id + "@example.com", 100, "[]");
+        sale.setId(id);
+        return sale;
+    }
+}
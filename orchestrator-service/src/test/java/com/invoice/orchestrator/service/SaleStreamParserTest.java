@@ -0,0 +1,124 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.exception.InvalidSaleException;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class SaleStreamParserTest {
+
+    private static final String CUSTOMER =
+        "\"customer\": {\"name\": \"Ana Perez\", \"identification\": \"123456\", \"email\": \"ana@example.com\"}";
+
+    private SaleStreamParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new SaleStreamParser(Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(parser, "maxLineItems", 5);
+    }
+
+    @Test
+    void spoolsValidatedProductsWithRecalculatedTotals() {
+        try (SaleSpool spool = parse("{\"products\": [" + product("Widget", "10.5", 2) + ", "
+                + product("Gadget", "1", 3) + "], " + CUSTOMER + "}")) {
+            assertThat(spool.getCustomer().getName()).isEqualTo("Ana Perez");
+            assertThat(spool.getLineItems()).isEqualTo(2);
+            assertThat(spool.getTotalAmount()).isEqualTo(2_400L);
+            assertThat(spool.readProductsJson()).contains("\"Widget\"", "\"Gadget\"");
+        }
+    }
+
+    @Test
+    void rejectsMoreLineItemsThanTheCap() {
+        String products = Stream.generate(() -> product("Widget", "1", 1)).limit(6).collect(Collectors.joining(","));
+
+        InvalidSaleException error = catchThrowableOfType(
+            () -> parse("{" + CUSTOMER + ", \"products\": [" + products + "]}"), InvalidSaleException.class);
+
+        assertThat(error.getDetails()).containsKey("products");
+    }
+
+    @Test
+    void reportsViolationsPerLineItem() {
+        InvalidSaleException error = catchThrowableOfType(() -> parse("{" + CUSTOMER + ", \"products\": ["
+            + product("Widget", "1", 1) + ", " + product("Gadget", "0", 1) + ", " + product("", "1", 0) + "]}"),
+            InvalidSaleException.class);
+
+        assertThat(error.getDetails()).containsOnlyKeys(
+            "products[1].price", "products[2].name", "products[2].quantity");
+    }
+
+    @Test
+    void reportsCustomerAndMissingProducts() {
+        InvalidSaleException error = catchThrowableOfType(
+            () -> parse("{\"customer\": {\"name\": \"Ana\"}}"), InvalidSaleException.class);
+
+        assertThat(error.getDetails()).containsKeys("customer.identification", "customer.email", "products");
+    }
+
+    @Test
+    void stopsReadingOnceTwentyErrorsAreCollected() {
+        ReflectionTestUtils.setField(parser, "maxLineItems", 1_000);
+        // Cada producto aporta dos errores; el producto 10 llega al tope y el 11, ilegible, nunca se lee
+        String invalid = Stream.generate(() -> product("", "0", 1)).limit(10).collect(Collectors.joining(","));
+
+        InvalidSaleException error = catchThrowableOfType(
+            () -> parse("{" + CUSTOMER + ", \"products\": [" + invalid + ", {\"price\": \"no\"}]}"),
+            InvalidSaleException.class);
+
+        assertThat(error.getDetails()).hasSize(20).doesNotContainKey("products[10]");
+    }
+
+    @Test
+    void deletesTheSpoolWhenParsingFails() throws IOException {
+        Set<Path> before = spoolFiles();
+
+        assertThatThrownBy(() -> parse("{" + CUSTOMER + ", \"products\": [" + product("Widget", "1", 1) + ", {"))
+            .isInstanceOf(InvalidSaleException.class);
+        assertThatThrownBy(() -> parse("{" + CUSTOMER + ", \"products\": [" + product("", "1", 1) + "]}"))
+            .isInstanceOf(InvalidSaleException.class);
+        assertThatThrownBy(() -> parse("[]")).isInstanceOf(InvalidSaleException.class);
+
+        assertThat(spoolFiles()).isEqualTo(before);
+    }
+
+    @Test
+    void closingTheSpoolDeletesItsFile() throws IOException {
+        Set<Path> before = spoolFiles();
+        SaleSpool spool = parse("{" + CUSTOMER + ", \"products\": [" + product("Widget", "1", 1) + "]}");
+        assertThat(spoolFiles()).hasSize(before.size() + 1);
+
+        spool.close();
+
+        assertThat(spoolFiles()).isEqualTo(before);
+    }
+
+    private SaleSpool parse(String json) {
+        return parser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String product(String name, String price, int quantity) {
+        return "{\"name\": \"" + name + "\", \"price\": " + price + ", \"quantity\": " + quantity + "}";
+    }
+
+    private static Set<Path> spoolFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("sale-products-"))
+                .collect(Collectors.toSet());
+        }
+    }
+}
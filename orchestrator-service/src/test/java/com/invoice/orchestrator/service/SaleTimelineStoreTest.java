@@ -0,0 +1,69 @@
+package com.invoice.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class SaleTimelineStoreTest {
+
+    @Test
+    void listsSlowestFirst() {
+        SaleTimelineStore store = new SaleTimelineStore(100);
+        store.register(traceWithSpan(1L, 5));
+        store.register(traceWithSpan(2L, 50));
+        store.register(traceWithSpan(3L, 20));
+
+        List<Map<String, Object>> slowest = store.slowest(2, Duration.ofHours(1));
+
+        assertThat(slowest).extracting(timeline -> timeline.get("saleId")).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void sortsWhileTracesKeepGrowing() throws Exception {
+        SaleTimelineStore store = new SaleTimelineStore(5_000);
+        List<SaleTrace> traces = new ArrayList<>();
+        for (long saleId = 1; saleId <= 2_000; saleId++) {
+            SaleTrace trace = SaleTrace.start(null);
+            trace.setSaleId(saleId);
+            trace.finishRequest();
+            traces.add(trace);
+            store.register(trace);
+        }
+
+        // Como los hilos de email, otro hilo sigue alargando las trazas mientras se ordenan
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            while (!done.get()) {
+                traces.get(ThreadLocalRandom.current().nextInt(traces.size())).finishRequest();
+            }
+        });
+        writer.start();
+        try {
+            assertThatCode(() -> {
+                for (int i = 0; i < 50; i++) {
+                    store.slowest(10, Duration.ofHours(1));
+                }
+            }).doesNotThrowAnyException();
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    private static SaleTrace traceWithSpan(Long saleId, long millis) {
+        SaleTrace trace = SaleTrace.start(null);
+        trace.setSaleId(saleId);
+        SaleTrace.callWith(trace, () -> {
+            SaleTrace.recordServerTiming("pdf-service", System.nanoTime(), "render;dur=" + millis);
+            return null;
+        });
+        return trace;
+    }
+}
@@ -0,0 +1,57 @@
+package com.invoice.orchestrator.service;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+class SaleTraceTest {
+
+    @Test
+    void recordsServerTimingEntries() {
+        List<Map<String, Object>> stages = stagesFor("render;dur=120.5, total;desc=\"Total\";dur=130");
+
+        assertThat(stages).extracting(stage -> stage.get("stage"))
+            .containsExactly("pdf-service.render", "pdf-service.total");
+        assertThat(stages).extracting(stage -> stage.get("durationMillis"))
+            .containsExactly(120.5, 130.0);
+    }
+
+    @Test
+    void skipsMalformedEntries() {
+        List<Map<String, Object>> stages = stagesFor(
+            "a;dur=., b;dur=1.2.3, c;dur=-5, d;dur=1e309, e;dur=99999999999999999999, ok;dur=7");
+
+        assertThat(stages).extracting(stage -> stage.get("stage")).containsExactly("pdf-service.ok");
+    }
+
+    @Test
+    void neverThrowsOnGarbage() {
+        SaleTrace trace = SaleTrace.start(null);
+        assertThatCode(() -> SaleTrace.callWith(trace, () -> {
+            SaleTrace.recordServerTiming("pdf-service", System.nanoTime(), ";;;dur==,,,\u0000dur=");
+            SaleTrace.recordServerTiming("pdf-service", System.nanoTime(), null);
+            return null;
+        })).doesNotThrowAnyException();
+    }
+
+    @Test
+    void reusesValidIncomingIdOnly() {
+        assertThat(SaleTrace.start("abc12345-trace").getTraceId()).isEqualTo("abc12345-trace");
+        assertThat(SaleTrace.start("corto").getTraceId()).hasSize(32);
+        assertThat(SaleTrace.start("inyección\r\nX: 1").getTraceId()).hasSize(32);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> stagesFor(String serverTiming) {
+        SaleTrace trace = SaleTrace.start(null);
+        long start = System.nanoTime();
+        SaleTrace.callWith(trace, () -> {
+            SaleTrace.recordServerTiming("pdf-service", start, serverTiming);
+            return null;
+        });
+        return (List<Map<String, Object>>) trace.toMap().get("stages");
+    }
+}
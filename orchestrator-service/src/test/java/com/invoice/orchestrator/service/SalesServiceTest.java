@@ -0,0 +1,65 @@
+package com.invoice.orchestrator.service;
+
+import com.invoice.orchestrator.model.SaleVersion;
+import com.invoice.orchestrator.model.entity.SaleStatus;
+import com.invoice.orchestrator.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SalesServiceTest {
+
+    private SaleRepository saleRepository;
+    private SaleArchive saleArchive;
+    private SalesService salesService;
+
+    @BeforeEach
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        saleArchive = mock(SaleArchive.class);
+        salesService = new SalesService(saleRepository, saleArchive, null, null, null, null, null, null, null, null);
+    }
+
+    @Test
+    void versionOfAnArchivedSaleComesFromTheIndexOnly() {
+        when(saleRepository.findVersionById(7L)).thenReturn(Optional.empty());
+        when(saleArchive.covers(7L)).thenReturn(true);
+
+        SaleVersion version = salesService.findSaleVersion(7L).orElseThrow();
+
+        assertThat(version.isArchived()).isTrue();
+        assertThat(version.isImmutable()).isTrue();
+        assertThat(version.getETag()).isEqualTo("\"7-archived\"");
+        assertThat(version.getLastModifiedMillis()).isEqualTo(-1);
+        verify(saleArchive, never()).find(anyLong());
+    }
+
+    @Test
+    void databaseVersionWinsOverTheArchive() {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(saleRepository.findVersionById(7L))
+            .thenReturn(Optional.of(new SaleVersion(7L, SaleStatus.INVOICED, updatedAt)));
+
+        SaleVersion version = salesService.findSaleVersion(7L).orElseThrow();
+
+        assertThat(version.isArchived()).isFalse();
+        assertThat(version.getETag()).startsWith("\"7-INVOICED-");
+        verify(saleArchive, never()).covers(anyLong());
+    }
+
+    @Test
+    void noVersionOutsideTheDatabaseAndTheArchive() {
+        when(saleRepository.findVersionById(7L)).thenReturn(Optional.empty());
+        when(saleArchive.covers(7L)).thenReturn(false);
+
+        assertThat(salesService.findSaleVersion(7L)).isEmpty();
+    }
+}
@@ -0,0 +1,146 @@
+package com.invoice.orchestrator.service;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cliente SSE de prueba: abre el emitter a través de Spring MVC (MockMvc en modo
+ * asíncrono), como en una petición real, y lee lo escrito en la respuesta.
+ * Puede bloquear las escrituras para simular un cliente que dejó de leer.
+ */
+final class SseTestClient {
+
+    private final MvcResult result;
+    private volatile CountDownLatch block;
+
+    private SseTestClient(Supplier<SseEmitter> subscribe) throws Exception {
+        Filter blockingWrites = (request, response, chain) ->
+            chain.doFilter(request, new BlockingResponse((HttpServletResponse) response));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StreamController(subscribe))
+            .addFilters(blockingWrites)
+            .build();
+        this.result = mockMvc.perform(get("/stream")).andReturn();
+    }
+
+    /**
+     * Se suscribe con el supplier dentro de una petición GET.
+     */
+    static SseTestClient open(Supplier<SseEmitter> subscribe) throws Exception {
+        return new SseTestClient(subscribe);
+    }
+
+    /**
+     * Bloquea las escrituras siguientes hasta que se libere el latch.
+     */
+    void blockWrites(CountDownLatch latch) {
+        this.block = latch;
+    }
+
+    /**
+     * @return Texto SSE recibido hasta ahora
+     */
+    String getContent() {
+        return new String(result.getResponse().getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+
+    boolean isCompleted() {
+        return asyncManager().hasConcurrentResult();
+    }
+
+    /**
+     * @return Error con el que se completó el emitter, o null
+     */
+    Throwable getFailure() {
+        Object concurrentResult = asyncManager().getConcurrentResult();
+        return concurrentResult instanceof Throwable failure ? failure : null;
+    }
+
+    private WebAsyncManager asyncManager() {
+        return WebAsyncUtils.getAsyncManager(result.getRequest());
+    }
+
+    @RestController
+    private static final class StreamController {
+
+        private final Supplier<SseEmitter> subscribe;
+
+        private StreamController(Supplier<SseEmitter> subscribe) {
+            this.subscribe = subscribe;
+        }
+
+        @GetMapping("/stream")
+        SseEmitter stream() {
+            return subscribe.get();
+        }
+    }
+
+    private final class BlockingResponse extends HttpServletResponseWrapper {
+
+        private BlockingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            ServletOutputStream out = super.getOutputStream();
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    awaitRelease();
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    awaitRelease();
+                    out.write(bytes, offset, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    out.flush();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return out.isReady();
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    out.setWriteListener(listener);
+                }
+            };
+        }
+
+        private void awaitRelease() throws IOException {
+            CountDownLatch latch = block;
+            if (latch == null) {
+                return;
+            }
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -3,13 +3,17 @@ Aplicación principal del Microservicio B - Generador de PDF.
 FastAPI application que expone endpoints para generación de facturas en PDF.
 """
 
-from fastapi import FastAPI, HTTPException, status
+import os
+import time
+from typing import Optional
+from fastapi import FastAPI, Header, HTTPException, status
 from fastapi.responses import Response
 from fastapi.middleware.cors import CORSMiddleware
+from fastapi.middleware.gzip import GZipMiddleware
 from datetime import datetime
 from .models import InvoiceRequest
 from .pdf_generator import PDFGenerator
-from .middleware import ApiKeyMiddleware
+from .middleware import ApiKeyMiddleware, GzipRequestMiddleware
 
 # Importar OpenAPI utils al inicio
 from fastapi.openapi.utils import get_openapi
@@ -77,6 +81,11 @@ app.add_middleware(
 # Agregar middleware de API Key
 app.add_middleware(ApiKeyMiddleware)
 
+# Compresión: respuestas gzip si el cliente lo acepta y superan el umbral,
+# y descompresión de peticiones enviadas con Content-Encoding: gzip
+app.add_middleware(GZipMiddleware, minimum_size=int(os.getenv("GZIP_MIN_RESPONSE_BYTES", "2048")))
+app.add_middleware(GzipRequestMiddleware)
+
 # Inicializar generador de PDF
 pdf_generator = PDFGenerator()
 
@@ -96,10 +105,15 @@ pdf_generator = PDFGenerator()
         400: {"description": "Datos inválidos"},
         401: {"description": "API Key faltante"},
         403: {"description": "API Key inválido"},
-        500: {"description": "Error al generar PDF"}
+        500: {"description": "Error al generar PDF"},
+        504: {"description": "Tiempo límite de la petición agotado"}
     }
 )
-async def generate_pdf(invoice_data: InvoiceRequest):
+async def generate_pdf(
+    invoice_data: InvoiceRequest,
+    x_request_timeout_ms: Optional[int] = Header(default=None),
+    x_trace_id: Optional[str] = Header(default=None)
+):
     """
     Endpoint para generar PDF de factura.
     Comunicación SÍNCRONA: Genera el PDF y lo retorna inmediatamente.
@@ -107,8 +121,18 @@ async def generate_pdf(invoice_data: InvoiceRequest):
     PATRON COMENTADO: Se podría implementar caching para PDFs idénticos
     y reducir carga de procesamiento en peticiones repetidas.
     
+    Deadline: el orquestador envía en X-Request-Timeout-Ms el tiempo que le
+    queda a la petición. Si ya se agotó, se rechaza sin generar el PDF; si se
+    agota durante la generación, no se envía un PDF que nadie espera.
+    
+    Tracing: el ID de X-Trace-Id se registra en los logs y se devuelve, y el
+    header Server-Timing informa al orquestador el tiempo de renderizado y el
+    total del handler, que los agrega a la línea de tiempo de la venta.
+    
     Args:
         invoice_data: Datos de la factura (validados por Pydantic)
+        x_request_timeout_ms: Presupuesto restante en milisegundos (opcional)
+        x_trace_id: ID de la traza de la venta (opcional)
     
     Returns:
         Response: PDF binary con headers apropiados
@@ -116,27 +140,51 @@ async def generate_pdf(invoice_data: InvoiceRequest):
     Raises:
         HTTPException: Si hay error al generar el PDF
     """
+    started = time.monotonic()
+    if x_request_timeout_ms is not None and x_request_timeout_ms <= 0:
+        print("⌛ Petición rechazada: deadline agotado antes de generar el PDF")
+        raise HTTPException(
+            status_code=status.HTTP_504_GATEWAY_TIMEOUT,
+            detail="Tiempo límite de la petición agotado"
+        )
+
     try:
-        print(f"📥 Recibida petición para generar PDF")
+        print(f"📥 Recibida petición para generar PDF (traza: {x_trace_id or '-'})")
         print(f"   Cliente: {invoice_data.customer.name}")
         print(f"   Productos: {len(invoice_data.products)}")
         
         # Generar PDF
+        render_started = time.monotonic()
         pdf_bytes = pdf_generator.generate_invoice_pdf(invoice_data)
+        render_ms = (time.monotonic() - render_started) * 1000
+
+        elapsed_ms = (time.monotonic() - started) * 1000
+        if x_request_timeout_ms is not None and elapsed_ms > x_request_timeout_ms:
+            print(f"⌛ PDF descartado: generación ({elapsed_ms:.0f} ms) superó el deadline")
+            raise HTTPException(
+                status_code=status.HTTP_504_GATEWAY_TIMEOUT,
+                detail="Tiempo límite de la petición agotado"
+            )
         
         # PATRON: Aquí se podría guardar el PDF en almacenamiento (S3, etc.)
         # para tener un histórico de facturas generadas
         
         # Retornar PDF con headers apropiados
+        headers = {
+            "Content-Disposition": "attachment; filename=factura.pdf",
+            "Cache-Control": "no-cache",
+            "Server-Timing": f"render;dur={render_ms:.1f}, total;dur={elapsed_ms:.1f}"
+        }
+        if x_trace_id:
+            headers["X-Trace-Id"] = x_trace_id
         return Response(
             content=pdf_bytes,
             media_type="application/pdf",
-            headers={
-                "Content-Disposition": "attachment; filename=factura.pdf",
-                "Cache-Control": "no-cache"
-            }
+            headers=headers
         )
         
+    except HTTPException:
+        raise
     except Exception as e:
         print(f"❌ Error al generar PDF: {str(e)}")
         raise HTTPException(
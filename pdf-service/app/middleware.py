@@ -3,6 +3,7 @@ Middleware de seguridad para validación de API Key.
 Intercepta las peticiones y valida la autenticación.
 """
 
+import gzip
 import os
 from pathlib import Path
 from dotenv import load_dotenv
@@ -76,4 +77,69 @@ class ApiKeyMiddleware(BaseHTTPMiddleware):
         
         # API Key válido, continuar con la petición
         response = await call_next(request)
-        return response
\ No newline at end of file
+        return response
+
+
+class GzipRequestMiddleware:
+    """
+    Middleware ASGI que descomprime bodies de peticiones con Content-Encoding: gzip.
+
+    El orquestador comprime las peticiones grandes (facturas con muchos
+    productos); aquí se descomprimen antes de que FastAPI parsee el JSON.
+    La compresión de respuestas la hace GZipMiddleware de Starlette.
+    """
+
+    def __init__(self, app):
+        """
+        Inicializa el middleware.
+
+        Args:
+            app: Aplicación ASGI envuelta
+        """
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            return await self.app(scope, receive, send)
+
+        headers = dict(scope["headers"])
+        if headers.get(b"content-encoding", b"").lower() != b"gzip":
+            return await self.app(scope, receive, send)
+
+        # Leer el body comprimido completo
+        chunks = []
+        more_body = True
+        while more_body:
+            message = await receive()
+            chunks.append(message.get("body", b""))
+            more_body = message.get("more_body", False)
+
+        try:
+            body = gzip.decompress(b"".join(chunks))
+        except (OSError, EOFError):
+            response = JSONResponse(
+                status_code=status.HTTP_400_BAD_REQUEST,
+                content={
+                    "error": "Body gzip inválido",
+                    "message": "No se pudo descomprimir el body de la petición"
+                }
+            )
+            return await response(scope, receive, send)
+
+        # Reemplazar headers de codificación y longitud por los del body descomprimido
+        scope = dict(scope)
+        scope["headers"] = [
+            (name, value) for name, value in scope["headers"]
+            if name not in (b"content-encoding", b"content-length")
+        ] + [(b"content-length", str(len(body)).encode())]
+
+        sent = False
+
+        async def receive_decompressed():
+            nonlocal sent
+            if sent:
+                return await receive()
+            sent = True
+            return {"type": "http.request", "body": body, "more_body": False}
+
+        await self.app(scope, receive_decompressed, send)